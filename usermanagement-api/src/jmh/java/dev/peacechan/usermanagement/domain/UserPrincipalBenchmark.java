@@ -0,0 +1,44 @@
+package dev.peacechan.usermanagement.domain;
+
+import dev.peacechan.usermanagement.enumeration.Role;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * {@link UserPrincipal#getAuthorities()} against building a fresh authority list per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserPrincipalBenchmark {
+    private User user;
+    private UserPrincipal userPrincipal;
+
+    @Setup
+    public void setUp() {
+        user = new User();
+        user.setUsername("benchmark");
+        user.setAuthorities(Role.ROLE_SUPER_ADMIN.getAuthorities());
+        userPrincipal = new UserPrincipal(user);
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return userPrincipal.getAuthorities();
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> newAuthorityList() {
+        return user.getAuthorities().stream()
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,83 @@
+package dev.peacechan.usermanagement.filter;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import dev.peacechan.usermanagement.domain.User;
+import dev.peacechan.usermanagement.domain.UserPrincipal;
+import dev.peacechan.usermanagement.enumeration.Role;
+import dev.peacechan.usermanagement.utility.JwtTokenProvider;
+import dev.peacechan.usermanagement.utility.TokenRevocationList;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.auth0.jwt.algorithms.Algorithm.HMAC512;
+import static dev.peacechan.usermanagement.constant.SecurityConstant.*;
+
+/**
+ * Per-request cost of {@link JwtAuthorizationFilter} with mock servlet objects, comparing the
+ * previous "build a verifier and verify three times" approach with a single verification and
+ * with a warm verified-token cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthorizationFilterBenchmark {
+    private static final String SECRET = "benchmark-secret";
+
+    private String token;
+    private JwtAuthorizationFilter uncachedFilter;
+    private JwtAuthorizationFilter cachedFilter;
+
+    @Setup
+    public void setUp() throws Exception {
+        JwtTokenProvider uncachedProvider = new JwtTokenProvider(new SimpleMeterRegistry(), SECRET, 0, 600_000);
+        JwtTokenProvider cachedProvider = new JwtTokenProvider(new SimpleMeterRegistry(), SECRET, 1_000, 600_000);
+        User user = new User();
+        user.setUsername("benchmark");
+        user.setAuthorities(Role.ROLE_SUPER_ADMIN.getAuthorities());
+        token = cachedProvider.generateJwtToken(new UserPrincipal(user));
+        uncachedFilter = new JwtAuthorizationFilter(uncachedProvider, new TokenRevocationList());
+        cachedFilter = new JwtAuthorizationFilter(cachedProvider, new TokenRevocationList());
+
+        runFilter(cachedFilter);
+        if (!"benchmark".equals(SecurityContextHolder.getContext().getAuthentication().getName())) {
+            throw new IllegalStateException("The filter did not authenticate the benchmark token");
+        }
+    }
+
+    @Benchmark
+    public void legacyVerification() {
+        for (int i = 0; i < 3; i++) {
+            JWTVerifier verifier = JWT.require(HMAC512(SECRET)).withIssuer(PEACE_CHAN_DEV).build();
+            verifier.verify(token);
+        }
+    }
+
+    @Benchmark
+    public MockHttpServletRequest singleVerification() throws Exception {
+        return runFilter(uncachedFilter);
+    }
+
+    @Benchmark
+    public MockHttpServletRequest cachedVerification() throws Exception {
+        return runFilter(cachedFilter);
+    }
+
+    private MockHttpServletRequest runFilter(JwtAuthorizationFilter filter) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/user/list");
+        request.addHeader(HttpHeaders.AUTHORIZATION, TOKEN_PREFIX + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return request;
+    }
+}
@@ -0,0 +1,57 @@
+package dev.peacechan.usermanagement.resource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.peacechan.usermanagement.domain.User;
+import dev.peacechan.usermanagement.enumeration.Role;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of user lists, as returned by {@code /user/list}, at several sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserJsonBenchmark {
+    @Param({"10", "1000", "10000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            User user = new User();
+            user.setId((long) i);
+            user.setUserId(String.valueOf(1_000_000_000L + i));
+            user.setFirstName("First" + i);
+            user.setLastName("Last" + i);
+            user.setUsername("user" + i);
+            user.setEmail("user" + i + "@example.com");
+            user.setProfileImageUrl("http://localhost:8081/user/image/profile/user" + i);
+            user.setJoinDate(new Date());
+            user.setLastLoginDate(new Date());
+            user.setRole(Role.ROLE_USER.name());
+            user.setAuthorities(Role.ROLE_USER.getAuthorities());
+            user.setActive(true);
+            user.setNotLocked(true);
+            users.add(user);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeUsers() throws Exception {
+        return objectMapper.writeValueAsBytes(users);
+    }
+}
@@ -0,0 +1,62 @@
+package dev.peacechan.usermanagement.service;
+
+import dev.peacechan.usermanagement.service.impl.LocalLoginAttemptStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LoginAttemptService} over the local store with four threads, either all failing
+ * logins for the same username or each for its own set of usernames.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class LoginAttemptServiceBenchmark {
+    private static final int KEYS_PER_THREAD = 1024;
+
+    private LoginAttemptService loginAttemptService;
+
+    @State(Scope.Thread)
+    public static class ThreadKeys {
+        private final String[] usernames = new String[KEYS_PER_THREAD];
+        private int next;
+
+        @Setup
+        public void setUp() {
+            String prefix = Thread.currentThread().getName() + "-";
+            for (int i = 0; i < usernames.length; i++) {
+                usernames[i] = prefix + i;
+            }
+        }
+
+        private String next() {
+            next = (next + 1) & (KEYS_PER_THREAD - 1);
+            return usernames[next];
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        LocalLoginAttemptStore store = new LocalLoginAttemptStore(new SimpleMeterRegistry(), TimeUnit.MINUTES.toMillis(15), 1_000_000);
+        loginAttemptService = new LoginAttemptService(store, new SimpleMeterRegistry(), 5, 50, true);
+    }
+
+    @Benchmark
+    public boolean failuresForOneUsername() {
+        loginAttemptService.addUserToLoginAttemptCache("alice");
+        return loginAttemptService.hasExceededMaxAttempts("alice");
+    }
+
+    @Benchmark
+    public boolean failuresForDistinctUsernames(ThreadKeys keys) {
+        String username = keys.next();
+        loginAttemptService.addUserToLoginAttemptCache(username);
+        return loginAttemptService.hasExceededMaxAttempts(username);
+    }
+}
@@ -0,0 +1,54 @@
+package dev.peacechan.usermanagement.utility;
+
+import dev.peacechan.usermanagement.domain.User;
+import dev.peacechan.usermanagement.domain.UserPrincipal;
+import dev.peacechan.usermanagement.domain.VerifiedToken;
+import dev.peacechan.usermanagement.enumeration.Role;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and verification, with the verified-token cache disabled and warm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+    private static final String SECRET = "benchmark-secret";
+
+    private JwtTokenProvider uncachedProvider;
+    private JwtTokenProvider cachedProvider;
+    private UserPrincipal userPrincipal;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        uncachedProvider = new JwtTokenProvider(new SimpleMeterRegistry(), SECRET, 0, 600_000);
+        cachedProvider = new JwtTokenProvider(new SimpleMeterRegistry(), SECRET, 1_000, 600_000);
+        User user = new User();
+        user.setUsername("benchmark");
+        user.setAuthorities(Role.ROLE_SUPER_ADMIN.getAuthorities());
+        userPrincipal = new UserPrincipal(user);
+        token = cachedProvider.generateJwtToken(userPrincipal);
+    }
+
+    @Benchmark
+    public String generateJwtToken() {
+        return cachedProvider.generateJwtToken(userPrincipal);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyToken() {
+        return uncachedProvider.verifyToken(token);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyCachedToken() {
+        return cachedProvider.verifyToken(token);
+    }
+}
@@ -0,0 +1,92 @@
+package dev.peacechan.usermanagement.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-scenario latency histograms and error counts. Recording is safe from any number of
+ * worker threads; {@link #reset()} discards what was recorded so far, e.g. after warm-up.
+ */
+class LatencyReport {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<Scenario, Recorder> recorders = new EnumMap<>(Scenario.class);
+    private final Map<Scenario, LongAdder> errors = new EnumMap<>(Scenario.class);
+    private long startNanos;
+
+    LatencyReport() {
+        for (Scenario scenario : Scenario.values()) {
+            recorders.put(scenario, new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS));
+            errors.put(scenario, new LongAdder());
+        }
+        startNanos = System.nanoTime();
+    }
+
+    void record(Scenario scenario, long elapsedNanos, boolean failed) {
+        recorders.get(scenario).recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(elapsedNanos), HIGHEST_TRACKABLE_MICROS));
+        if (failed) {
+            errors.get(scenario).increment();
+        }
+    }
+
+    void reset() {
+        recorders.values().forEach(Recorder::getIntervalHistogram);
+        errors.values().forEach(LongAdder::reset);
+        startNanos = System.nanoTime();
+    }
+
+    /** Prints a table and writes the same figures, with the sampled resource use, as JSON to the given file. */
+    void write(File file, String executionMode, Map<String, Object> resources) throws IOException {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        Map<String, Object> results = new LinkedHashMap<>();
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        long totalErrors = 0;
+        System.out.printf("%-22s %10s %8s %10s %10s %10s %10s %10s%n",
+                "scenario", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Scenario scenario : Scenario.values()) {
+            Histogram histogram = recorders.get(scenario).getIntervalHistogram();
+            long scenarioErrors = errors.get(scenario).sum();
+            total.add(histogram);
+            totalErrors += scenarioErrors;
+            results.put(scenario.name(), print(scenario.name(), histogram, scenarioErrors, seconds));
+        }
+        results.put("TOTAL", print("TOTAL", total, totalErrors, seconds));
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("durationSeconds", seconds);
+        report.put("executionMode", executionMode);
+        report.put("scenarios", results);
+        report.put("resources", resources);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+        System.out.println("Load test report written to " + file.getAbsolutePath());
+    }
+
+    private Map<String, Object> print(String name, Histogram histogram, long errorCount, double seconds) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("requests", histogram.getTotalCount());
+        result.put("errors", errorCount);
+        result.put("throughput", histogram.getTotalCount() / seconds);
+        result.put("p50Millis", millis(histogram, 50));
+        result.put("p99Millis", millis(histogram, 99));
+        result.put("p999Millis", millis(histogram, 99.9));
+        result.put("maxMillis", histogram.getMaxValue() / 1000.0);
+        System.out.printf("%-22s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n", name, histogram.getTotalCount(),
+                errorCount, result.get("throughput"), result.get("p50Millis"), result.get("p99Millis"),
+                result.get("p999Millis"), result.get("maxMillis"));
+        return result;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
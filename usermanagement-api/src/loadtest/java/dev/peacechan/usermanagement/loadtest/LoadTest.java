@@ -0,0 +1,184 @@
+package dev.peacechan.usermanagement.loadtest;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import dev.peacechan.usermanagement.UsermanagementApplication;
+import dev.peacechan.usermanagement.service.UserExistenceFilter;
+import dev.peacechan.usermanagement.service.UserSearchIndex;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load test: starts the application on an in-memory H2 database with a local SMTP
+ * stub, seeds users, replays a weighted mix of scenarios from worker threads and reports
+ * latency percentiles and throughput per scenario. Run with
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec [-Dloadtest.users=10000 -Dloadtest.threads=16 ...]
+ * </pre>
+ * Each client thread keeps one request in flight, so {@code loadtest.threads} is the concurrency.
+ * Run once per {@code loadtest.execution-mode} to compare platform and virtual threads.
+ * Logins go to users with even numbers and password resets to users with odd numbers, so a
+ * reset never breaks a later login.
+ */
+public class LoadTest {
+    private static final String PASSWORD = "loadtest-password";
+
+    private final int users = Integer.getInteger("loadtest.users", 10_000);
+    private final int threads = Integer.getInteger("loadtest.threads", 16);
+    private final long warmupSeconds = Long.getLong("loadtest.warmup-seconds", 10);
+    private final long durationSeconds = Long.getLong("loadtest.duration-seconds", 60);
+    private final String executionMode = System.getProperty("loadtest.execution-mode", "platform");
+    private final String mix = System.getProperty("loadtest.mix", "login:10,find:50,list:5,update_profile_image:5,reset_password:5");
+    private final File reportFile = new File(System.getProperty("loadtest.report", "target/loadtest-report.json"));
+
+    private final LatencyReport report = new LatencyReport();
+    private final Scenario[] weightedScenarios = parseMix(mix);
+    private volatile boolean running = true;
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest().run();
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        if (users < 2) {
+            throw new IllegalArgumentException("loadtest.users must be at least 2");
+        }
+        int smtpPort = freePort();
+        GreenMail smtp = new GreenMail(new ServerSetup(smtpPort, "localhost", ServerSetup.PROTOCOL_SMTP))
+                .withConfiguration(GreenMailConfiguration.aConfig().withUser("mailer", "secret"));
+        smtp.start();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(UsermanagementApplication.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--email.smtp.protocol=smtp", "--email.smtp.host=localhost", "--email.smtp.port=" + smtpPort,
+                        "--email.smtp.starttls=false", "--email.smtp.username=mailer", "--email.smtp.password=secret",
+                        "--execution.mode=" + executionMode,
+                        // Tomcat refuses connections beyond this, which would cap the concurrency measured.
+                        "--server.tomcat.max-connections=" + Math.max(8192, threads + 100),
+                        "--logging.level.root=WARN");
+        try {
+            seed(context);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadTestClient client = new LoadTestClient("http://localhost:" + port, PASSWORD);
+            String adminToken = client.login(UserSeeder.username(0));
+            if (adminToken == null) {
+                throw new IllegalStateException("Could not log in as the seeded admin");
+            }
+            ResourceSampler resources = new ResourceSampler();
+            List<Thread> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Thread worker = new Thread(() -> work(client, adminToken), "loadtest-worker-" + i);
+                workers.add(worker);
+                worker.start();
+            }
+            System.out.printf("Warming up for %d s with %d threads against %d users, execution.mode=%s%n",
+                    warmupSeconds, threads, users, executionMode);
+            TimeUnit.SECONDS.sleep(warmupSeconds);
+            report.reset();
+            resources.reset();
+            System.out.printf("Measuring for %d s, mix %s%n", durationSeconds, mix);
+            TimeUnit.SECONDS.sleep(durationSeconds);
+            running = false;
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            report.write(reportFile, executionMode, resources.stop(threads));
+            System.out.println("Password reset emails received by the SMTP stub: " + smtp.getReceivedMessages().length);
+        } finally {
+            context.close();
+            smtp.stop();
+        }
+    }
+
+    private void seed(ConfigurableApplicationContext context) {
+        long start = System.nanoTime();
+        new UserSeeder(context.getBean(JdbcTemplate.class)).seed(users, new BCryptPasswordEncoder().encode(PASSWORD));
+        // Both are built at startup, before the seeded rows existed.
+        context.getBean(UserExistenceFilter.class).rebuild();
+        context.getBean(UserSearchIndex.class).rebuild();
+        System.out.printf("Seeded %d users in %d ms%n", users, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void work(LoadTestClient client, String adminToken) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running) {
+            Scenario scenario = weightedScenarios[random.nextInt(weightedScenarios.length)];
+            int user = random.nextInt(users);
+            long start = System.nanoTime();
+            boolean failed;
+            try {
+                failed = !succeeded(execute(client, adminToken, scenario, user));
+            } catch (IOException exception) {
+                failed = true;
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            report.record(scenario, System.nanoTime() - start, failed);
+        }
+    }
+
+    private int execute(LoadTestClient client, String adminToken, Scenario scenario, int user) throws IOException, InterruptedException {
+        switch (scenario) {
+            case LOGIN:
+                return client.login(UserSeeder.username(user & ~1)) != null ? 200 : 401;
+            case FIND:
+                return client.find(adminToken, UserSeeder.username(user));
+            case LIST:
+                return client.list(adminToken);
+            case UPDATE_PROFILE_IMAGE:
+                return client.updateProfileImage(adminToken, UserSeeder.username(user));
+            case RESET_PASSWORD:
+                int resetUser = (user | 1) < users ? user | 1 : 1;
+                return client.resetPassword(adminToken, UserSeeder.email(resetUser));
+            default:
+                throw new IllegalArgumentException(scenario.name());
+        }
+    }
+
+    private static boolean succeeded(int status) {
+        return status >= 200 && status < 300;
+    }
+
+    // "login:10,find:50" becomes an array holding LOGIN 10 times and FIND 50 times.
+    private static Scenario[] parseMix(String mix) {
+        Map<Scenario, Integer> weights = new EnumMap<>(Scenario.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            weights.put(Scenario.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        List<Scenario> scenarios = new ArrayList<>();
+        weights.forEach((scenario, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                scenarios.add(scenario);
+            }
+        });
+        if (scenarios.isEmpty()) {
+            throw new IllegalArgumentException("The scenario mix is empty: " + mix);
+        }
+        return scenarios.toArray(new Scenario[0]);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
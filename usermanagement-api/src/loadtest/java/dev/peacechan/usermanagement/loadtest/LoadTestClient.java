@@ -0,0 +1,106 @@
+package dev.peacechan.usermanagement.loadtest;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+import static dev.peacechan.usermanagement.constant.SecurityConstant.JWT_TOKEN_HEADER;
+import static dev.peacechan.usermanagement.constant.SecurityConstant.TOKEN_PREFIX;
+
+/**
+ * Issues one request per scenario against a running server and returns the status code.
+ */
+class LoadTestClient {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final String BOUNDARY = "loadtest-" + UUID.randomUUID();
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(REQUEST_TIMEOUT)
+            .build();
+    private final String baseUrl;
+    private final String password;
+    private final byte[] profileImage = createProfileImage();
+
+    LoadTestClient(String baseUrl, String password) {
+        this.baseUrl = baseUrl;
+        this.password = password;
+    }
+
+    /** Logs in and returns the JWT, or null when the login failed. */
+    String login(String username) throws IOException, InterruptedException {
+        HttpResponse<Void> response = send(HttpRequest.newBuilder(uri("/user/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}")));
+        return response.statusCode() == 200 ? response.headers().firstValue(JWT_TOKEN_HEADER).orElse(null) : null;
+    }
+
+    int find(String token, String username) throws IOException, InterruptedException {
+        return send(authorized(token, "/user/find/" + username).GET()).statusCode();
+    }
+
+    int list(String token) throws IOException, InterruptedException {
+        return send(authorized(token, "/user/list").GET()).statusCode();
+    }
+
+    int updateProfileImage(String token, String username) throws IOException, InterruptedException {
+        return send(authorized(token, "/user/updateProfileImage")
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(multipartBody(username)))).statusCode();
+    }
+
+    int resetPassword(String token, String email) throws IOException, InterruptedException {
+        return send(authorized(token, "/user/resetPassword/" + email).GET()).statusCode();
+    }
+
+    private HttpResponse<Void> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return httpClient.send(request.timeout(REQUEST_TIMEOUT).build(), HttpResponse.BodyHandlers.discarding());
+    }
+
+    private HttpRequest.Builder authorized(String token, String path) {
+        return HttpRequest.newBuilder(uri(path)).header("Authorization", TOKEN_PREFIX + token);
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private byte[] multipartBody(String username) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(profileImage.length + 512);
+        write(body, "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"username\"\r\n\r\n" + username + "\r\n");
+        write(body, "--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"profileImage\"; filename=\"avatar.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n");
+        body.writeBytes(profileImage);
+        write(body, "\r\n--" + BOUNDARY + "--\r\n");
+        return body.toByteArray();
+    }
+
+    private static void write(ByteArrayOutputStream body, String text) {
+        body.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] createProfileImage() {
+        BufferedImage image = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, (x * 255 / image.getWidth()) << 16 | (y * 255 / image.getHeight()) << 8 | 128);
+            }
+        }
+        try {
+            ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+            ImageIO.write(image, "jpg", jpeg);
+            return jpeg.toByteArray();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
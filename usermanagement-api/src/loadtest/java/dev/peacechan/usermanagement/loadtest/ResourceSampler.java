@@ -0,0 +1,98 @@
+package dev.peacechan.usermanagement.loadtest;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples resident set size, heap use and live platform threads of this JVM while the load
+ * runs. Platform thread stacks live outside the heap, so the memory each in-flight request
+ * costs is approximated from RSS grown over the idle baseline, divided by the number of
+ * clients; heap growth is reported beside it. RSS is read from {@code /proc/self/status} and is
+ * -1 where that does not exist. Clients and server share the JVM, so the figures are for
+ * comparing execution modes under the same load rather than absolute.
+ */
+class ResourceSampler {
+    private static final long SAMPLE_INTERVAL_MILLIS = 100;
+    private static final Path PROCESS_STATUS = Paths.get("/proc/self/status");
+    private static final String RSS_FIELD = "VmRSS:";
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final long baselineHeapBytes;
+    private final long baselineRssBytes;
+    private volatile long peakHeapBytes;
+    private volatile long peakRssBytes;
+    private volatile int peakThreads;
+    private volatile boolean sampling = true;
+    private final Thread sampler = new Thread(this::sample, "loadtest-resource-sampler");
+
+    ResourceSampler() {
+        System.gc();
+        this.baselineHeapBytes = memory.getHeapMemoryUsage().getUsed();
+        this.baselineRssBytes = residentSetBytes();
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    void reset() {
+        peakHeapBytes = 0;
+        peakRssBytes = 0;
+        peakThreads = 0;
+    }
+
+    /** Stops sampling and prints and returns the figures for the given number of clients. */
+    Map<String, Object> stop(int clients) throws InterruptedException {
+        sampling = false;
+        sampler.join();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("clients", clients);
+        result.put("peakLiveThreads", peakThreads);
+        result.put("baselineHeapBytes", baselineHeapBytes);
+        result.put("peakHeapBytes", peakHeapBytes);
+        result.put("heapBytesPerInFlightRequest", Math.max(0, peakHeapBytes - baselineHeapBytes) / clients);
+        result.put("baselineRssBytes", baselineRssBytes);
+        result.put("peakRssBytes", peakRssBytes);
+        result.put("rssBytesPerInFlightRequest", baselineRssBytes < 0 ? -1 : Math.max(0, peakRssBytes - baselineRssBytes) / clients);
+        System.out.printf("clients %d, peak live threads %d, peak RSS %d MB over a %d MB baseline, %d KB per in-flight request"
+                        + " (heap %d MB over %d MB, %d KB per request)%n",
+                clients, peakThreads, peakRssBytes >> 20, baselineRssBytes >> 20,
+                (Long) result.get("rssBytesPerInFlightRequest") >> 10, peakHeapBytes >> 20, baselineHeapBytes >> 20,
+                (Long) result.get("heapBytesPerInFlightRequest") >> 10);
+        return result;
+    }
+
+    private void sample() {
+        while (sampling) {
+            peakHeapBytes = Math.max(peakHeapBytes, memory.getHeapMemoryUsage().getUsed());
+            peakRssBytes = Math.max(peakRssBytes, residentSetBytes());
+            peakThreads = Math.max(peakThreads, threads.getThreadCount());
+            try {
+                TimeUnit.MILLISECONDS.sleep(SAMPLE_INTERVAL_MILLIS);
+            } catch (InterruptedException exception) {
+                return;
+            }
+        }
+    }
+
+    // The line reads like "VmRSS:    123456 kB".
+    private static long residentSetBytes() {
+        try {
+            for (String line : Files.readAllLines(PROCESS_STATUS)) {
+                if (line.startsWith(RSS_FIELD)) {
+                    return Long.parseLong(line.substring(RSS_FIELD.length()).replace("kB", "").trim()) << 10;
+                }
+            }
+        } catch (IOException | RuntimeException exception) {
+            // Not Linux, or the format changed.
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,12 @@
+package dev.peacechan.usermanagement.loadtest;
+
+/**
+ * Requests the load test replays. Each worker picks one at random, weighted by the mix.
+ */
+public enum Scenario {
+    LOGIN,
+    FIND,
+    LIST,
+    UPDATE_PROFILE_IMAGE,
+    RESET_PASSWORD
+}
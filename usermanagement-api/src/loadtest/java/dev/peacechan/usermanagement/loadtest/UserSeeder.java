@@ -0,0 +1,54 @@
+package dev.peacechan.usermanagement.loadtest;
+
+import dev.peacechan.usermanagement.enumeration.Role;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserts users straight through JDBC, all sharing one password hash so the load test can
+ * log in as any of them. Ids start well above the Hibernate sequence, so users created by
+ * the application during the run cannot collide with them. The first user is a super admin.
+ */
+class UserSeeder {
+    static final long FIRST_ID = 1_000_000_000L;
+    private static final int BATCH_SIZE = 1000;
+    private static final String INSERT_USER = "insert into user (id, user_id, first_name, last_name, username, password, "
+            + "email, join_date, role, is_active, is_not_locked) values (?, ?, ?, ?, ?, ?, ?, ?, ?, true, true)";
+    private static final String INSERT_AUTHORITY = "insert into user_authorities (user_id, authorities) values (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    UserSeeder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    static String username(int index) {
+        return "loadtest" + index;
+    }
+
+    static String email(int index) {
+        return username(index) + "@example.com";
+    }
+
+    void seed(int count, String passwordHash) {
+        Timestamp joinDate = new Timestamp(System.currentTimeMillis());
+        for (int start = 0; start < count; start += BATCH_SIZE) {
+            List<Object[]> users = new ArrayList<>();
+            List<Object[]> authorities = new ArrayList<>();
+            for (int index = start; index < Math.min(start + BATCH_SIZE, count); index++) {
+                Role role = index == 0 ? Role.ROLE_SUPER_ADMIN : Role.ROLE_USER;
+                long id = FIRST_ID + index;
+                users.add(new Object[]{id, String.valueOf(id), "Load", "Test" + index, username(index), passwordHash,
+                        email(index), joinDate, role.name()});
+                for (String authority : role.getAuthorities()) {
+                    authorities.add(new Object[]{id, authority});
+                }
+            }
+            jdbcTemplate.batchUpdate(INSERT_USER, users);
+            jdbcTemplate.batchUpdate(INSERT_AUTHORITY, authorities);
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package dev.peacechan.usermanagement;
 
+import dev.peacechan.usermanagement.utility.BoundedPasswordEncoder;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
@@ -16,6 +20,7 @@ import java.util.Collections;
 import static org.apache.commons.lang3.SystemUtils.USER_HOME;
 
 @SpringBootApplication
+@EnableScheduling
 public class UsermanagementApplication {
 
 	public static void main(String[] args) {
@@ -26,22 +31,40 @@ public class UsermanagementApplication {
 	@Bean
 	public CorsFilter corsFilter(){
 		UrlBasedCorsConfigurationSource urlBasedCorsConfigurationSource = new UrlBasedCorsConfigurationSource();
+		urlBasedCorsConfigurationSource.registerCorsConfiguration("/**", corsConfiguration());
+		return new CorsFilter(urlBasedCorsConfigurationSource);
+	}
+
+	/** Shared by the servlet filter and the reactive API. */
+	public static CorsConfiguration corsConfiguration(){
 		CorsConfiguration corsConfiguration = new CorsConfiguration();
 		corsConfiguration.setAllowCredentials(true);
 		corsConfiguration.setAllowedOrigins(Collections.singletonList("http://localhost:4200"));
 		corsConfiguration.setAllowedHeaders(Arrays.asList("Origin", "Access-Control-Allow-Origin", "Content-Type",
-				"Accept", "Jwt-Token", "Authorization", "Origin, Accept", "X-Requested-With",
+				"Accept", "Jwt-Token", "Refresh-Token", "Authorization", "Origin, Accept", "X-Requested-With",
 				"Access-Control-Request-Method", "Access-Control-Request-Headers"));
-		corsConfiguration.setExposedHeaders(Arrays.asList("Origin", "Content-Type", "Accept", "Jwt-Token", "Authorization",
+		corsConfiguration.setExposedHeaders(Arrays.asList("Origin", "Content-Type", "Accept", "Jwt-Token", "Refresh-Token", "Authorization",
 				"Access-Control-Allow-Origin", "Access-Control-Allow-Origin", "Access-Control-Allow-Credentials"));
 		corsConfiguration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-		urlBasedCorsConfigurationSource.registerCorsConfiguration("/**", corsConfiguration);
-		return new CorsFilter(urlBasedCorsConfigurationSource);
+		return corsConfiguration;
+	}
+
+	@Bean
+	public BoundedPasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+										   @Value("${password-encoder.threads}") int threads,
+										   @Value("${password-encoder.queue-capacity}") int queueCapacity,
+										   @Value("${password-encoder.bulk-threads}") int bulkThreads){
+		// 0 threads sizes the pool to the cores available to the JVM, and the bulk lane to half of them.
+		int cores = Runtime.getRuntime().availableProcessors();
+		int poolSize = threads > 0 ? threads : cores;
+		int bulkPoolSize = bulkThreads > 0 ? bulkThreads : Math.max(1, cores / 2);
+		return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), poolSize, queueCapacity, bulkPoolSize, meterRegistry);
 	}
 
 	@Bean
-	public PasswordEncoder passwordEncoder(){
-		return new BCryptPasswordEncoder();
+	public TimedAspect timedAspect(MeterRegistry meterRegistry){
+		// Records the @Timed service methods; Micrometer does not register this aspect itself.
+		return new TimedAspect(meterRegistry);
 	}
 
 }
\ No newline at end of file
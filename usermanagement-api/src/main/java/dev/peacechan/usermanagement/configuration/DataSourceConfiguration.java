@@ -0,0 +1,77 @@
+package dev.peacechan.usermanagement.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import dev.peacechan.usermanagement.enumeration.DataSourceRoute;
+import dev.peacechan.usermanagement.utility.ReadWriteRoutingDataSource;
+import dev.peacechan.usermanagement.utility.ReadYourWritesListener;
+import dev.peacechan.usermanagement.utility.ReadYourWritesWindow;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Splits reads from writes when {@code datasource.replica.url} is set. The primary pool is built
+ * from {@code spring.datasource.*} as before, and the replica pool is read-only. Read-only
+ * transactions use the replica, everything else the primary. Entity writes keep the writing user's
+ * reads on the primary for a while. Without a replica URL, Boot's single data source is used unchanged.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.url")
+public class DataSourceConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(@Value("${datasource.replica.url}") String url,
+                                              @Value("${datasource.replica.username}") String username,
+                                              @Value("${datasource.replica.password}") String password,
+                                              @Value("${datasource.replica.maximum-pool-size}") int maximumPoolSize) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setReadOnly(true);
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReadYourWritesWindow readYourWritesWindow) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(DataSourceRoute.PRIMARY, primaryDataSource);
+        targets.put(DataSourceRoute.REPLICA, replicaDataSource);
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(readYourWritesWindow);
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public ReadYourWritesListener readYourWritesListener(EntityManagerFactory entityManagerFactory, ReadYourWritesWindow readYourWritesWindow) {
+        ReadYourWritesListener listener = new ReadYourWritesListener(readYourWritesWindow);
+        listener.register(entityManagerFactory);
+        return listener;
+    }
+}
@@ -0,0 +1,48 @@
+package dev.peacechan.usermanagement.configuration;
+
+import dev.peacechan.usermanagement.utility.ExecutionThreads;
+import dev.peacechan.usermanagement.utility.PinningGuard;
+import dev.peacechan.usermanagement.utility.PinningGuardDataSource;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Wires {@code execution.mode=virtual}: Tomcat hands every request to a new virtual thread, and
+ * the data source is wrapped so blocking driver calls go through the {@link PinningGuard}. Nothing
+ * here is registered in the default platform mode.
+ */
+@Configuration
+@ConditionalOnProperty(name = "execution.mode", havingValue = "virtual")
+public class ExecutionConfiguration {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer(ExecutionThreads executionThreads) {
+        return protocolHandler -> {
+            if (executionThreads.isVirtual()) {
+                protocolHandler.setExecutor(executionThreads.newThreadPerTaskExecutor("http-"));
+            }
+        };
+    }
+
+    @Bean
+    public static BeanPostProcessor pinningGuardDataSourcePostProcessor(ObjectProvider<ExecutionThreads> executionThreads,
+                                                                        ObjectProvider<PinningGuard> pinningGuard) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof PinningGuardDataSource)
+                        && executionThreads.getObject().isVirtual()) {
+                    return new PinningGuardDataSource((DataSource) bean, pinningGuard.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
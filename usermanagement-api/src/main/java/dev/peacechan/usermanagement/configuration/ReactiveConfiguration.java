@@ -0,0 +1,91 @@
+package dev.peacechan.usermanagement.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.peacechan.usermanagement.UsermanagementApplication;
+import dev.peacechan.usermanagement.filter.JwtHandlerFilterFunction;
+import dev.peacechan.usermanagement.repository.ReactiveUserRepository;
+import dev.peacechan.usermanagement.resource.ReactiveUserHandler;
+import dev.peacechan.usermanagement.service.ProfileImageService;
+import dev.peacechan.usermanagement.utility.JwtTokenProvider;
+import dev.peacechan.usermanagement.utility.TokenRevocationList;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.cors.reactive.CorsWebFilter;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import static dev.peacechan.usermanagement.constant.FileConstant.USER_IMAGE_PATH;
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+
+/**
+ * Runs the read-only reactive API on its own Reactor Netty server at {@code reactive.port}, next
+ * to the servlet application, with an R2DBC pool on the same schema. Writes stay on
+ * {@link dev.peacechan.usermanagement.resource.UserResource}. Boot's R2DBC auto-configuration
+ * is excluded, since its transaction manager would compete with the JPA one.
+ */
+@Configuration
+@ConditionalOnProperty(name = "reactive.enabled", havingValue = "true")
+public class ReactiveConfiguration {
+
+    // The pool is owned by the repository rather than exposed as a ConnectionFactory bean,
+    // because a ConnectionFactory bean makes Boot back off from creating the JDBC DataSource.
+    @Bean(destroyMethod = "dispose")
+    public ReactiveUserRepository reactiveUserRepository(@Value("${reactive.r2dbc.url}") String url,
+                                                         @Value("${reactive.r2dbc.username}") String username,
+                                                         @Value("${reactive.r2dbc.password}") String password,
+                                                         @Value("${reactive.r2dbc.pool.maximum-size}") int maximumSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        return new ReactiveUserRepository(new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .initialSize(1)
+                .maxSize(maximumSize)
+                .build()));
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> reactiveUserRoutes(ReactiveUserRepository reactiveUserRepository,
+                                                             ProfileImageService profileImageService,
+                                                             JwtTokenProvider jwtTokenProvider,
+                                                             TokenRevocationList tokenRevocationList) {
+        ReactiveUserHandler handler = new ReactiveUserHandler(reactiveUserRepository, profileImageService);
+        RouterFunction<ServerResponse> authenticated = RouterFunctions.route(GET("/user/find/{username}"), handler::getUser)
+                .andRoute(GET("/user/list"), handler::getAllUsers)
+                .andRoute(GET("/user/list/stream"), handler::streamUsers)
+                .filter(new JwtHandlerFilterFunction(jwtTokenProvider, tokenRevocationList));
+        return RouterFunctions.route(GET(USER_IMAGE_PATH + "{username}/{fileName}"), handler::getProfileImage)
+                .and(authenticated);
+    }
+
+    @Bean(destroyMethod = "disposeNow")
+    public DisposableServer reactiveServer(RouterFunction<ServerResponse> reactiveUserRoutes, ObjectMapper objectMapper,
+                                           @Value("${reactive.port}") int port) {
+        UrlBasedCorsConfigurationSource corsConfigurationSource = new UrlBasedCorsConfigurationSource();
+        corsConfigurationSource.registerCorsConfiguration("/**", UsermanagementApplication.corsConfiguration());
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .webFilter(new CorsWebFilter(corsConfigurationSource))
+                .build();
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(reactiveUserRoutes, strategies);
+        return HttpServer.create().port(port).handle(new ReactorHttpHandlerAdapter(httpHandler)).bindNow();
+    }
+}
@@ -6,8 +6,10 @@ import dev.peacechan.usermanagement.filter.JwtAccessDeniedHandler;
 import dev.peacechan.usermanagement.filter.JwtAuthenticationEntryPoint;
 import dev.peacechan.usermanagement.filter.JwtAuthorizationFilter;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
@@ -23,12 +25,14 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @EnableWebSecurity
 @EnableGlobalMethodSecurity(prePostEnabled = true)
 public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
+    private static final String MANAGEMENT_SERVER_NAMESPACE = "management";
 
     private UserDetailsService userDetailsService;
     private PasswordEncoder passwordEncoder;
     private JwtAccessDeniedHandler jwtAccessDeniedHandler;
     private JwtAuthorizationFilter jwtAuthorizationFilter;
     private JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
+    private volatile int managementPort = -1;
 
     public SecurityConfiguration(@Qualifier("userDetailsService") UserDetailsService userDetailsService, PasswordEncoder passwordEncoder, JwtAccessDeniedHandler jwtAccessDeniedHandler, JwtAuthorizationFilter jwtAuthorizationFilter, JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint) {
         this.userDetailsService = userDetailsService;
@@ -38,6 +42,14 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
         this.jwtAuthenticationEntryPoint = jwtAuthenticationEntryPoint;
     }
 
+    /** Records the port of the management server, when actuator endpoints are served on their own port. */
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        if (MANAGEMENT_SERVER_NAMESPACE.equals(event.getApplicationContext().getServerNamespace())) {
+            this.managementPort = event.getWebServer().getPort();
+        }
+    }
+
     @Override
     protected void configure(AuthenticationManagerBuilder auth) throws Exception {
         auth.userDetailsService(this.userDetailsService).passwordEncoder(this.passwordEncoder);
@@ -49,7 +61,10 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
                 .and()
                 .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 .and()
-                .authorizeRequests().antMatchers(SecurityConstant.PUBLIC_URLS).permitAll().anyRequest().authenticated()
+                .authorizeRequests().antMatchers(SecurityConstant.PUBLIC_URLS).permitAll()
+                // Actuator endpoints live on the management port, which only listens on management.server.address.
+                .requestMatchers(request -> request.getLocalPort() == this.managementPort).permitAll()
+                .anyRequest().authenticated()
                 .and()
                 .exceptionHandling().accessDeniedHandler(this.jwtAccessDeniedHandler).authenticationEntryPoint(this.jwtAuthenticationEntryPoint)
                 .and()
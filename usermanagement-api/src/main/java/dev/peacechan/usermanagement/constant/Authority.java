@@ -6,4 +6,6 @@ public class Authority {
     public static final String[] MANAGER_AUTHORITIES= {"user:read", "user:update"};
     public static final String[] ADMIN_AUTHORITIES= {"user:read", "user:update", "user:create"};
     public static final String[] SUPER_ADMIN_AUTHORITIES= {"user:read", "user:update", "user:create", "user:delete"};
-}
\ No newline at end of file
+    // Index is the bit position in the token permission mask; only ever append.
+    public static final String[] PERMISSION_BITS = {"user:read", "user:update", "user:create", "user:delete"};
+}
@@ -14,4 +14,10 @@ public class EmailConstant {
     public static final int DEFAULT_PORT = 465;
     public static final String SMTP_STARTTLS_ENABLE = "mail.smtp.starttls.enable";
     public static final String SMTP_STARTTLS_REQUIRED = "mail.smtp.starttls.required";
+    public static final String SMTP_CONNECTION_TIMEOUT = "connectiontimeout";
+    public static final String SMTP_TIMEOUT = "timeout";
+    public static final String SMTP_WRITE_TIMEOUT = "writetimeout";
+    public static final int SMTP_TIMEOUT_MILLIS = 10_000;
+    public static final String EMAIL_CONTENT_TYPE = "text/html; charset=utf-8";
+    public static final int MAXIMUM_ERROR_LENGTH = 1000;
 }
@@ -11,4 +11,15 @@ public class FileConstant {
     public static final String FORWARD_SLASH = "/";
     public static final String NOT_AN_IMAGE_FILE = " is not an image file. Please upload an image file";
     public static final String TEMP_PROFILE_IMAGE_BASE_URL = "https://robohash.org/";
+    public static final String AVATAR_FOLDER = System.getProperty("user.home") + "/usermanagement/avatar/";
+    public static final int TEMPORARY_AVATAR_SIZE = 300;
+    public static final int TEMPORARY_AVATAR_MAXIMUM_BYTES = 1024 * 1024;
+    public static final long TEMPORARY_AVATAR_MAX_AGE_DAYS = 1;
+    public static final String IMAGE_VERSION_PARAMETER = "v";
+    public static final long IMAGE_HASH_CACHE_SIZE = 10_000;
+    public static final long VERSIONED_IMAGE_MAX_AGE_DAYS = 365;
+    public static final int[] PROFILE_IMAGE_VARIANT_SIZES = {48, 128, 512};
+    public static final String PROFILE_IMAGE_VARIANT_SEPARATOR = "-";
+    public static final String IMAGE_SIZE_PARAMETER = "size";
+    public static final float PROFILE_IMAGE_VARIANT_QUALITY = 0.85f;
 }
\ No newline at end of file
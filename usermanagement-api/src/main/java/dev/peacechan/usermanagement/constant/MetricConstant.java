@@ -0,0 +1,14 @@
+package dev.peacechan.usermanagement.constant;
+
+public class MetricConstant {
+    public static final String SERVICE_METHOD_TIMER = "service.method";
+    public static final String JWT_VERIFY_TIMER = "jwt.token.verify";
+    public static final String SMTP_SEND_TIMER = "mail.smtp.send";
+    public static final String PROFILE_IMAGE_WRITE_TIMER = "profile.image.write";
+    public static final String LOGIN_ATTEMPT_LOCKOUTS = "login.attempt.lockouts";
+    public static final String LOGIN_ATTEMPT_NEAR_CACHE_SIZE = "login.attempt.near-cache.size";
+    public static final String REQUEST_SQL_STATEMENTS = "http.server.requests.sql.statements";
+    public static final String REQUEST_SQL_ROWS = "http.server.requests.sql.rows";
+    public static final String REQUEST_SQL_TIME = "http.server.requests.sql.time";
+    public static final String SQL_STATEMENTS_HEADER = "X-Sql-Statements";
+}
@@ -1,15 +1,24 @@
 package dev.peacechan.usermanagement.constant;
 
 public class SecurityConstant {
-    public static final long EXPIRATION_TIME=5*(60*60*24*1000);   // 5 days expressed in milliseconds
+    public static final long VERIFIED_TOKEN_CACHE_EXPIRATION_MINUTES = 30;
     public static final String TOKEN_PREFIX = "Bearer ";
+    public static final long TOKEN_TIME_PRECISION_MILLIS = 1000;
     public static final String JWT_TOKEN_HEADER = "Jwt-Token";
+    public static final String REFRESH_TOKEN_HEADER = "Refresh-Token";
+    public static final int REFRESH_TOKEN_BYTES = 32;
+    public static final String INVALID_REFRESH_TOKEN = "Your session has expired. Please log in again";
+    public static final String LOGGED_OUT = "You have been logged out";
     public static final String TOKEN_CANNOT_BE_VERIFIED = "Token cannot be verified";
     public static final String PEACE_CHAN_DEV = "Peace Chan, DEV";
     public static final String PEACE_CHAN_ADMINISTRATION = "User Management Portal";
     public static final String AUTHORITIES = "authorities";
+    public static final String PERMISSIONS = "perm";
     public static final String FORBIDDEN_MESSAGE = "You need to log in to access this page";
     public static final String ACCESS_DENIED_MESSAGE = "You do not have permission to access this page";
+    public static final String TOO_MANY_LOGIN_ATTEMPTS = "Too many failed login attempts from this address. Please try again later";
+    public static final String PASSWORD_HASHING_UNAVAILABLE = "The server is busy processing sign-ins. Please try again shortly";
+    public static final String PASSWORD_HASHING_RETRY_AFTER_SECONDS = "1";
     public static final String OPTIONS_HTTP_METHOD = "OPTIONS";
-    public static final String[] PUBLIC_URLS = {  "/user/login", "/user/register", "/user/image/**"  };
+    public static final String[] PUBLIC_URLS = {  "/user/login", "/user/register", "/user/token/refresh", "/user/logout", "/user/image/**"  };
 }
@@ -4,6 +4,31 @@ public class UserImplConstant {
     public static final String USER_NOT_FOUND_BY_USERNAME = "User not found by username: ";
     public static final String USERNAME_ALREADY_EXIST = "Username already exist";
     public static final String EMAIL_ALREADY_EXIST = "Email already exist";
+    public static final String USERNAME_UNIQUE_CONSTRAINT = "uk_user_username";
+    public static final String EMAIL_UNIQUE_CONSTRAINT = "uk_user_email";
     public static final String PROFILE_TEMP = "/user/image/profile/temp";
     public static final String USER_NOT_FOUND_BY_EMAIL = "User not found by email: ";
+    public static final String INVALID_CURSOR = "Invalid page cursor";
+    public static final String INVALID_SORT_KEY = "Invalid sort key: ";
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAXIMUM_PAGE_SIZE = 500;
+    public static final int DEFAULT_SEARCH_LIMIT = 20;
+    public static final int MAXIMUM_SEARCH_LIMIT = 100;
+    public static final String USER_STREAM_FETCH_SIZE = "500";
+    public static final int USER_STREAM_FLUSH_INTERVAL = 500;
+    public static final int AUTHORITIES_BATCH_SIZE = 100;
+    public static final String TEXT_CSV_VALUE = "text/csv";
+    public static final String UNSUPPORTED_IMPORT_FORMAT = "Unsupported import format: ";
+    public static final String IMPORT_NOT_FOUND = "Import not found: ";
+    public static final String IMPORT_FORMAT_MISMATCH = "Import was started with a different format: ";
+    public static final String MISSING_IMPORT_COLUMNS = "The CSV header must contain the columns username and email";
+    public static final String INVALID_IMPORT_ROW = "Invalid row: ";
+    public static final String USERNAME_AND_EMAIL_REQUIRED = "Username and email are required";
+    public static final String INVALID_ROLE = "Invalid role: ";
+    public static final String DUPLICATE_USERNAME_IN_IMPORT = "Username appears more than once in the import";
+    public static final String DUPLICATE_EMAIL_IN_IMPORT = "Email appears more than once in the import";
+    public static final int MAXIMUM_IMPORT_ERROR_LENGTH = 1000;
+    public static final String UNSUPPORTED_EXPORT_FORMAT = "Unsupported export format: ";
+    public static final String USER_EXPORT_FILE_NAME = "users";
+    public static final int USER_EXPORT_BUFFER_SIZE = 64 * 1024;
 }
\ No newline at end of file
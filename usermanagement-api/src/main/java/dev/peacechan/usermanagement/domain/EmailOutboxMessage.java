@@ -0,0 +1,31 @@
+package dev.peacechan.usermanagement.domain;
+
+import dev.peacechan.usermanagement.enumeration.EmailStatus;
+import lombok.Data;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Date;
+
+@Data
+@Entity
+@Table(indexes = @Index(columnList = "status, nextAttemptAt"))
+public class EmailOutboxMessage implements Serializable {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(nullable = false, updatable = false)
+    private Long id;
+    private String recipient;
+    private String subject;
+    @Column(length = 4000)
+    private String body;
+    @Enumerated(EnumType.STRING)
+    private EmailStatus status;
+    private int attempts;
+    private Date nextAttemptAt;
+    private Date createdAt;
+    private String claimToken;
+    private Date claimedAt;
+    @Column(length = 1000)
+    private String lastError;
+}
@@ -0,0 +1,15 @@
+package dev.peacechan.usermanagement.domain;
+
+import lombok.Getter;
+
+/** A newly issued refresh token value and the user it belongs to. The value is never stored. */
+@Getter
+public class IssuedRefreshToken {
+    private final String username;
+    private final String value;
+
+    public IssuedRefreshToken(String username, String value) {
+        this.username = username;
+        this.value = value;
+    }
+}
@@ -0,0 +1,36 @@
+package dev.peacechan.usermanagement.domain;
+
+import dev.peacechan.usermanagement.enumeration.LoginAttemptScope;
+import lombok.Data;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * Failed logins for one key in one fixed window (bucket), shared between nodes by the JDBC
+ * login attempt store. Rows are incremented in place and removed by bucket once they no longer
+ * overlap the sliding window.
+ */
+@Data
+@Entity
+@IdClass(LoginAttempt.Key.class)
+@Table(indexes = @Index(name = "login_attempt_bucket", columnList = "bucket"))
+public class LoginAttempt implements Serializable {
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private LoginAttemptScope scope;
+    @Id
+    @Column(nullable = false)
+    private String attemptKey;
+    @Id
+    private long bucket;
+    private int attempts;
+
+    @Data
+    public static class Key implements Serializable {
+        private LoginAttemptScope scope;
+        private String attemptKey;
+        private long bucket;
+    }
+}
@@ -0,0 +1,19 @@
+package dev.peacechan.usermanagement.domain;
+
+import dev.peacechan.usermanagement.utility.PermissionRegistry;
+import lombok.Getter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+/**
+ * Authentication built from a verified JWT. It keeps the permission mask next to the shared
+ * authority list, so permission checks are bit tests.
+ */
+@Getter
+public class PermissionAuthenticationToken extends UsernamePasswordAuthenticationToken {
+    private final long permissions;
+
+    public PermissionAuthenticationToken(String username, long permissions) {
+        super(username, null, PermissionRegistry.authoritiesOf(permissions));
+        this.permissions = permissions;
+    }
+}
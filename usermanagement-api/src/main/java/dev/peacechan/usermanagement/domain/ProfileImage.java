@@ -0,0 +1,22 @@
+package dev.peacechan.usermanagement.domain;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+@Getter
+public class ProfileImage {
+    private final Path path;
+    private final long size;
+    private final long lastModified;
+    private final String contentHash;
+    private final byte[] content; // only set for images held in the in-memory cache
+
+    public ProfileImage(Path path, long size, long lastModified, String contentHash, byte[] content) {
+        this.path = path;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.contentHash = contentHash;
+        this.content = content;
+    }
+}
@@ -0,0 +1,32 @@
+package dev.peacechan.usermanagement.domain;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * A refresh token, stored by the SHA-256 of its value. Each use replaces it with a new token in
+ * the same family; a used token is kept until it expires so that presenting it again can be
+ * recognised as theft and the whole family revoked.
+ */
+@Data
+@Entity
+@Table(indexes = {@Index(columnList = "tokenHash", unique = true), @Index(columnList = "familyId"),
+        @Index(columnList = "username"), @Index(columnList = "expiresAt")})
+public class RefreshToken implements Serializable {
+    @Id
+    // An identity column keeps issuing a token to one insert, without a sequence round trip per login.
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(nullable = false, updatable = false)
+    private Long id;
+    @Column(length = 64, nullable = false)
+    private String tokenHash;
+    @Column(length = 36, nullable = false)
+    private String familyId;
+    private String username;
+    private Date createdAt;
+    private Date expiresAt;
+    private Date usedAt;
+}
@@ -0,0 +1,14 @@
+package dev.peacechan.usermanagement.domain;
+
+import lombok.Getter;
+
+@Getter
+public class ResolvedProfileImage {
+    private final ProfileImage image;
+    private final boolean versioned; // the URL names this exact content, so it may be cached for long
+
+    public ResolvedProfileImage(ProfileImage image, boolean versioned) {
+        this.image = image;
+        this.versioned = versioned;
+    }
+}
@@ -0,0 +1,27 @@
+package dev.peacechan.usermanagement.domain;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * A persisted revocation: either one access token ID or a "not before" time for every token of
+ * a user. Rows are kept until the tokens they cover have expired.
+ */
+@Data
+@Entity
+@Table(indexes = {@Index(columnList = "createdAt"), @Index(columnList = "expiresAt")})
+public class TokenRevocation implements Serializable {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(nullable = false, updatable = false)
+    private Long id;
+    @Column(length = 64)
+    private String tokenId;
+    private String username;
+    private Date notBefore;
+    private Date expiresAt;
+    private Date createdAt;
+}
@@ -6,9 +6,20 @@ import java.io.Serializable;
 import java.util.Date;
 import java.util.List;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+
+import static dev.peacechan.usermanagement.constant.UserImplConstant.AUTHORITIES_BATCH_SIZE;
+import static dev.peacechan.usermanagement.constant.UserImplConstant.EMAIL_UNIQUE_CONSTRAINT;
+import static dev.peacechan.usermanagement.constant.UserImplConstant.USERNAME_UNIQUE_CONSTRAINT;
 
 @Data
 @Entity
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = USERNAME_UNIQUE_CONSTRAINT, columnNames = "username"),
+        @UniqueConstraint(name = EMAIL_UNIQUE_CONSTRAINT, columnNames = "email")
+})
 public class User implements Serializable {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -28,6 +39,9 @@ public class User implements Serializable {
     private Date joinDate;
     private String role; // ROLE_USER{ read, edit }, ROLE_ADMIN {delete}
     @ElementCollection(targetClass = String.class)
+    @BatchSize(size = AUTHORITIES_BATCH_SIZE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<String> authorities;
     private boolean isActive;
     private boolean isNotLocked;
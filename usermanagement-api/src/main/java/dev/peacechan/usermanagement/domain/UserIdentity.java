@@ -0,0 +1,14 @@
+package dev.peacechan.usermanagement.domain;
+
+/**
+ * Projection of the columns that identify a user, for uniqueness checks that do not need the
+ * whole entity.
+ */
+public interface UserIdentity {
+
+    Long getId();
+
+    String getUsername();
+
+    String getEmail();
+}
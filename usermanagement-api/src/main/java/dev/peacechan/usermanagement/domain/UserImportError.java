@@ -0,0 +1,23 @@
+package dev.peacechan.usermanagement.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+@Data
+@Entity
+@Table(indexes = @Index(columnList = "importJobId, rowNumber"))
+public class UserImportError implements Serializable {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(nullable = false, updatable = false)
+    @JsonIgnore
+    private Long id;
+    @JsonIgnore
+    private Long importJobId;
+    private long rowNumber;
+    @Column(length = 1000)
+    private String message;
+}
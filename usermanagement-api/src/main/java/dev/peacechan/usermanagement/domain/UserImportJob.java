@@ -0,0 +1,27 @@
+package dev.peacechan.usermanagement.domain;
+
+import dev.peacechan.usermanagement.enumeration.ImportStatus;
+import lombok.Data;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Date;
+
+@Data
+@Entity
+public class UserImportJob implements Serializable {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(nullable = false, updatable = false)
+    private Long id;
+    private String format;
+    @Enumerated(EnumType.STRING)
+    private ImportStatus status;
+    private long processedRows;
+    private long importedRows;
+    private long failedRows;
+    private Date createdAt;
+    private Date updatedAt;
+    @Column(length = 1000)
+    private String lastError;
+}
@@ -0,0 +1,13 @@
+package dev.peacechan.usermanagement.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class UserImportResult {
+    private UserImportJob job;
+    private List<UserImportError> errors;
+}
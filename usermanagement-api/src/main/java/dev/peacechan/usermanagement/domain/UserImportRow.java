@@ -0,0 +1,23 @@
+package dev.peacechan.usermanagement.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+/**
+ * One record of an import file. Rows that could not be parsed carry the reason in
+ * {@code error} and are reported instead of imported.
+ */
+@Data
+public class UserImportRow {
+    @JsonIgnore
+    private long rowNumber;
+    @JsonIgnore
+    private String error;
+    private String firstName;
+    private String lastName;
+    private String username;
+    private String email;
+    private String role;
+    private Boolean active;
+    private Boolean notLocked;
+}
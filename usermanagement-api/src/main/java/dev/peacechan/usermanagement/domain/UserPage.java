@@ -0,0 +1,18 @@
+package dev.peacechan.usermanagement.domain;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class UserPage {
+    private List<User> users;
+    private int size;
+    private String nextCursor; // null on the last page
+
+    public UserPage(List<User> users, int size, String nextCursor) {
+        this.users = users;
+        this.size = size;
+        this.nextCursor = nextCursor;
+    }
+}
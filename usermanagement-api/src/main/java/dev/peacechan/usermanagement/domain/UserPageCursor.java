@@ -0,0 +1,70 @@
+package dev.peacechan.usermanagement.domain;
+
+import dev.peacechan.usermanagement.enumeration.UserSortKey;
+import dev.peacechan.usermanagement.exception.domain.InvalidPageRequestException;
+import lombok.Getter;
+
+import java.util.Base64;
+
+import static dev.peacechan.usermanagement.constant.UserImplConstant.INVALID_CURSOR;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Opaque keyset position: the sort key and direction of the listing plus the sort value and
+ * id of the last row that was returned. Encoded as URL-safe Base64 so clients pass it back as is.
+ * A null sort value is encoded with its own marker, so it never reads back as the string "null".
+ */
+@Getter
+public class UserPageCursor {
+    private static final String SEPARATOR = "|";
+    private static final String NULL_VALUE = "N";
+    private static final String PRESENT_VALUE = "V";
+
+    private final UserSortKey sortKey;
+    private final boolean ascending;
+    private final Long lastId;
+    private final String lastValue;
+
+    public UserPageCursor(UserSortKey sortKey, boolean ascending, Long lastId, String lastValue) {
+        this.sortKey = sortKey;
+        this.ascending = ascending;
+        this.lastId = lastId;
+        this.lastValue = lastValue;
+    }
+
+    public static UserPageCursor after(UserSortKey sortKey, boolean ascending, User user) {
+        String lastValue = switch (sortKey) {
+            case ID -> String.valueOf(user.getId());
+            case USERNAME -> user.getUsername();
+            case EMAIL -> user.getEmail();
+        };
+        return new UserPageCursor(sortKey, ascending, user.getId(), lastValue);
+    }
+
+    public String encode() {
+        String raw = sortKey.name() + SEPARATOR + (ascending ? "A" : "D") + SEPARATOR + lastId + SEPARATOR
+                + (lastValue == null ? NULL_VALUE : PRESENT_VALUE + lastValue);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(UTF_8));
+    }
+
+    public static UserPageCursor decode(String cursor) throws InvalidPageRequestException {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, 4);
+            if (parts.length != 4 || !(parts[1].equals("A") || parts[1].equals("D"))) {
+                throw new InvalidPageRequestException(INVALID_CURSOR);
+            }
+            String lastValue;
+            if (parts[3].equals(NULL_VALUE)) {
+                lastValue = null;
+            } else if (parts[3].startsWith(PRESENT_VALUE)) {
+                lastValue = parts[3].substring(PRESENT_VALUE.length());
+            } else {
+                throw new InvalidPageRequestException(INVALID_CURSOR);
+            }
+            return new UserPageCursor(UserSortKey.valueOf(parts[0]), parts[1].equals("A"), Long.valueOf(parts[2]), lastValue);
+        } catch (IllegalArgumentException exception) {
+            throw new InvalidPageRequestException(INVALID_CURSOR);
+        }
+    }
+}
@@ -1,12 +1,11 @@
 package dev.peacechan.usermanagement.domain;
 
 
+import dev.peacechan.usermanagement.utility.PermissionRegistry;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
-import java.util.stream.Collectors;
 
 import lombok.Data;
 
@@ -20,9 +19,11 @@ public class UserPrincipal implements UserDetails {
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return this.user.getAuthorities().stream()
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
+        return PermissionRegistry.authoritiesOf(getPermissions());
+    }
+
+    public long getPermissions() {
+        return PermissionRegistry.maskOf(this.user.getAuthorities());
     }
 
     @Override
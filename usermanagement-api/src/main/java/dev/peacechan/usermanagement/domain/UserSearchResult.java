@@ -0,0 +1,21 @@
+package dev.peacechan.usermanagement.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * The user fields held by the search index. Property names match {@link User}, so clients can
+ * treat a result as a partial user.
+ */
+@Data
+@AllArgsConstructor
+public class UserSearchResult {
+    private String userId;
+    private String firstName;
+    private String lastName;
+    private String username;
+    private String email;
+    private String role;
+    private boolean active;
+    private boolean notLocked;
+}
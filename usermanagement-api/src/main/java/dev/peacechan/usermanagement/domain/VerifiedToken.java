@@ -0,0 +1,38 @@
+package dev.peacechan.usermanagement.domain;
+
+import dev.peacechan.usermanagement.utility.PermissionRegistry;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Date;
+import java.util.List;
+
+@Getter
+public class VerifiedToken {
+    private final String subject;
+    private final String tokenId;
+    private final Date issuedAt;
+    private final Date expiresAt;
+    private final long permissions;
+
+    public VerifiedToken(String subject, String tokenId, Date issuedAt, Date expiresAt, long permissions) {
+        this.subject = subject;
+        this.tokenId = tokenId;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+        this.permissions = permissions;
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return PermissionRegistry.authoritiesOf(this.permissions);
+    }
+
+    /** Issue time in milliseconds, or 0 for tokens issued without one. */
+    public long getIssuedAtMillis() {
+        return this.issuedAt == null ? 0 : this.issuedAt.getTime();
+    }
+
+    public boolean isExpired() {
+        return this.expiresAt.getTime() <= System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,7 @@
+package dev.peacechan.usermanagement.enumeration;
+
+public enum EmailStatus {
+    PENDING,
+    SENDING,
+    FAILED
+}
@@ -0,0 +1,6 @@
+package dev.peacechan.usermanagement.enumeration;
+
+public enum ExecutionMode {
+    PLATFORM,
+    VIRTUAL
+}
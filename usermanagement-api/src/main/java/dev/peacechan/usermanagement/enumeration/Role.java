@@ -1,5 +1,7 @@
 package dev.peacechan.usermanagement.enumeration;
 
+import dev.peacechan.usermanagement.utility.PermissionRegistry;
+
 import java.util.List;
 
 import static dev.peacechan.usermanagement.constant.Authority.*;
@@ -12,12 +14,18 @@ public enum Role {
     ROLE_SUPER_ADMIN(SUPER_ADMIN_AUTHORITIES);
 
     private List<String>  authorities;
+    private long permissions;
 
     Role(String... authorities) {
         this.authorities = List.of(authorities);
+        this.permissions = PermissionRegistry.maskOf(this.authorities);
     }
 
     public List<String> getAuthorities() {
         return authorities;
     }
+
+    public long getPermissions() {
+        return permissions;
+    }
 }
@@ -0,0 +1,25 @@
+package dev.peacechan.usermanagement.enumeration;
+
+import static dev.peacechan.usermanagement.constant.UserImplConstant.TEXT_CSV_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+
+public enum UserExportFormat {
+    CSV(TEXT_CSV_VALUE, "csv"),
+    NDJSON(APPLICATION_NDJSON_VALUE, "ndjson");
+
+    private String contentType;
+    private String extension;
+
+    UserExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -0,0 +1,17 @@
+package dev.peacechan.usermanagement.enumeration;
+
+public enum UserSortKey {
+    ID("id"),
+    USERNAME("username"),
+    EMAIL("email");
+
+    private String property;
+
+    UserSortKey(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+}
@@ -5,22 +5,25 @@ import dev.peacechan.usermanagement.domain.HttpResponse;
 import dev.peacechan.usermanagement.exception.domain.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.LockedException;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.servlet.NoHandlerFoundException;
 
 import javax.persistence.NoResultException;
 import java.io.IOException;
-import java.nio.file.AccessDeniedException;
 import java.util.Objects;
 
+import static dev.peacechan.usermanagement.constant.SecurityConstant.PASSWORD_HASHING_RETRY_AFTER_SECONDS;
 import static org.springframework.http.HttpStatus.*;
 
 @RestControllerAdvice
@@ -33,6 +36,7 @@ public class ExceptionHandling {
     private static final String ACCOUNT_DISABLED = "Your account has been disabled. If this is an error, please contact administration";
     private static final String ERROR_PROCESSING_FILE = "Error occurred while processing file";
     private static final String NOT_ENOUGH_PERMISSION = "You do not have enough permission";
+    private static final String INVALID_PARAMETER = "Invalid value for request parameter '%s'";
     public static final String ERROR_PATH = "/error";
 
     @ExceptionHandler(DisabledException.class)
@@ -60,6 +64,11 @@ public class ExceptionHandling {
         return createHttpResponse(UNAUTHORIZED, exception.getMessage());
     }
 
+    @ExceptionHandler(InvalidRefreshTokenException.class)
+    public ResponseEntity<HttpResponse> invalidRefreshTokenException(InvalidRefreshTokenException exception) {
+        return createHttpResponse(UNAUTHORIZED, exception.getMessage());
+    }
+
     @ExceptionHandler(EmailExistException.class)
     public ResponseEntity<HttpResponse> emailExistException(EmailExistException exception) {
         return createHttpResponse(BAD_REQUEST, exception.getMessage());
@@ -80,12 +89,44 @@ public class ExceptionHandling {
         return createHttpResponse(BAD_REQUEST, exception.getMessage());
     }
 
+    @ExceptionHandler(InvalidPageRequestException.class)
+    public ResponseEntity<HttpResponse> invalidPageRequestException(InvalidPageRequestException exception) {
+        return createHttpResponse(BAD_REQUEST, exception.getMessage());
+    }
+
+    @ExceptionHandler(UserImportException.class)
+    public ResponseEntity<HttpResponse> userImportException(UserImportException exception) {
+        return createHttpResponse(BAD_REQUEST, exception.getMessage());
+    }
+
+    @ExceptionHandler(UnsupportedExportFormatException.class)
+    public ResponseEntity<HttpResponse> unsupportedExportFormatException(UnsupportedExportFormatException exception) {
+        return createHttpResponse(BAD_REQUEST, exception.getMessage());
+    }
+
+    @ExceptionHandler(LoginAttemptsExceededException.class)
+    public ResponseEntity<HttpResponse> loginAttemptsExceededException(LoginAttemptsExceededException exception) {
+        return createHttpResponse(TOO_MANY_REQUESTS, exception.getMessage());
+    }
+
+    @ExceptionHandler(PasswordHashingUnavailableException.class)
+    public ResponseEntity<HttpResponse> passwordHashingUnavailableException(PasswordHashingUnavailableException exception) {
+        return ResponseEntity.status(SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, PASSWORD_HASHING_RETRY_AFTER_SECONDS)
+                .body(createHttpResponse(SERVICE_UNAVAILABLE, exception.getMessage()).getBody());
+    }
+
     @ExceptionHandler(HttpRequestMethodNotSupportedException.class)
     public ResponseEntity<HttpResponse> methodNotSupportedException(HttpRequestMethodNotSupportedException exception) {
         HttpMethod supportedMethod = Objects.requireNonNull(exception.getSupportedHttpMethods()).iterator().next();
         return createHttpResponse(METHOD_NOT_ALLOWED, String.format(METHOD_IS_NOT_ALLOWED, supportedMethod));
     }
 
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<HttpResponse> methodArgumentTypeMismatchException(MethodArgumentTypeMismatchException exception) {
+        return createHttpResponse(BAD_REQUEST, String.format(INVALID_PARAMETER, exception.getName()));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<HttpResponse> internalServerErrorException(Exception exception) {
         LOGGER.error(exception.getMessage());
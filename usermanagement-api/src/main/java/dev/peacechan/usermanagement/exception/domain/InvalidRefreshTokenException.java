@@ -0,0 +1,7 @@
+package dev.peacechan.usermanagement.exception.domain;
+
+public class InvalidRefreshTokenException extends Exception {
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package dev.peacechan.usermanagement.exception.domain;
+
+public class LoginAttemptsExceededException extends Exception {
+    public LoginAttemptsExceededException(String message) {
+        super(message);
+    }
+}
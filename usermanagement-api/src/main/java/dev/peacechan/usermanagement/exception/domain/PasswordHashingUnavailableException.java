@@ -0,0 +1,11 @@
+package dev.peacechan.usermanagement.exception.domain;
+
+/**
+ * Unchecked because it is raised from inside {@link org.springframework.security.crypto.password.PasswordEncoder}
+ * calls made by Spring Security.
+ */
+public class PasswordHashingUnavailableException extends RuntimeException {
+    public PasswordHashingUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package dev.peacechan.usermanagement.exception.domain;
+
+public class UnsupportedExportFormatException extends Exception {
+    public UnsupportedExportFormatException(String message) {
+        super(message);
+    }
+}
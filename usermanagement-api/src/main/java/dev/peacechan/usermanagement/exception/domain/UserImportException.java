@@ -0,0 +1,7 @@
+package dev.peacechan.usermanagement.exception.domain;
+
+public class UserImportException extends Exception {
+    public UserImportException(String message) {
+        super(message);
+    }
+}
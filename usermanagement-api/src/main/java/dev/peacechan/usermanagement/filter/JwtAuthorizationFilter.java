@@ -1,6 +1,8 @@
 package dev.peacechan.usermanagement.filter;
 import dev.peacechan.usermanagement.constant.SecurityConstant;
+import dev.peacechan.usermanagement.domain.VerifiedToken;
 import dev.peacechan.usermanagement.utility.JwtTokenProvider;
+import dev.peacechan.usermanagement.utility.TokenRevocationList;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -9,22 +11,22 @@ import javax.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 
 import java.io.IOException;
-import java.util.List;
 
 @Component
 public class JwtAuthorizationFilter extends OncePerRequestFilter {
 
     private JwtTokenProvider jwtTokenProvider;
+    private TokenRevocationList tokenRevocationList;
 
-    public JwtAuthorizationFilter(JwtTokenProvider jwtTokenProvider){
+    public JwtAuthorizationFilter(JwtTokenProvider jwtTokenProvider, TokenRevocationList tokenRevocationList){
         this.jwtTokenProvider = jwtTokenProvider;
+        this.tokenRevocationList = tokenRevocationList;
     }
 
     @Override
@@ -39,10 +41,13 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
             }
 
             String token = authorizationHeader.substring(SecurityConstant.TOKEN_PREFIX.length());
-            String username = this.jwtTokenProvider.getSubject(token);
-            if(jwtTokenProvider.isTokenValid(username, token) && SecurityContextHolder.getContext().getAuthentication() == null){
-                List<GrantedAuthority> authorities = jwtTokenProvider.getAuthorities(token);
-                Authentication authentication = jwtTokenProvider.getAuthentication(username, authorities, request);
+            VerifiedToken verifiedToken = this.jwtTokenProvider.verifyToken(token);
+            if(this.tokenRevocationList.isRevoked(verifiedToken)){
+                filterChain.doFilter(request, response);
+                return;
+            }
+            if(SecurityContextHolder.getContext().getAuthentication() == null){
+                Authentication authentication = jwtTokenProvider.getAuthentication(verifiedToken, request);
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }else{
                 SecurityContextHolder.clearContext();
@@ -0,0 +1,57 @@
+package dev.peacechan.usermanagement.filter;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import dev.peacechan.usermanagement.constant.SecurityConstant;
+import dev.peacechan.usermanagement.domain.HttpResponse;
+import dev.peacechan.usermanagement.domain.VerifiedToken;
+import dev.peacechan.usermanagement.utility.JwtTokenProvider;
+import dev.peacechan.usermanagement.utility.TokenRevocationList;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+
+import static org.springframework.http.HttpStatus.FORBIDDEN;
+
+/**
+ * The reactive counterpart of {@link JwtAuthorizationFilter} and {@link JwtAuthenticationEntryPoint}:
+ * requests without a valid, unrevoked token get the same 403 body. Verification is CPU-only and usually a
+ * cache hit, so it runs on the event loop.
+ */
+public class JwtHandlerFilterFunction implements HandlerFilterFunction<ServerResponse, ServerResponse> {
+    private final JwtTokenProvider jwtTokenProvider;
+    private final TokenRevocationList tokenRevocationList;
+
+    public JwtHandlerFilterFunction(JwtTokenProvider jwtTokenProvider, TokenRevocationList tokenRevocationList) {
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.tokenRevocationList = tokenRevocationList;
+    }
+
+    @Override
+    public Mono<ServerResponse> filter(ServerRequest request, HandlerFunction<ServerResponse> next) {
+        String authorizationHeader = request.headers().firstHeader(HttpHeaders.AUTHORIZATION);
+        if (authorizationHeader == null || !authorizationHeader.startsWith(SecurityConstant.TOKEN_PREFIX)) {
+            return forbidden();
+        }
+        VerifiedToken verifiedToken;
+        try {
+            verifiedToken = this.jwtTokenProvider.verifyToken(authorizationHeader.substring(SecurityConstant.TOKEN_PREFIX.length()));
+        } catch (JWTVerificationException exception) {
+            return forbidden();
+        }
+        if (this.tokenRevocationList.isRevoked(verifiedToken)) {
+            return forbidden();
+        }
+        return next.handle(request);
+    }
+
+    private static Mono<ServerResponse> forbidden() {
+        HttpResponse httpResponse = new HttpResponse(FORBIDDEN.value(), FORBIDDEN, FORBIDDEN.getReasonPhrase().toUpperCase(Locale.ROOT), SecurityConstant.FORBIDDEN_MESSAGE);
+        return ServerResponse.status(FORBIDDEN).contentType(MediaType.APPLICATION_JSON).bodyValue(httpResponse);
+    }
+}
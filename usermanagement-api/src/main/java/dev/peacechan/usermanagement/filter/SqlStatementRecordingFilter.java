@@ -0,0 +1,86 @@
+package dev.peacechan.usermanagement.filter;
+
+import dev.peacechan.usermanagement.utility.SqlStatementRecorder;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static dev.peacechan.usermanagement.constant.MetricConstant.*;
+
+/**
+ * Records the SQL each request runs and publishes it per URI pattern, so endpoints that repeat
+ * queries show up in the metrics. With {@code sql-statements.header.enabled} the counts are also
+ * sent in the {@code X-Sql-Statements} header, added just before the response commits; a streamed
+ * response therefore reports what ran before its first flush.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlStatementRecordingFilter extends OncePerRequestFilter {
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private SqlStatementRecorder sqlStatementRecorder;
+    private MeterRegistry meterRegistry;
+    private boolean exposeHeader;
+
+    public SqlStatementRecordingFilter(SqlStatementRecorder sqlStatementRecorder, MeterRegistry meterRegistry,
+                                       @Value("${sql-statements.header.enabled}") boolean exposeHeader) {
+        this.sqlStatementRecorder = sqlStatementRecorder;
+        this.meterRegistry = meterRegistry;
+        this.exposeHeader = exposeHeader;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        SqlStatementRecorder.Recording recording = this.sqlStatementRecorder.start();
+        HttpServletResponse recordingResponse = response;
+        if (this.exposeHeader) {
+            recordingResponse = new OnCommittedResponseWrapper(response) {
+                @Override
+                protected void onResponseCommitted() {
+                    setHeader(SQL_STATEMENTS_HEADER, headerValue(recording));
+                }
+            };
+        }
+        try {
+            filterChain.doFilter(request, recordingResponse);
+        } finally {
+            this.sqlStatementRecorder.stop();
+            if (this.exposeHeader && !response.isCommitted()) {
+                response.setHeader(SQL_STATEMENTS_HEADER, headerValue(recording));
+            }
+            publish(request, recording);
+        }
+    }
+
+    private void publish(HttpServletRequest request, SqlStatementRecorder.Recording recording) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? UNKNOWN_URI : pattern.toString();
+        String method = request.getMethod();
+        DistributionSummary.builder(REQUEST_SQL_STATEMENTS).description("SQL statements prepared per request")
+                .tags("uri", uri, "method", method).register(this.meterRegistry).record(recording.getStatements());
+        DistributionSummary.builder(REQUEST_SQL_ROWS).description("Entity rows loaded per request")
+                .tags("uri", uri, "method", method).register(this.meterRegistry).record(recording.getRows());
+        Timer.builder(REQUEST_SQL_TIME).description("Time spent executing SQL per request")
+                .tags("uri", uri, "method", method).register(this.meterRegistry).record(recording.getJdbcNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private static String headerValue(SqlStatementRecorder.Recording recording) {
+        return String.format(Locale.ROOT, "statements=%d; rows=%d; time-ms=%.3f",
+                recording.getStatements(), recording.getRows(), recording.getJdbcNanos() / 1_000_000.0);
+    }
+}
@@ -5,6 +5,7 @@ import dev.peacechan.usermanagement.service.LoginAttemptService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
 import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.stereotype.Component;
 
 import java.util.concurrent.ExecutionException;
@@ -25,6 +26,10 @@ public class AuthenticationFailureListener {
             String username = (String) event.getAuthentication().getPrincipal();
             loginAttemptService.addUserToLoginAttemptCache(username);
         }
+        Object details = event.getAuthentication().getDetails();
+        if(details instanceof WebAuthenticationDetails) {
+            loginAttemptService.addAddressToLoginAttemptCache(((WebAuthenticationDetails) details).getRemoteAddress());
+        }
 
     }
 }
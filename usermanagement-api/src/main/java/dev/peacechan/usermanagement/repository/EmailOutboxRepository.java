@@ -0,0 +1,39 @@
+package dev.peacechan.usermanagement.repository;
+
+import dev.peacechan.usermanagement.domain.EmailOutboxMessage;
+import dev.peacechan.usermanagement.enumeration.EmailStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+    // A lock timeout of -2 is Hibernate's SKIP LOCKED: rows another node is claiming are passed over.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("select m from EmailOutboxMessage m where m.status = :status and m.nextAttemptAt <= :now order by m.id")
+    List<EmailOutboxMessage> lockDueMessages(@Param("status") EmailStatus status, @Param("now") Date now, Pageable pageable);
+
+    @Modifying
+    @Query("update EmailOutboxMessage m set m.status = :sending, m.claimToken = :claimToken, m.claimedAt = :now " +
+            "where m.id in :ids and m.status = :pending")
+    int claim(@Param("ids") Collection<Long> ids, @Param("claimToken") String claimToken, @Param("now") Date now,
+              @Param("pending") EmailStatus pending, @Param("sending") EmailStatus sending);
+
+    @Query("select m.id from EmailOutboxMessage m where m.claimToken = :claimToken order by m.id")
+    List<Long> findClaimedIds(@Param("claimToken") String claimToken);
+
+    @Modifying
+    @Query("update EmailOutboxMessage m set m.status = :pending, m.claimToken = null, m.claimedAt = null " +
+            "where m.status = :sending and m.claimedAt < :cutoff")
+    int releaseExpiredClaims(@Param("cutoff") Date cutoff, @Param("sending") EmailStatus sending, @Param("pending") EmailStatus pending);
+}
@@ -0,0 +1,89 @@
+package dev.peacechan.usermanagement.repository;
+
+import dev.peacechan.usermanagement.domain.User;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Row;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Non-blocking reads of the {@code user} table for the reactive API. Authorities are joined in
+ * rather than fetched per user, and consecutive rows of the same user are folded together, so
+ * a listing streams in id order with one row buffered at a time.
+ */
+public class ReactiveUserRepository {
+    private static final String SELECT_USERS = "select u.id, u.user_id, u.first_name, u.last_name, u.username, u.email, "
+            + "u.profile_image_url, u.last_login_date, u.last_login_date_display, u.join_date, u.role, "
+            + "u.is_active, u.is_not_locked, a.authorities "
+            + "from user u left join user_authorities a on a.user_id = u.id";
+    private static final String FIND_BY_USERNAME = SELECT_USERS + " where u.username = :username";
+    private static final String FIND_ALL = SELECT_USERS + " order by u.id";
+
+    private final ConnectionPool connectionPool;
+    private final DatabaseClient databaseClient;
+
+    public ReactiveUserRepository(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+        this.databaseClient = DatabaseClient.create(connectionPool);
+    }
+
+    public void dispose() {
+        connectionPool.dispose();
+    }
+
+    public Mono<User> findUserByUsername(String username) {
+        return fold(databaseClient.sql(FIND_BY_USERNAME).bind("username", username)
+                .map((row, metadata) -> toUser(row)).all()).next();
+    }
+
+    public Flux<User> findAll() {
+        return fold(databaseClient.sql(FIND_ALL).map((row, metadata) -> toUser(row)).all());
+    }
+
+    private static Flux<User> fold(Flux<User> rows) {
+        return rows.bufferUntilChanged(User::getId).map(ReactiveUserRepository::merge);
+    }
+
+    private static User merge(List<User> rows) {
+        User user = rows.get(0);
+        for (int i = 1; i < rows.size(); i++) {
+            user.getAuthorities().addAll(rows.get(i).getAuthorities());
+        }
+        return user;
+    }
+
+    private static User toUser(Row row) {
+        User user = new User();
+        user.setId(row.get("id", Long.class));
+        user.setUserId(row.get("user_id", String.class));
+        user.setFirstName(row.get("first_name", String.class));
+        user.setLastName(row.get("last_name", String.class));
+        user.setUsername(row.get("username", String.class));
+        user.setEmail(row.get("email", String.class));
+        user.setProfileImageUrl(row.get("profile_image_url", String.class));
+        user.setLastLoginDate(toDate(row.get("last_login_date", LocalDateTime.class)));
+        user.setLastLoginDateDisplay(toDate(row.get("last_login_date_display", LocalDateTime.class)));
+        user.setJoinDate(toDate(row.get("join_date", LocalDateTime.class)));
+        user.setRole(row.get("role", String.class));
+        user.setActive(Boolean.TRUE.equals(row.get("is_active", Boolean.class)));
+        user.setNotLocked(Boolean.TRUE.equals(row.get("is_not_locked", Boolean.class)));
+        List<String> authorities = new ArrayList<>();
+        String authority = row.get("authorities", String.class);
+        if (authority != null) {
+            authorities.add(authority);
+        }
+        user.setAuthorities(authorities);
+        return user;
+    }
+
+    private static Date toDate(LocalDateTime dateTime) {
+        return dateTime == null ? null : Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,29 @@
+package dev.peacechan.usermanagement.repository;
+
+import dev.peacechan.usermanagement.domain.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    RefreshToken findByTokenHash(String tokenHash);
+
+    @Modifying
+    @Query("update RefreshToken t set t.usedAt = :now where t.id = :id and t.usedAt is null")
+    int markUsed(@Param("id") Long id, @Param("now") Date now);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.familyId = :familyId")
+    int deleteFamily(@Param("familyId") String familyId);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.username = :username")
+    int deleteByUsername(@Param("username") String username);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt <= :now")
+    int deleteExpired(@Param("now") Date now);
+}
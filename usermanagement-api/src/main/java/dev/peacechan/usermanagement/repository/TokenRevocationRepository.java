@@ -0,0 +1,19 @@
+package dev.peacechan.usermanagement.repository;
+
+import dev.peacechan.usermanagement.domain.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
+import java.util.List;
+
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+    @Query("select r from TokenRevocation r where (r.id > :lastId or r.createdAt >= :since) and r.expiresAt > :now order by r.id")
+    List<TokenRevocation> findChanges(@Param("lastId") long lastId, @Param("since") Date since, @Param("now") Date now);
+
+    @Modifying
+    @Query("delete from TokenRevocation r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Date now);
+}
@@ -0,0 +1,10 @@
+package dev.peacechan.usermanagement.repository;
+
+import dev.peacechan.usermanagement.domain.UserImportError;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface UserImportErrorRepository extends JpaRepository<UserImportError, Long> {
+    List<UserImportError> findByImportJobIdOrderByRowNumber(Long importJobId);
+}
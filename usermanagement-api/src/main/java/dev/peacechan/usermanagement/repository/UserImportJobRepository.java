@@ -0,0 +1,7 @@
+package dev.peacechan.usermanagement.repository;
+
+import dev.peacechan.usermanagement.domain.UserImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface UserImportJobRepository extends JpaRepository<UserImportJob, Long> {
+}
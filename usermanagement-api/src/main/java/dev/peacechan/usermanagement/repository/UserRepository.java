@@ -1,9 +1,45 @@
 package dev.peacechan.usermanagement.repository;
 
 import dev.peacechan.usermanagement.domain.User;
+import dev.peacechan.usermanagement.domain.UserIdentity;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static dev.peacechan.usermanagement.constant.UserImplConstant.USER_STREAM_FETCH_SIZE;
+import static org.hibernate.annotations.QueryHints.FETCH_SIZE;
+import static org.hibernate.annotations.QueryHints.PASS_DISTINCT_THROUGH;
+import static org.hibernate.annotations.QueryHints.READ_ONLY;
+
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
+    @EntityGraph(attributePaths = "authorities")
     User findUserByUsername(String username);
+
+    @EntityGraph(attributePaths = "authorities")
     User findUserByEmail(String email);
-}
\ No newline at end of file
+
+    @Override
+    @QueryHints(@QueryHint(name = PASS_DISTINCT_THROUGH, value = "false"))
+    @Query("select distinct u from User u left join fetch u.authorities order by u.id")
+    List<User> findAll();
+
+    @Query("select u.id as id, u.username as username, u.email as email from User u where u.username = :username or u.email = :email")
+    List<UserIdentity> findIdentitiesByUsernameOrEmail(@Param("username") String username, @Param("email") String email);
+
+    @Query("select u.username from User u where u.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @QueryHints({@QueryHint(name = FETCH_SIZE, value = USER_STREAM_FETCH_SIZE), @QueryHint(name = READ_ONLY, value = "true")})
+    @Query("select u from User u left join fetch u.authorities order by u.id")
+    Stream<User> streamAllUsers();
+}
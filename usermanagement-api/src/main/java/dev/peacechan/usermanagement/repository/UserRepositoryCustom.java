@@ -0,0 +1,15 @@
+package dev.peacechan.usermanagement.repository;
+
+import dev.peacechan.usermanagement.domain.User;
+import dev.peacechan.usermanagement.domain.UserPageCursor;
+import dev.peacechan.usermanagement.enumeration.UserSortKey;
+
+import java.util.List;
+
+public interface UserRepositoryCustom {
+    /**
+     * Keyset page ordered by {@code sortKey} then id. When {@code cursor} is null the first page
+     * is returned, otherwise the rows strictly after the cursor position.
+     */
+    List<User> findPage(UserSortKey sortKey, boolean ascending, UserPageCursor cursor, int limit);
+}
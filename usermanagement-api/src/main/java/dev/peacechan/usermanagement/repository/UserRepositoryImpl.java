@@ -0,0 +1,60 @@
+package dev.peacechan.usermanagement.repository;
+
+import dev.peacechan.usermanagement.domain.User;
+import dev.peacechan.usermanagement.domain.UserPageCursor;
+import dev.peacechan.usermanagement.enumeration.UserSortKey;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.List;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<User> findPage(UserSortKey sortKey, boolean ascending, UserPageCursor cursor, int limit) {
+        String property = "u." + sortKey.getProperty();
+        String comparison = ascending ? " > " : " < ";
+        String direction = ascending ? " asc" : " desc";
+        StringBuilder jpql = new StringBuilder("select u from User u");
+        if (cursor != null) {
+            if (sortKey == UserSortKey.ID) {
+                jpql.append(" where u.id").append(comparison).append(":lastId");
+            } else {
+                jpql.append(" where ").append(afterSortValue(property, ascending, cursor.getLastValue() == null, comparison));
+            }
+        }
+        jpql.append(" order by ");
+        if (sortKey != UserSortKey.ID) {
+            jpql.append(property).append(direction).append(", ");
+        }
+        jpql.append("u.id").append(direction);
+
+        TypedQuery<User> query = entityManager.createQuery(jpql.toString(), User.class).setMaxResults(limit);
+        if (cursor != null) {
+            query.setParameter("lastId", cursor.getLastId());
+            if (sortKey != UserSortKey.ID && cursor.getLastValue() != null) {
+                query.setParameter("lastValue", cursor.getLastValue());
+            }
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Rows after the cursor position. NULL sort values order lowest, as they do in MySQL and H2:
+     * first when ascending and last when descending, with ties among them broken by id.
+     */
+    private static String afterSortValue(String property, boolean ascending, boolean lastValueIsNull, String comparison) {
+        String tie = "u.id" + comparison + ":lastId";
+        if (lastValueIsNull) {
+            return ascending
+                    ? "(" + property + " is null and " + tie + ") or " + property + " is not null"
+                    : property + " is null and " + tie;
+        }
+        String after = property + comparison + ":lastValue or (" + property + " = :lastValue and " + tie + ")";
+        return ascending ? after : after + " or " + property + " is null";
+    }
+}
@@ -0,0 +1,102 @@
+package dev.peacechan.usermanagement.resource;
+
+import dev.peacechan.usermanagement.domain.HttpResponse;
+import dev.peacechan.usermanagement.domain.ProfileImage;
+import dev.peacechan.usermanagement.domain.ResolvedProfileImage;
+import dev.peacechan.usermanagement.domain.User;
+import dev.peacechan.usermanagement.repository.ReactiveUserRepository;
+import dev.peacechan.usermanagement.service.ProfileImageService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static dev.peacechan.usermanagement.constant.FileConstant.*;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+
+/**
+ * Read-only handlers for the reactive API. They mirror {@code GET /user/find/{username}},
+ * {@code /user/list}, {@code /user/list/stream} and {@code /user/image/{username}/{fileName}} of
+ * {@link UserResource}, with the same response bodies, but never block an event-loop thread.
+ */
+public class ReactiveUserHandler {
+    private static final String ERROR_PROCESSING_FILE = "Error occurred while processing file";
+    private static final String INVALID_IMAGE_SIZE = "The image size must be a whole number of pixels";
+
+    private final ReactiveUserRepository reactiveUserRepository;
+    private final ProfileImageService profileImageService;
+
+    public ReactiveUserHandler(ReactiveUserRepository reactiveUserRepository, ProfileImageService profileImageService) {
+        this.reactiveUserRepository = reactiveUserRepository;
+        this.profileImageService = profileImageService;
+    }
+
+    public Mono<ServerResponse> getUser(ServerRequest request) {
+        return reactiveUserRepository.findUserByUsername(request.pathVariable("username"))
+                .flatMap(user -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(user))
+                .switchIfEmpty(ServerResponse.ok().build());
+    }
+
+    /** Streams the users as a JSON array; rows are read only as fast as the client consumes them. */
+    public Mono<ServerResponse> getAllUsers(ServerRequest request) {
+        return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).body(reactiveUserRepository.findAll(), User.class);
+    }
+
+    public Mono<ServerResponse> streamUsers(ServerRequest request) {
+        return ServerResponse.ok().contentType(APPLICATION_NDJSON).body(reactiveUserRepository.findAll(), User.class);
+    }
+
+    /**
+     * Looks the image up through {@link ProfileImageService}, which answers from memory for cached
+     * versions; a miss touches the disk, so the lookup runs on the bounded elastic scheduler. The
+     * body is written from memory or with zero-copy file transfer.
+     */
+    public Mono<ServerResponse> getProfileImage(ServerRequest request) {
+        String username = request.pathVariable("username");
+        String fileName = request.pathVariable("fileName");
+        String version = request.queryParam(IMAGE_VERSION_PARAMETER).orElse(null);
+        Integer size;
+        try {
+            size = request.queryParam(IMAGE_SIZE_PARAMETER).map(Integer::valueOf).orElse(null);
+        } catch (NumberFormatException exception) {
+            return errorResponse(HttpStatus.BAD_REQUEST, INVALID_IMAGE_SIZE);
+        }
+        return Mono.fromCallable(() -> profileImageService.resolveProfileImage(username, fileName, version, size))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(resolved -> imageResponse(request, resolved))
+                .onErrorResume(IOException.class, exception -> errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, ERROR_PROCESSING_FILE));
+    }
+
+    private Mono<ServerResponse> imageResponse(ServerRequest request, ResolvedProfileImage resolved) {
+        ProfileImage image = resolved.getImage();
+        String eTag = "\"" + image.getContentHash() + "\"";
+        CacheControl cacheControl = resolved.isVersioned()
+                ? CacheControl.maxAge(VERSIONED_IMAGE_MAX_AGE_DAYS, TimeUnit.DAYS).cachePublic()
+                : CacheControl.noCache().cachePublic();
+        if (request.headers().header("If-None-Match").contains(eTag)) {
+            return ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl).build();
+        }
+        ServerResponse.BodyBuilder response = ServerResponse.ok()
+                .contentType(MediaType.IMAGE_JPEG)
+                .eTag(eTag)
+                .lastModified(Instant.ofEpochMilli(image.getLastModified()))
+                .cacheControl(cacheControl);
+        if (image.getContent() != null) {
+            return response.bodyValue(image.getContent());
+        }
+        return response.bodyValue(new FileSystemResource(image.getPath()));
+    }
+
+    private static Mono<ServerResponse> errorResponse(HttpStatus status, String message) {
+        return ServerResponse.status(status).contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new HttpResponse(status.value(), status, status.getReasonPhrase(), message));
+    }
+}
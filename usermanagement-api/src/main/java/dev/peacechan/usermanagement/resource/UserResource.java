@@ -1,10 +1,28 @@
 package dev.peacechan.usermanagement.resource;
 
+import com.auth0.jwt.exceptions.JWTVerificationException;
 import dev.peacechan.usermanagement.domain.HttpResponse;
+import dev.peacechan.usermanagement.domain.IssuedRefreshToken;
+import dev.peacechan.usermanagement.domain.ProfileImage;
+import dev.peacechan.usermanagement.domain.ResolvedProfileImage;
 import dev.peacechan.usermanagement.domain.User;
+import dev.peacechan.usermanagement.domain.UserImportResult;
+import dev.peacechan.usermanagement.domain.UserPage;
 import dev.peacechan.usermanagement.domain.UserPrincipal;
+import dev.peacechan.usermanagement.domain.UserSearchResult;
+import dev.peacechan.usermanagement.domain.VerifiedToken;
 import dev.peacechan.usermanagement.exception.ExceptionHandling;
+import dev.peacechan.usermanagement.enumeration.UserExportFormat;
 import dev.peacechan.usermanagement.exception.domain.*;
+import dev.peacechan.usermanagement.service.LoginAttemptService;
+import dev.peacechan.usermanagement.service.ProfileImageService;
+import dev.peacechan.usermanagement.service.RefreshTokenService;
+import dev.peacechan.usermanagement.service.TemporaryAvatarService;
+import dev.peacechan.usermanagement.service.TokenRevocationService;
+import dev.peacechan.usermanagement.service.UserCache;
+import dev.peacechan.usermanagement.service.UserExportService;
+import dev.peacechan.usermanagement.service.UserImportService;
+import dev.peacechan.usermanagement.service.UserSearchIndex;
 import dev.peacechan.usermanagement.service.UserService;
 import dev.peacechan.usermanagement.utility.JwtTokenProvider;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,31 +31,62 @@ import org.springframework.web.bind.annotation.RestController;
 
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.catalina.Globals;
 import org.apache.tomcat.util.http.fileupload.FileUtils;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.mail.MessagingException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
-import java.nio.file.Files;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
 
 import static dev.peacechan.usermanagement.constant.FileConstant.*;
+import static dev.peacechan.usermanagement.constant.SecurityConstant.INVALID_REFRESH_TOKEN;
 import static dev.peacechan.usermanagement.constant.SecurityConstant.JWT_TOKEN_HEADER;
+import static dev.peacechan.usermanagement.constant.SecurityConstant.LOGGED_OUT;
+import static dev.peacechan.usermanagement.constant.SecurityConstant.REFRESH_TOKEN_HEADER;
+import static dev.peacechan.usermanagement.constant.SecurityConstant.TOKEN_PREFIX;
+import static dev.peacechan.usermanagement.constant.SecurityConstant.TOO_MANY_LOGIN_ATTEMPTS;
+import static dev.peacechan.usermanagement.constant.UserImplConstant.DEFAULT_PAGE_SIZE;
+import static dev.peacechan.usermanagement.constant.UserImplConstant.DEFAULT_SEARCH_LIMIT;
+import static dev.peacechan.usermanagement.constant.UserImplConstant.MAXIMUM_SEARCH_LIMIT;
+import static dev.peacechan.usermanagement.constant.UserImplConstant.TEXT_CSV_VALUE;
+import static dev.peacechan.usermanagement.constant.UserImplConstant.UNSUPPORTED_EXPORT_FORMAT;
+import static dev.peacechan.usermanagement.constant.UserImplConstant.USER_EXPORT_BUFFER_SIZE;
+import static dev.peacechan.usermanagement.constant.UserImplConstant.USER_EXPORT_FILE_NAME;
+import static dev.peacechan.usermanagement.constant.UserImplConstant.USER_STREAM_FLUSH_INTERVAL;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 import static org.springframework.http.MediaType.IMAGE_JPEG_VALUE;
 
 @RestController
@@ -49,15 +98,35 @@ public class UserResource extends ExceptionHandling {
     private UserService userService;
     private AuthenticationManager authenticationManager;
     private JwtTokenProvider jwtTokenProvider;
+    private ObjectMapper objectMapper;
+    private ProfileImageService profileImageService;
+    private TemporaryAvatarService temporaryAvatarService;
+    private LoginAttemptService loginAttemptService;
+    private UserImportService userImportService;
+    private UserExportService userExportService;
+    private UserSearchIndex userSearchIndex;
+    private UserCache userCache;
+    private RefreshTokenService refreshTokenService;
+    private TokenRevocationService tokenRevocationService;
 
-    public UserResource(UserService userService, AuthenticationManager authenticationManager, JwtTokenProvider jwtTokenProvider) {
+    public UserResource(UserService userService, AuthenticationManager authenticationManager, JwtTokenProvider jwtTokenProvider, ObjectMapper objectMapper, ProfileImageService profileImageService, TemporaryAvatarService temporaryAvatarService, LoginAttemptService loginAttemptService, UserImportService userImportService, UserExportService userExportService, UserSearchIndex userSearchIndex, UserCache userCache, RefreshTokenService refreshTokenService, TokenRevocationService tokenRevocationService) {
         this.userService = userService;
         this.authenticationManager = authenticationManager;
         this.jwtTokenProvider = jwtTokenProvider;
+        this.objectMapper = objectMapper;
+        this.profileImageService = profileImageService;
+        this.temporaryAvatarService = temporaryAvatarService;
+        this.loginAttemptService = loginAttemptService;
+        this.userImportService = userImportService;
+        this.userExportService = userExportService;
+        this.userSearchIndex = userSearchIndex;
+        this.userCache = userCache;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     @PostMapping("/register")
-    public ResponseEntity<User> register(@RequestBody User user) throws UserNotFoundException, UsernameExistException, EmailExistException, MessagingException {
+    public ResponseEntity<User> register(@RequestBody User user) throws UserNotFoundException, UsernameExistException, EmailExistException {
         User newUser = userService.register(user.getFirstName(), user.getLastName(), user.getUsername(), user.getEmail());
         return new ResponseEntity<>(newUser, HttpStatus.OK);
     }
@@ -76,6 +145,22 @@ public class UserResource extends ExceptionHandling {
         return new ResponseEntity<>(addedUser, HttpStatus.OK);
     }
 
+    @PostMapping(path = "/import", consumes = {TEXT_CSV_VALUE, APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("@permissionChecker.has(authentication, 'user:create')")
+    public ResponseEntity<UserImportResult> importUsers(@RequestParam(value = "importId", required = false) Long importId,
+                                                        HttpServletRequest request) throws IOException, UserImportException {
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        String format = contentType.getType() + FORWARD_SLASH + contentType.getSubtype();
+        UserImportResult result = this.userImportService.importUsers(format, request.getInputStream(), importId);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    @GetMapping("/import/{importId}")
+    @PreAuthorize("@permissionChecker.has(authentication, 'user:create')")
+    public ResponseEntity<UserImportResult> getImport(@PathVariable("importId") Long importId) throws UserImportException {
+        return new ResponseEntity<>(this.userImportService.getImport(importId), HttpStatus.OK);
+    }
+
     @PostMapping("/update")
     public ResponseEntity<User> updateUser(
             @RequestParam("currentUsername") String currentUsername,
@@ -92,9 +177,13 @@ public class UserResource extends ExceptionHandling {
     }
 
     @GetMapping("/find/{username}")
-    public ResponseEntity<User> getUser(@PathVariable("username") String username){
-        User user = this.userService.findUserByUsername(username);
-        return new ResponseEntity<>(user, HttpStatus.OK);
+    public ResponseEntity<byte[]> getUser(@PathVariable("username") String username) throws IOException {
+        byte[] user = this.userCache.getJson(username, () -> this.userService.findUserByUsername(username),
+                this.objectMapper::writeValueAsBytes);
+        if (user == null) {
+            return new ResponseEntity<>(HttpStatus.OK);
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(user);
     }
 
     @GetMapping("/list")
@@ -103,14 +192,84 @@ public class UserResource extends ExceptionHandling {
         return new ResponseEntity<>(userList, HttpStatus.OK);
     }
 
+    @GetMapping("/list/page")
+    public ResponseEntity<UserPage> getUserPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(value = "sort", defaultValue = "id") String sort,
+            @RequestParam(value = "direction", defaultValue = "asc") String direction
+    ) throws InvalidPageRequestException {
+        UserPage userPage = this.userService.getUserPage(cursor, size, sort, direction);
+        return new ResponseEntity<>(userPage, HttpStatus.OK);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<UserSearchResult>> searchUsers(
+            @RequestParam(value = "q", defaultValue = "") String query,
+            @RequestParam(value = "role", required = false) String role,
+            @RequestParam(value = "active", required = false) Boolean active,
+            @RequestParam(value = "locked", required = false) Boolean locked,
+            @RequestParam(value = "limit", defaultValue = "" + DEFAULT_SEARCH_LIMIT) int limit
+    ) {
+        int boundedLimit = Math.max(1, Math.min(limit, MAXIMUM_SEARCH_LIMIT));
+        List<UserSearchResult> results = this.userSearchIndex.search(query, role, active, locked, boundedLimit);
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
+    @GetMapping(path = "/list/stream", produces = APPLICATION_NDJSON_VALUE)
+    public void streamUsers(HttpServletResponse response) throws IOException {
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        OutputStream outputStream = response.getOutputStream();
+        ObjectWriter userWriter = this.objectMapper.writerFor(User.class);
+        AtomicInteger written = new AtomicInteger();
+        try {
+            this.userService.streamUsers(user -> {
+                try {
+                    outputStream.write(userWriter.writeValueAsBytes(user));
+                    outputStream.write('\n');
+                    if (written.incrementAndGet() % USER_STREAM_FLUSH_INTERVAL == 0) {
+                        outputStream.flush();
+                    }
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            });
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+        outputStream.flush();
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("@permissionChecker.has(authentication, 'user:create')")
+    public void exportUsers(@RequestParam(value = "format", defaultValue = "csv") String format,
+                            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+                            HttpServletResponse response) throws IOException, UnsupportedExportFormatException {
+        UserExportFormat exportFormat = Arrays.stream(UserExportFormat.values())
+                .filter(value -> value.name().equalsIgnoreCase(format)).findFirst()
+                .orElseThrow(() -> new UnsupportedExportFormatException(UNSUPPORTED_EXPORT_FORMAT + format));
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(USER_EXPORT_FILE_NAME + DOT + exportFormat.getExtension()).build().toString());
+        OutputStream outputStream = response.getOutputStream();
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            outputStream = new GZIPOutputStream(outputStream, USER_EXPORT_BUFFER_SIZE);
+        }
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), USER_EXPORT_BUFFER_SIZE)) {
+            this.userExportService.exportUsers(exportFormat, writer);
+        }
+    }
+
     @GetMapping("/resetPassword/{email}")
-    public ResponseEntity<HttpResponse> resetPassword(@PathVariable("email") String email) throws EmailNotFoundException, MessagingException {
+    public ResponseEntity<HttpResponse> resetPassword(@PathVariable("email") String email) throws EmailNotFoundException {
         this.userService.resetPassword(email);
         return response(HttpStatus.OK, EMAIL_IS_SENT_TO + email);
     }
 
     @DeleteMapping("/delete/{username}")
-    @PreAuthorize("hasAnyAuthority('user:delete')")
+    @PreAuthorize("@permissionChecker.has(authentication, 'user:delete')")
     public ResponseEntity<HttpResponse> deleteUser(@PathVariable("username") String username) throws IOException {
         User user = this.userService.findUserByUsername(username);
         Path imagePath = Paths.get(USER_FOLDER + username).toAbsolutePath().normalize();
@@ -126,22 +285,45 @@ public class UserResource extends ExceptionHandling {
     }
 
     @GetMapping(path = "/image/{username}/{fileName}", produces = IMAGE_JPEG_VALUE)
-    public byte[] getProfileImage(@PathVariable("username") String username, @PathVariable("fileName") String fileName) throws IOException {
-        return Files.readAllBytes(Paths.get(USER_FOLDER + username + FORWARD_SLASH + fileName));
+    public ResponseEntity<Resource> getProfileImage(@PathVariable("username") String username, @PathVariable("fileName") String fileName,
+                                                    @RequestParam(value = IMAGE_VERSION_PARAMETER, required = false) String version,
+                                                    @RequestParam(value = IMAGE_SIZE_PARAMETER, required = false) Integer size,
+                                                    HttpServletRequest request) throws IOException {
+        ResolvedProfileImage resolved = this.profileImageService.resolveProfileImage(username, fileName, version, size);
+        ProfileImage image = resolved.getImage();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_JPEG)
+                .eTag(image.getContentHash())
+                .lastModified(image.getLastModified())
+                .cacheControl(resolved.isVersioned()
+                        ? CacheControl.maxAge(VERSIONED_IMAGE_MAX_AGE_DAYS, TimeUnit.DAYS).cachePublic()
+                        : CacheControl.noCache().cachePublic());
+        if (image.getContent() != null) {
+            return response.body(new ByteArrayResource(image.getContent()));
+        }
+        if (canSendfile(request)) {
+            request.setAttribute(Globals.SENDFILE_FILENAME_ATTR, image.getPath().toString());
+            request.setAttribute(Globals.SENDFILE_FILE_START_ATTR, 0L);
+            request.setAttribute(Globals.SENDFILE_FILE_END_ATTR, image.getSize());
+            return response.contentLength(image.getSize()).build();
+        }
+        return response.body(new FileSystemResource(image.getPath()));
     }
 
     @GetMapping(path = "/image/profile/{username}", produces = IMAGE_JPEG_VALUE)
-    public byte[] getTemporaryProfileImage(@PathVariable("username") String username) throws IOException {
-        URL url = new URL(TEMP_PROFILE_IMAGE_BASE_URL + username);
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        try(InputStream inputStream = url.openStream()){
-            int byteRead;
-            byte[] chunk = new byte[1024];
-            while((byteRead = inputStream.read(chunk)) > 0){
-                byteArrayOutputStream.write(chunk, 0, byteRead);
-            }
-        }
-        return byteArrayOutputStream.toByteArray();
+    public ResponseEntity<byte[]> getTemporaryProfileImage(@PathVariable("username") String username) throws IOException {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(TEMPORARY_AVATAR_MAX_AGE_DAYS, TimeUnit.DAYS).cachePublic())
+                .body(this.temporaryAvatarService.getAvatar(username));
+    }
+
+    // Tomcat can only hand the file to sendfile for a plain full-body 200, so conditional and
+    // range requests go through Spring's Resource handling instead.
+    private boolean canSendfile(HttpServletRequest request) {
+        return Boolean.TRUE.equals(request.getAttribute(Globals.SENDFILE_SUPPORTED_ATTR))
+                && request.getHeader(HttpHeaders.RANGE) == null
+                && request.getHeader(HttpHeaders.IF_NONE_MATCH) == null
+                && request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) == null;
     }
 
     private ResponseEntity<HttpResponse> response(HttpStatus status, String message) {
@@ -152,23 +334,57 @@ public class UserResource extends ExceptionHandling {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<User> login(@RequestBody User user){
-        authenticate(user.getUsername(), user.getPassword());
-        User loginUser = userService.findUserByUsername(user.getUsername());
-        UserPrincipal userPrincipal = new UserPrincipal(loginUser);
-        HttpHeaders jwtHeader = getJwtHeader(userPrincipal);
+    public ResponseEntity<User> login(@RequestBody User user, HttpServletRequest request) throws LoginAttemptsExceededException {
+        if (this.loginAttemptService.hasAddressExceededMaxAttempts(request.getRemoteAddr())) {
+            throw new LoginAttemptsExceededException(TOO_MANY_LOGIN_ATTEMPTS);
+        }
+        // The principal was read on the primary while authenticating; looking the user up again
+        // could read a lagging replica and sign a token with permissions that were just removed.
+        UserPrincipal userPrincipal = authenticate(user.getUsername(), user.getPassword(), request);
+        User loginUser = userPrincipal.getUser();
+        HttpHeaders jwtHeader = getJwtHeader(userPrincipal, this.refreshTokenService.issue(loginUser.getUsername()));
         return new ResponseEntity<>(loginUser, jwtHeader, HttpStatus.OK);
     }
 
-    private HttpHeaders getJwtHeader(UserPrincipal userPrincipal) {
+    @PostMapping("/token/refresh")
+    public ResponseEntity<User> refreshToken(@RequestHeader(REFRESH_TOKEN_HEADER) String refreshToken) throws InvalidRefreshTokenException {
+        IssuedRefreshToken issuedRefreshToken = this.refreshTokenService.rotate(refreshToken);
+        User user = this.userService.findUserByUsername(issuedRefreshToken.getUsername());
+        if (user == null || !user.isActive() || !user.isNotLocked()) {
+            throw new InvalidRefreshTokenException(INVALID_REFRESH_TOKEN);
+        }
+        // The access token is rebuilt from the current account, so permission changes apply here.
+        HttpHeaders jwtHeader = getJwtHeader(new UserPrincipal(user), issuedRefreshToken.getValue());
+        return new ResponseEntity<>(user, jwtHeader, HttpStatus.OK);
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<HttpResponse> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorizationHeader,
+                                               @RequestHeader(value = REFRESH_TOKEN_HEADER, required = false) String refreshToken) {
+        if (authorizationHeader != null && authorizationHeader.startsWith(TOKEN_PREFIX)) {
+            try {
+                VerifiedToken verifiedToken = this.jwtTokenProvider.verifyToken(authorizationHeader.substring(TOKEN_PREFIX.length()));
+                this.tokenRevocationService.revokeToken(verifiedToken);
+            } catch (JWTVerificationException exception) {
+                // An expired or invalid access token needs no revoking.
+            }
+        }
+        if (refreshToken != null) {
+            this.refreshTokenService.revoke(refreshToken);
+        }
+        return response(HttpStatus.OK, LOGGED_OUT);
+    }
+
+    private HttpHeaders getJwtHeader(UserPrincipal userPrincipal, String refreshToken) {
         HttpHeaders headers =  new HttpHeaders();
         headers.add(JWT_TOKEN_HEADER, this.jwtTokenProvider.generateJwtToken(userPrincipal));
+        headers.add(REFRESH_TOKEN_HEADER, refreshToken);
         return headers;
     }
 
-    private void authenticate(String username, String password) {
-        this.authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(username, password)
-        );
+    private UserPrincipal authenticate(String username, String password, HttpServletRequest request) {
+        UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(username, password);
+        authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        return (UserPrincipal) this.authenticationManager.authenticate(authenticationToken).getPrincipal();
     }
 }
\ No newline at end of file
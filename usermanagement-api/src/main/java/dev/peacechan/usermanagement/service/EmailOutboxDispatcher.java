@@ -0,0 +1,320 @@
+package dev.peacechan.usermanagement.service;
+
+import dev.peacechan.usermanagement.domain.EmailOutboxMessage;
+import dev.peacechan.usermanagement.enumeration.EmailStatus;
+import dev.peacechan.usermanagement.repository.EmailOutboxRepository;
+import dev.peacechan.usermanagement.utility.EmailBodyCipher;
+import dev.peacechan.usermanagement.utility.ExecutionThreads;
+import dev.peacechan.usermanagement.utility.PinningGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.mail.*;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static dev.peacechan.usermanagement.constant.EmailConstant.*;
+import static dev.peacechan.usermanagement.constant.MetricConstant.SMTP_SEND_TIMER;
+
+/**
+ * Drains the email outbox on a bounded pool of workers. Each worker borrows a long-lived SMTP
+ * transport, reconnecting only when the server has dropped it, and sends a chunk of messages
+ * over that connection. Due rows are claimed under a per-batch token with SKIP LOCKED so nodes
+ * sharing the table never send the same message, and a claim left behind by a node that died is
+ * released once it is older than {@code email.outbox.claim-lease-ms}. Failed messages are retried with exponential backoff; a message that
+ * gives up keeps its error but loses its body, which holds a password.
+ */
+@Service
+public class EmailOutboxDispatcher {
+    private final Logger LOGGER = LoggerFactory.getLogger(getClass());
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+    private EmailOutboxRepository emailOutboxRepository;
+    private TransactionTemplate transactionTemplate;
+    private ExecutionThreads executionThreads;
+    private PinningGuard pinningGuard;
+    private EmailBodyCipher emailBodyCipher;
+    private ExecutorService dispatcher;
+    private ExecutorService workers;
+    private Semaphore inFlightChunks;
+    private BlockingQueue<Transport> transports;
+    private Session session;
+    private Timer sentTimer;
+    private Timer failedTimer;
+
+    @Value("${email.smtp.protocol:" + SIMPLE_MAIL_TRANSFER_PROTOCOL + "}")
+    private String protocol;
+    @Value("${email.smtp.host:" + GMAIL_SMTP_SERVER + "}")
+    private String host;
+    @Value("${email.smtp.port:" + DEFAULT_PORT + "}")
+    private int port;
+    @Value("${email.smtp.username:" + USERNAME + "}")
+    private String username;
+    @Value("${email.smtp.password:" + PASSWORD + "}")
+    private String password;
+    @Value("${email.smtp.starttls:true}")
+    private boolean startTls;
+    @Value("${email.outbox.workers}")
+    private int workerCount;
+    @Value("${email.outbox.batch-size}")
+    private int batchSize;
+    @Value("${email.outbox.messages-per-connection}")
+    private int messagesPerConnection;
+    @Value("${email.outbox.max-attempts}")
+    private int maxAttempts;
+    @Value("${email.outbox.retry-backoff-ms}")
+    private long retryBackoffMillis;
+    @Value("${email.outbox.claim-lease-ms}")
+    private long claimLeaseMillis;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository, TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry, ExecutionThreads executionThreads, PinningGuard pinningGuard,
+                                 EmailBodyCipher emailBodyCipher) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.executionThreads = executionThreads;
+        this.pinningGuard = pinningGuard;
+        this.emailBodyCipher = emailBodyCipher;
+        this.sentTimer = sendTimer(meterRegistry, "sent");
+        this.failedTimer = sendTimer(meterRegistry, "failed");
+    }
+
+    private static Timer sendTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder(SMTP_SEND_TIMER).description("Time for the SMTP server to accept a message")
+                .tag("outcome", outcome).publishPercentileHistogram().register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        Properties properties = new Properties();
+        properties.put(SMTP_HOST, host);
+        properties.put(SMTP_AUTH, true);
+        properties.put(SMTP_PORT, port);
+        properties.put(SMTP_STARTTLS_ENABLE, startTls);
+        properties.put(SMTP_STARTTLS_REQUIRED, startTls);
+        properties.putAll(timeouts(protocol, SMTP_TIMEOUT_MILLIS));
+        this.session = Session.getInstance(properties);
+        this.dispatcher = Executors.newSingleThreadExecutor(executionThreads.threadFactory("email-dispatcher-"));
+        this.workers = Executors.newFixedThreadPool(workerCount, executionThreads.threadFactory("email-worker-"));
+        this.inFlightChunks = new Semaphore(workerCount * 2);
+        this.transports = new ArrayBlockingQueue<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            try {
+                transports.add(session.getTransport(protocol));
+            } catch (NoSuchProviderException exception) {
+                throw new IllegalStateException(exception);
+            }
+        }
+        releaseExpiredClaims();
+        wakeUp();
+    }
+
+    // Each transport reads its own mail.<protocol>.* keys, so smtps ignores the mail.smtp.* timeouts.
+    static Properties timeouts(String protocol, int timeoutMillis) {
+        Properties properties = new Properties();
+        String prefix = "mail." + protocol + ".";
+        properties.put(prefix + SMTP_CONNECTION_TIMEOUT, timeoutMillis);
+        properties.put(prefix + SMTP_TIMEOUT, timeoutMillis);
+        properties.put(prefix + SMTP_WRITE_TIMEOUT, timeoutMillis);
+        return properties;
+    }
+
+    public void wakeUp() {
+        if (drainRequested.compareAndSet(false, true)) {
+            try {
+                dispatcher.execute(() -> {
+                    drainRequested.set(false);
+                    drain();
+                });
+            } catch (RejectedExecutionException exception) {
+                drainRequested.set(false);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval-ms}")
+    public void poll() {
+        releaseExpiredClaims();
+        wakeUp();
+    }
+
+    // Messages claimed by a node that stopped before delivering them.
+    private void releaseExpiredClaims() {
+        Date cutoff = new Date(System.currentTimeMillis() - claimLeaseMillis);
+        Integer released = transactionTemplate.execute(status ->
+                emailOutboxRepository.releaseExpiredClaims(cutoff, EmailStatus.SENDING, EmailStatus.PENDING));
+        if (released != null && released > 0) {
+            LOGGER.warn("Released " + released + " outbox messages whose claim expired");
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        dispatcher.shutdownNow();
+        workers.shutdown();
+        workers.awaitTermination(SMTP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        transports.forEach(this::closeQuietly);
+    }
+
+    private void drain() {
+        try {
+            List<Long> messageIds;
+            do {
+                String claimToken = UUID.randomUUID().toString();
+                messageIds = claimDueMessages(claimToken);
+                for (int from = 0; from < messageIds.size(); from += messagesPerConnection) {
+                    List<Long> chunk = messageIds.subList(from, Math.min(from + messagesPerConnection, messageIds.size()));
+                    inFlightChunks.acquire();
+                    try {
+                        workers.execute(() -> {
+                            try {
+                                deliver(chunk, claimToken);
+                            } finally {
+                                inFlightChunks.release();
+                            }
+                        });
+                    } catch (RejectedExecutionException exception) {
+                        inFlightChunks.release();
+                        return;
+                    }
+                }
+            } while (messageIds.size() == batchSize);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException exception) {
+            LOGGER.error("Email outbox drain failed: " + exception.getMessage());
+        }
+    }
+
+    private List<Long> claimDueMessages(String claimToken) {
+        List<Long> messageIds = transactionTemplate.execute(status -> {
+            Date now = new Date();
+            List<Long> dueIds = emailOutboxRepository.lockDueMessages(EmailStatus.PENDING, now, PageRequest.of(0, batchSize))
+                    .stream().map(EmailOutboxMessage::getId).collect(Collectors.toList());
+            if (dueIds.isEmpty()) {
+                return dueIds;
+            }
+            int claimed = emailOutboxRepository.claim(dueIds, claimToken, now, EmailStatus.PENDING, EmailStatus.SENDING);
+            // Without SKIP LOCKED support another node can claim some of the rows first.
+            return claimed == dueIds.size() ? dueIds : emailOutboxRepository.findClaimedIds(claimToken);
+        });
+        return messageIds == null ? Collections.emptyList() : new ArrayList<>(messageIds);
+    }
+
+    private void deliver(List<Long> messageIds, String claimToken) {
+        Transport transport;
+        try {
+            transport = transports.take();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            for (EmailOutboxMessage message : emailOutboxRepository.findAllById(messageIds)) {
+                if (message.getStatus() != EmailStatus.SENDING || !claimToken.equals(message.getClaimToken())) {
+                    // The lease expired and the message was released while it waited for a transport.
+                    continue;
+                }
+                try {
+                    send(transport, createEmail(message));
+                    emailOutboxRepository.delete(message);
+                } catch (GeneralSecurityException exception) {
+                    // Encrypted with a key this node does not have; retrying cannot help.
+                    giveUp(message, message.getAttempts(), exception);
+                    emailOutboxRepository.save(message);
+                } catch (MessagingException | RuntimeException exception) {
+                    scheduleRetry(message, exception);
+                    closeQuietly(transport);
+                }
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            transports.offer(transport);
+        }
+    }
+
+    // The mail transport blocks on the socket inside synchronized methods.
+    private void send(Transport transport, Message message) throws MessagingException, InterruptedException {
+        pinningGuard.enter();
+        try {
+            if (!transport.isConnected()) {
+                transport.connect(host, port, username, password);
+            }
+            Timer.Sample sample = Timer.start();
+            try {
+                transport.sendMessage(message, message.getAllRecipients());
+                sample.stop(sentTimer);
+            } catch (MessagingException | RuntimeException exception) {
+                sample.stop(failedTimer);
+                throw exception;
+            }
+        } finally {
+            pinningGuard.exit();
+        }
+    }
+
+    private Message createEmail(EmailOutboxMessage outboxMessage) throws MessagingException, GeneralSecurityException {
+        Message message = new MimeMessage(session);
+        message.setFrom(new InternetAddress(FROM_EMAIL));
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(outboxMessage.getRecipient(), false));
+        message.setRecipients(Message.RecipientType.CC, InternetAddress.parse(CC_EMAIL, false));
+        message.setSubject(outboxMessage.getSubject());
+        message.setContent(emailBodyCipher.decrypt(outboxMessage.getBody()), EMAIL_CONTENT_TYPE);
+        message.setSentDate(new Date());
+        message.saveChanges();
+        return message;
+    }
+
+    private void scheduleRetry(EmailOutboxMessage message, Exception exception) {
+        int attempts = message.getAttempts() + 1;
+        if (attempts >= maxAttempts) {
+            giveUp(message, attempts, exception);
+        } else {
+            message.setAttempts(attempts);
+            message.setLastError(StringUtils.abbreviate(String.valueOf(exception.getMessage()), MAXIMUM_ERROR_LENGTH));
+            message.setStatus(EmailStatus.PENDING);
+            message.setClaimToken(null);
+            message.setClaimedAt(null);
+            message.setNextAttemptAt(new Date(System.currentTimeMillis() + (retryBackoffMillis << (attempts - 1))));
+        }
+        emailOutboxRepository.save(message);
+    }
+
+    private void giveUp(EmailOutboxMessage message, int attempts, Exception exception) {
+        message.setAttempts(attempts);
+        message.setLastError(StringUtils.abbreviate(String.valueOf(exception.getMessage()), MAXIMUM_ERROR_LENGTH));
+        message.setStatus(EmailStatus.FAILED);
+        message.setClaimToken(null);
+        message.setClaimedAt(null);
+        message.setBody(null);
+        LOGGER.error("Giving up on email " + message.getId() + " after " + attempts + " attempts: " + exception.getMessage());
+    }
+
+    private void closeQuietly(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException exception) {
+            LOGGER.warn("Failed to close SMTP transport: " + exception.getMessage());
+        }
+    }
+}
@@ -1,52 +1,57 @@
 package dev.peacechan.usermanagement.service;
 
-import com.sun.mail.smtp.SMTPTransport;
+import dev.peacechan.usermanagement.domain.EmailOutboxMessage;
+import dev.peacechan.usermanagement.enumeration.EmailStatus;
+import dev.peacechan.usermanagement.repository.EmailOutboxRepository;
+import dev.peacechan.usermanagement.utility.EmailBodyCipher;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import javax.mail.Message;
-import javax.mail.MessagingException;
-import javax.mail.Session;
-import javax.mail.internet.InternetAddress;
-import javax.mail.internet.MimeMessage;
 import java.util.Date;
-import java.util.Properties;
 
 import static dev.peacechan.usermanagement.constant.EmailConstant.*;
+import static dev.peacechan.usermanagement.constant.MetricConstant.SERVICE_METHOD_TIMER;
 
 
+/**
+ * Queues emails in the outbox table as part of the caller's transaction. Delivery happens on
+ * {@link EmailOutboxDispatcher} workers once the transaction has committed, so a slow SMTP
+ * server never holds a request thread or a database connection. Bodies are stored encrypted
+ * because they carry the generated password.
+ */
 @Service
 public class EmailService {
-
-    public void sendEmail(String firstName, String password, String email) throws MessagingException {
-        Message message = createEmail(firstName, password, email);
-        SMTPTransport smtpTransport = (SMTPTransport) getEmailSession().getTransport(SIMPLE_MAIL_TRANSFER_PROTOCOL);
-        smtpTransport.connect(GMAIL_SMTP_SERVER, USERNAME, PASSWORD);
-        smtpTransport.sendMessage(message, message.getAllRecipients());
-        smtpTransport.close();
+    private EmailOutboxRepository emailOutboxRepository;
+    private EmailOutboxDispatcher emailOutboxDispatcher;
+    private EmailBodyCipher emailBodyCipher;
+
+    public EmailService(EmailOutboxRepository emailOutboxRepository, EmailOutboxDispatcher emailOutboxDispatcher, EmailBodyCipher emailBodyCipher) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailOutboxDispatcher = emailOutboxDispatcher;
+        this.emailBodyCipher = emailBodyCipher;
     }
 
-    public Message createEmail(String firstName, String password, String email) throws MessagingException {
-        Message message = new MimeMessage(getEmailSession());
-        message.setFrom(new InternetAddress(FROM_EMAIL));
-        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(email, false));
-        message.setRecipients(Message.RecipientType.CC, InternetAddress.parse(CC_EMAIL, false));
+    @Timed(value = SERVICE_METHOD_TIMER, histogram = true)
+    public void sendEmail(String firstName, String password, String email) {
+        EmailOutboxMessage message = new EmailOutboxMessage();
+        message.setRecipient(email);
         message.setSubject(EMAIL_SUBJECT);
-        message.setContent(
-                "Hello " + firstName + "<br><br> Your new password is: <b>" + password + "</b><br><br> The Support Team"
-                , "text/html; charset=utf-8"
-        );
-        message.setSentDate(new Date());
-        message.saveChanges();
-        return message;
-    }
-
-    private Session getEmailSession(){
-        Properties properties = System.getProperties();
-        properties.put(SMTP_HOST, GMAIL_SMTP_SERVER);
-        properties.put(SMTP_AUTH, true);
-        properties.put(SMTP_PORT, DEFAULT_PORT);
-        properties.put(SMTP_STARTTLS_ENABLE, true);
-        properties.put(SMTP_STARTTLS_REQUIRED, true);
-        return Session.getInstance(properties);
+        message.setBody(emailBodyCipher.encrypt("Hello " + firstName + "<br><br> Your new password is: <b>" + password + "</b><br><br> The Support Team"));
+        message.setStatus(EmailStatus.PENDING);
+        message.setCreatedAt(new Date());
+        message.setNextAttemptAt(message.getCreatedAt());
+        emailOutboxRepository.save(message);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    emailOutboxDispatcher.wakeUp();
+                }
+            });
+        } else {
+            emailOutboxDispatcher.wakeUp();
+        }
     }
 }
@@ -1,51 +1,85 @@
 package dev.peacechan.usermanagement.service;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import dev.peacechan.usermanagement.enumeration.LoginAttemptScope;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.ExecutionException;
-
-import static java.util.concurrent.TimeUnit.MINUTES;
+import static dev.peacechan.usermanagement.constant.MetricConstant.LOGIN_ATTEMPT_LOCKOUTS;
+import static dev.peacechan.usermanagement.constant.MetricConstant.SERVICE_METHOD_TIMER;
+import static dev.peacechan.usermanagement.enumeration.LoginAttemptScope.ADDRESS;
+import static dev.peacechan.usermanagement.enumeration.LoginAttemptScope.USERNAME;
 
+/**
+ * Tracks failed logins per username and per client address over a sliding window. A username
+ * over its limit gets its account locked. An address over its limit is only counted in the
+ * lockout metric unless {@code login-attempt.address.enforced} is set, in which case it is
+ * refused before any authentication work is done. Counts live in the configured
+ * {@link LoginAttemptStore}.
+ */
 @Service
 public class LoginAttemptService {
-    private static final int MAXIMUM_NUMBER_OF_ATTEMPTS = 5;
-    private static final int ATTEMPT_INCREMENT = 1;
-    private LoadingCache<String, Integer> loginAttemptCache;
+    private LoginAttemptStore loginAttemptStore;
+    private int maximumAttemptsPerUsername;
+    private int maximumAttemptsPerAddress;
+    private boolean addressLimitEnforced;
+    private Counter usernameLockouts;
+    private Counter addressLockouts;
+
+    public LoginAttemptService(LoginAttemptStore loginAttemptStore, MeterRegistry meterRegistry,
+                               @Value("${login-attempt.username.maximum-attempts}") int maximumAttemptsPerUsername,
+                               @Value("${login-attempt.address.maximum-attempts}") int maximumAttemptsPerAddress,
+                               @Value("${login-attempt.address.enforced}") boolean addressLimitEnforced) {
+        this.loginAttemptStore = loginAttemptStore;
+        this.maximumAttemptsPerUsername = maximumAttemptsPerUsername;
+        this.maximumAttemptsPerAddress = maximumAttemptsPerAddress;
+        this.addressLimitEnforced = addressLimitEnforced;
+        this.usernameLockouts = lockoutCounter(meterRegistry, USERNAME);
+        this.addressLockouts = lockoutCounter(meterRegistry, ADDRESS);
+    }
 
-    public LoginAttemptService() {
-        super();
-        loginAttemptCache = CacheBuilder.newBuilder().expireAfterWrite(15, MINUTES)
-                .maximumSize(100).build(new CacheLoader<String, Integer>() {
-                    public Integer load(String key) {
-                        return 0;
-                    }
-                });
+    private static Counter lockoutCounter(MeterRegistry meterRegistry, LoginAttemptScope scope) {
+        return Counter.builder(LOGIN_ATTEMPT_LOCKOUTS).description("Failed logins that reached the limit")
+                .tag("scope", scope.name().toLowerCase()).register(meterRegistry);
     }
 
+    @Timed(value = SERVICE_METHOD_TIMER, histogram = true)
     public void evictUserFromLoginAttemptCache(String username) {
-        loginAttemptCache.invalidate(username);
+        loginAttemptStore.reset(USERNAME, username);
     }
 
+    @Timed(value = SERVICE_METHOD_TIMER, histogram = true)
     public void addUserToLoginAttemptCache(String username) {
-        int attempts = 0;
-        try {
-            attempts = ATTEMPT_INCREMENT + loginAttemptCache.get(username);
-        } catch (ExecutionException e) {
-            e.printStackTrace();
-        }
-        loginAttemptCache.put(username, attempts);
+        countLockout(loginAttemptStore.recordFailure(USERNAME, username), maximumAttemptsPerUsername, usernameLockouts);
     }
 
+    @Timed(value = SERVICE_METHOD_TIMER, histogram = true)
     public boolean hasExceededMaxAttempts(String username) {
-        try {
-            return loginAttemptCache.get(username) >= MAXIMUM_NUMBER_OF_ATTEMPTS;
-        } catch (ExecutionException e) {
-            e.printStackTrace();
+        return loginAttemptStore.getAttempts(USERNAME, username) >= maximumAttemptsPerUsername;
+    }
+
+    @Timed(value = SERVICE_METHOD_TIMER, histogram = true)
+    public void addAddressToLoginAttemptCache(String address) {
+        countLockout(loginAttemptStore.recordFailure(ADDRESS, address), maximumAttemptsPerAddress, addressLockouts);
+    }
+
+    @Timed(value = SERVICE_METHOD_TIMER, histogram = true)
+    public boolean hasAddressExceededMaxAttempts(String address) {
+        return addressLimitEnforced && loginAttemptStore.getAttempts(ADDRESS, address) >= maximumAttemptsPerAddress;
+    }
+
+    // Counts the failure that reaches the limit, not each login refused afterwards.
+    private static void countLockout(double attempts, int maximumAttempts, Counter lockouts) {
+        if (attempts >= maximumAttempts && attempts - 1 < maximumAttempts) {
+            lockouts.increment();
         }
-        return false;
     }
 
+    @Scheduled(fixedDelayString = "${login-attempt.window-ms}")
+    public void removeExpiredAttempts() {
+        loginAttemptStore.removeExpired();
+    }
 }
@@ -0,0 +1,19 @@
+package dev.peacechan.usermanagement.service;
+
+import dev.peacechan.usermanagement.enumeration.LoginAttemptScope;
+
+/**
+ * Holds the failed login counts behind {@link LoginAttemptService}. Counts are sliding-window
+ * estimates, so they decay on their own once attempts stop.
+ */
+public interface LoginAttemptStore {
+
+    /** Records a failed login and returns the updated count. */
+    double recordFailure(LoginAttemptScope scope, String key);
+
+    double getAttempts(LoginAttemptScope scope, String key);
+
+    void reset(LoginAttemptScope scope, String key);
+
+    void removeExpired();
+}
@@ -0,0 +1,145 @@
+package dev.peacechan.usermanagement.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind recorder for the login stamps (lastLoginDate / lastLoginDateDisplay) so that
+ * authentication does not wait on a row write. Stamps are coalesced per user in memory and
+ * written in JDBC batches by a scheduled flush and on shutdown; logins never write themselves.
+ * The pending set is capped: once full, stamps of users not already pending are dropped and
+ * counted. A failed flush keeps its stamps and holds off further flushes with an exponential
+ * back-off while the database is unavailable.
+ */
+@Service
+public class LoginStampRecorder {
+    private static final String UPDATE_LOGIN_STAMP = "update user set last_login_date_display = ?, last_login_date = ? where id = ?";
+
+    private final Logger LOGGER = LoggerFactory.getLogger(getClass());
+    private final Map<Long, LoginStamp> pendingStamps = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private JdbcTemplate jdbcTemplate;
+    private int maximumPending;
+    private int batchSize;
+    private long flushIntervalMillis;
+    private long maximumBackoffMillis;
+    private Timer flushTimer;
+    private Counter droppedCounter;
+    private int consecutiveFailures;
+    private long nextFlushAt;
+
+    public LoginStampRecorder(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                              @Value("${login-stamp.maximum-pending}") int maximumPending,
+                              @Value("${login-stamp.batch-size}") int batchSize,
+                              @Value("${login-stamp.flush-interval-ms}") long flushIntervalMillis,
+                              @Value("${login-stamp.maximum-backoff-ms}") long maximumBackoffMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maximumPending = maximumPending;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maximumBackoffMillis = maximumBackoffMillis;
+        this.flushTimer = Timer.builder("login.stamp.flush").description("Time to write pending login stamps").register(meterRegistry);
+        this.droppedCounter = Counter.builder("login.stamp.dropped").description("Login stamps dropped because the pending set was full")
+                .register(meterRegistry);
+        Gauge.builder("login.stamp.queue.depth", pendingStamps, Map::size).description("Users with an unwritten login stamp").register(meterRegistry);
+    }
+
+    public void record(Long userId, Date previousLoginDate, Date loginDate) {
+        pend(userId, new LoginStamp(previousLoginDate, loginDate));
+    }
+
+    @Scheduled(fixedDelayString = "${login-stamp.flush-interval-ms}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (pendingStamps.isEmpty() || System.currentTimeMillis() < nextFlushAt) {
+                return;
+            }
+            flushTimer.record(this::writePendingStamps);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushLock.lock();
+        try {
+            nextFlushAt = 0;
+        } finally {
+            flushLock.unlock();
+        }
+        flush();
+    }
+
+    // Stamps of users already pending are always coalesced; new users only fit while there is room.
+    private void pend(Long userId, LoginStamp stamp) {
+        if (pendingStamps.size() >= maximumPending && !pendingStamps.containsKey(userId)) {
+            droppedCounter.increment();
+            return;
+        }
+        pendingStamps.merge(userId, stamp, (pending, other) -> pending.loginDate.after(other.loginDate)
+                ? new LoginStamp(other.loginDate, pending.loginDate)
+                : new LoginStamp(pending.loginDate, other.loginDate));
+    }
+
+    private void writePendingStamps() {
+        List<Long> userIds = new ArrayList<>(pendingStamps.keySet());
+        for (int from = 0; from < userIds.size(); from += batchSize) {
+            List<Object[]> batch = new ArrayList<>();
+            List<Long> batchUserIds = userIds.subList(from, Math.min(from + batchSize, userIds.size()));
+            Map<Long, LoginStamp> drained = new HashMap<>();
+            for (Long userId : batchUserIds) {
+                LoginStamp stamp = pendingStamps.remove(userId);
+                if (stamp != null) {
+                    drained.put(userId, stamp);
+                    batch.add(new Object[]{toTimestamp(stamp.previousLoginDate), toTimestamp(stamp.loginDate), userId});
+                }
+            }
+            try {
+                jdbcTemplate.batchUpdate(UPDATE_LOGIN_STAMP, batch);
+            } catch (RuntimeException exception) {
+                consecutiveFailures++;
+                long backoff = Math.min(maximumBackoffMillis, flushIntervalMillis << Math.min(consecutiveFailures, 20));
+                nextFlushAt = System.currentTimeMillis() + backoff;
+                LOGGER.error("Failed to write " + batch.size() + " login stamps, retrying in " + backoff + " ms: " + exception.getMessage());
+                drained.forEach(this::pend);
+                return;
+            }
+        }
+        consecutiveFailures = 0;
+        nextFlushAt = 0;
+    }
+
+    private Timestamp toTimestamp(Date date) {
+        return date == null ? null : new Timestamp(date.getTime());
+    }
+
+    private static class LoginStamp {
+        private final Date previousLoginDate;
+        private final Date loginDate;
+
+        private LoginStamp(Date previousLoginDate, Date loginDate) {
+            this.previousLoginDate = previousLoginDate;
+            this.loginDate = loginDate;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package dev.peacechan.usermanagement.service;
+
+import com.google.common.util.concurrent.Striped;
+import dev.peacechan.usermanagement.utility.ExecutionThreads;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+import static dev.peacechan.usermanagement.constant.FileConstant.*;
+import static dev.peacechan.usermanagement.constant.MetricConstant.PROFILE_IMAGE_WRITE_TIMER;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Produces the square JPEG variants of uploaded profile images on a bounded pool. The upload
+ * is decoded once, and every variant is re-encoded from pixels only, which drops any metadata
+ * the original carried. Variants appear atomically, and until they do the original is served.
+ * A variant is only moved into place while its upload is still the latest, checked under the same
+ * per-username lock stripe a new upload takes, so a slow task for an older picture can never land
+ * after the newer upload has deleted the variants.
+ * Dimensions are read from the header before decoding: images over
+ * {@code profile-image.processor.maximum-pixels} are skipped, and large ones are subsampled while
+ * decoding so no buffer is much bigger than the largest variant needs.
+ */
+@Service
+public class ProfileImageProcessor {
+    private static final int UPLOAD_LOCK_STRIPES = 64;
+    private final Logger LOGGER = LoggerFactory.getLogger(getClass());
+    private final Path userFolder = Paths.get(USER_FOLDER).toAbsolutePath().normalize();
+    private final Map<String, Long> latestUploads = new ConcurrentHashMap<>();
+    private final AtomicLong uploadSequence = new AtomicLong();
+    private final Striped<Lock> uploadLocks = Striped.lock(UPLOAD_LOCK_STRIPES);
+    private final ThreadPoolExecutor executor;
+    private final Timer originalWriteTimer;
+    private final Timer variantWriteTimer;
+    private final long maximumPixels;
+
+    public ProfileImageProcessor(MeterRegistry meterRegistry, ExecutionThreads executionThreads,
+                                 @Value("${profile-image.processor.threads}") int threads,
+                                 @Value("${profile-image.processor.queue-capacity}") int queueCapacity,
+                                 @Value("${profile-image.processor.maximum-pixels}") long maximumPixels) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), executionThreads.threadFactory("profile-image-"));
+        this.originalWriteTimer = writeTimer(meterRegistry, "original");
+        this.variantWriteTimer = writeTimer(meterRegistry, "variant");
+        this.maximumPixels = maximumPixels;
+    }
+
+    private static Timer writeTimer(MeterRegistry meterRegistry, String kind) {
+        return Timer.builder(PROFILE_IMAGE_WRITE_TIMER).description("Time to write a profile image to disk")
+                .tag("kind", kind).publishPercentileHistogram().register(meterRegistry);
+    }
+
+    /**
+     * Returns the variant to serve for a requested display size: the smallest variant at least
+     * that large, or the largest one for anything bigger.
+     */
+    public static int variantSize(int requestedSize) {
+        for (int size : PROFILE_IMAGE_VARIANT_SIZES) {
+            if (size >= requestedSize) {
+                return size;
+            }
+        }
+        return PROFILE_IMAGE_VARIANT_SIZES[PROFILE_IMAGE_VARIANT_SIZES.length - 1];
+    }
+
+    public static String variantFileName(String username, int size) {
+        return username + PROFILE_IMAGE_VARIANT_SEPARATOR + size + DOT + JPG_EXTENSION;
+    }
+
+    /**
+     * Deletes the variants of the previous upload so they are never served for the new original.
+     * Must be called before the new original is written.
+     */
+    public void deleteVariants(String username) throws IOException {
+        Lock lock = uploadLocks.get(username);
+        lock.lock();
+        try {
+            latestUploads.put(username, uploadSequence.incrementAndGet());
+        } finally {
+            lock.unlock();
+        }
+        for (int size : PROFILE_IMAGE_VARIANT_SIZES) {
+            Files.deleteIfExists(userFolder.resolve(username).resolve(variantFileName(username, size)));
+        }
+    }
+
+    /**
+     * Writes an uploaded original through a temporary file, so a task still decoding the previous
+     * upload keeps reading the file it opened. Call {@link #deleteVariants} first.
+     */
+    public void saveOriginal(InputStream input, Path original) throws IOException {
+        Timer.Sample sample = Timer.start();
+        try {
+            Path temporaryFile = Files.createTempFile(original.getParent(), original.getFileName().toString(), ".tmp");
+            try {
+                Files.copy(input, temporaryFile, REPLACE_EXISTING);
+                Files.move(temporaryFile, original, ATOMIC_MOVE, REPLACE_EXISTING);
+            } catch (IOException exception) {
+                Files.deleteIfExists(temporaryFile);
+                throw exception;
+            }
+        } finally {
+            sample.stop(originalWriteTimer);
+        }
+    }
+
+    /**
+     * Forgets the uploads of a deleted user. Variant tasks still running for them write nothing.
+     */
+    public void forgetUploads(String username) {
+        Lock lock = uploadLocks.get(username);
+        lock.lock();
+        try {
+            latestUploads.remove(username);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void process(String username, Path original) {
+        Long upload = latestUploads.get(username);
+        if (upload == null) {
+            throw new IllegalStateException("deleteVariants must be called before processing the upload of " + username);
+        }
+        try {
+            executor.execute(() -> createVariants(username, original, upload));
+        } catch (RejectedExecutionException exception) {
+            LOGGER.warn("Image processing queue is full, serving the original image for " + username);
+        }
+    }
+
+    private void createVariants(String username, Path original, Long upload) {
+        try {
+            BufferedImage image = decode(username, original);
+            if (image == null) {
+                return;
+            }
+            BufferedImage square = cropToSquare(image);
+            for (int size : PROFILE_IMAGE_VARIANT_SIZES) {
+                if (!upload.equals(latestUploads.get(username))) {
+                    return;
+                }
+                if (!writeVariant(username, upload, resize(square, size), original.resolveSibling(variantFileName(username, size)))) {
+                    return;
+                }
+            }
+        } catch (IOException | RuntimeException exception) {
+            LOGGER.error("Failed to create image variants for " + username, exception);
+        }
+    }
+
+    private BufferedImage decode(String username, Path original) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                LOGGER.warn("Unsupported image format for " + username);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maximumPixels) {
+                    LOGGER.warn("Profile image of " + username + " is " + width + "x" + height + ", over the limit of " + maximumPixels + " pixels");
+                    return null;
+                }
+                // The halving steps in resize still get at least twice the largest variant to work from.
+                int largestVariant = PROFILE_IMAGE_VARIANT_SIZES[PROFILE_IMAGE_VARIANT_SIZES.length - 1];
+                int subsampling = Math.max(1, Math.min(width, height) / (2 * largestVariant));
+                ImageReadParam parameters = reader.getDefaultReadParam();
+                parameters.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, parameters);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage cropToSquare(BufferedImage image) {
+        int side = Math.min(image.getWidth(), image.getHeight());
+        BufferedImage square = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = square.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, side, side);
+        graphics.drawImage(image, -(image.getWidth() - side) / 2, -(image.getHeight() - side) / 2, null);
+        graphics.dispose();
+        return square;
+    }
+
+    // Halving in steps keeps bilinear filtering from skipping pixels on large downscales.
+    private BufferedImage resize(BufferedImage image, int size) {
+        BufferedImage current = image;
+        int side = image.getWidth();
+        do {
+            side = Math.max(size, side / 2);
+            BufferedImage scaled = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = scaled.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(current, 0, 0, side, side, null);
+            graphics.dispose();
+            current = scaled;
+        } while (side > size);
+        return current;
+    }
+
+    /** Returns false, writing nothing, if a newer upload replaced the image while it was encoded. */
+    private boolean writeVariant(String username, Long upload, BufferedImage image, Path target) throws IOException {
+        Timer.Sample sample = Timer.start();
+        try {
+            Path temporaryFile = encodeVariant(image, target);
+            try {
+                return moveIfLatest(username, upload, temporaryFile, target);
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+        } finally {
+            sample.stop(variantWriteTimer);
+        }
+    }
+
+    // deleteVariants records a new upload under the same lock, so the check and the move cannot interleave with it.
+    private boolean moveIfLatest(String username, Long upload, Path temporaryFile, Path target) throws IOException {
+        Lock lock = uploadLocks.get(username);
+        lock.lock();
+        try {
+            if (!upload.equals(latestUploads.get(username))) {
+                return false;
+            }
+            Files.move(temporaryFile, target, ATOMIC_MOVE, REPLACE_EXISTING);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Path encodeVariant(BufferedImage image, Path target) throws IOException {
+        Path temporaryFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(JPG_EXTENSION).next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(temporaryFile.toFile())) {
+            ImageWriteParam parameters = writer.getDefaultWriteParam();
+            parameters.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parameters.setCompressionQuality(PROFILE_IMAGE_VARIANT_QUALITY);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), parameters);
+        } catch (IOException exception) {
+            Files.deleteIfExists(temporaryFile);
+            throw exception;
+        } finally {
+            writer.dispose();
+        }
+        return temporaryFile;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
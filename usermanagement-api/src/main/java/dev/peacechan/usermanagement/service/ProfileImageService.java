@@ -0,0 +1,92 @@
+package dev.peacechan.usermanagement.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import dev.peacechan.usermanagement.domain.ProfileImage;
+import dev.peacechan.usermanagement.domain.ResolvedProfileImage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import static dev.peacechan.usermanagement.constant.FileConstant.*;
+
+/**
+ * Resolves stored profile images together with a content hash for ETags and versioned URLs.
+ * Hashes are cached per (path, size, modification time) so a file is hashed once per version,
+ * and small images are additionally kept in memory up to a total byte budget.
+ */
+@Service
+public class ProfileImageService {
+    private final Path userFolder = Paths.get(USER_FOLDER).toAbsolutePath().normalize();
+    private final Cache<String, String> contentHashes;
+    private final Cache<String, byte[]> hotImages;
+    private final long maximumEntryBytes;
+
+    public ProfileImageService(@Value("${profile-image.cache.maximum-bytes}") long maximumBytes,
+                               @Value("${profile-image.cache.maximum-entry-bytes}") long maximumEntryBytes) {
+        this.maximumEntryBytes = maximumEntryBytes;
+        this.contentHashes = CacheBuilder.newBuilder().maximumSize(IMAGE_HASH_CACHE_SIZE).build();
+        this.hotImages = CacheBuilder.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((String key, byte[] content) -> content.length)
+                .build();
+    }
+
+    public ProfileImage getProfileImage(String username, String fileName) throws IOException {
+        Path path = resolve(username, fileName);
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String versionKey = path + FORWARD_SLASH + size + FORWARD_SLASH + lastModified;
+
+        byte[] content = null;
+        if (size <= maximumEntryBytes) {
+            content = hotImages.getIfPresent(versionKey);
+            if (content == null) {
+                content = Files.readAllBytes(path);
+                hotImages.put(versionKey, content);
+            }
+        }
+        String contentHash = contentHashes.getIfPresent(versionKey);
+        if (contentHash == null) {
+            contentHash = content != null ? Hashing.murmur3_128().hashBytes(content).toString()
+                    : com.google.common.io.Files.asByteSource(path.toFile()).hash(Hashing.murmur3_128()).toString();
+            contentHashes.put(versionKey, contentHash);
+        }
+        return new ProfileImage(path, size, lastModified, contentHash, content);
+    }
+
+    /**
+     * Resolves a profile image URL for both web stacks. A {@code size} on the original selects the
+     * nearest resized variant and falls back to the original while variants are still being generated.
+     * The result is versioned only when {@code version} is the original's hash and the variant exists.
+     */
+    public ResolvedProfileImage resolveProfileImage(String username, String fileName, String version, Integer size) throws IOException {
+        ProfileImage image = getProfileImage(username, fileName);
+        boolean versioned = image.getContentHash().equals(version);
+        if (size != null && fileName.equals(username + DOT + JPG_EXTENSION)) {
+            try {
+                image = getProfileImage(username, ProfileImageProcessor.variantFileName(username, ProfileImageProcessor.variantSize(size)));
+            } catch (NoSuchFileException exception) {
+                // Variants are still being generated; the original must not be cached under this URL.
+                versioned = false;
+            }
+        }
+        return new ResolvedProfileImage(image, versioned);
+    }
+
+    private Path resolve(String username, String fileName) throws NoSuchFileException {
+        Path path = userFolder.resolve(username).resolve(fileName).normalize();
+        if (!path.startsWith(userFolder.resolve(username))) {
+            throw new NoSuchFileException(username + FORWARD_SLASH + fileName);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,95 @@
+package dev.peacechan.usermanagement.service;
+
+import com.google.common.hash.Hashing;
+import dev.peacechan.usermanagement.domain.IssuedRefreshToken;
+import dev.peacechan.usermanagement.domain.RefreshToken;
+import dev.peacechan.usermanagement.exception.domain.InvalidRefreshTokenException;
+import dev.peacechan.usermanagement.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.UUID;
+
+import static dev.peacechan.usermanagement.constant.SecurityConstant.INVALID_REFRESH_TOKEN;
+import static dev.peacechan.usermanagement.constant.SecurityConstant.REFRESH_TOKEN_BYTES;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Issues and rotates the opaque refresh tokens handed out at login. Every refresh spends the
+ * presented token and returns a new one from the same family. A spent token presented again
+ * means it was copied, so the whole family is revoked and both holders must log in again.
+ */
+@Service
+@Transactional
+public class RefreshTokenService {
+    private final Logger LOGGER = LoggerFactory.getLogger(getClass());
+    private final SecureRandom secureRandom = new SecureRandom();
+    private RefreshTokenRepository refreshTokenRepository;
+    private long refreshTokenExpirationMillis;
+    private Counter reuseCounter;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, MeterRegistry meterRegistry,
+                               @Value("${jwt.refresh-token.expiration-ms}") long refreshTokenExpirationMillis) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshTokenExpirationMillis = refreshTokenExpirationMillis;
+        this.reuseCounter = Counter.builder("refresh.token.reuse").description("Spent refresh tokens presented again")
+                .register(meterRegistry);
+    }
+
+    /** Starts a new token family for a fresh login. */
+    public String issue(String username) {
+        return save(username, UUID.randomUUID().toString());
+    }
+
+    /** Spends the presented token and returns its replacement. */
+    public IssuedRefreshToken rotate(String value) throws InvalidRefreshTokenException {
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(hash(value));
+        Date now = new Date();
+        if (refreshToken == null || !refreshToken.getExpiresAt().after(now)) {
+            throw new InvalidRefreshTokenException(INVALID_REFRESH_TOKEN);
+        }
+        if (refreshToken.getUsedAt() != null || refreshTokenRepository.markUsed(refreshToken.getId(), now) == 0) {
+            // Not rolled back: checked exceptions leave the family deletion committed.
+            LOGGER.warn("Refresh token reused for user {}; revoking its family", refreshToken.getUsername());
+            reuseCounter.increment();
+            refreshTokenRepository.deleteFamily(refreshToken.getFamilyId());
+            throw new InvalidRefreshTokenException(INVALID_REFRESH_TOKEN);
+        }
+        return new IssuedRefreshToken(refreshToken.getUsername(), save(refreshToken.getUsername(), refreshToken.getFamilyId()));
+    }
+
+    /** Revokes the family of the presented token, if it is known. */
+    public void revoke(String value) {
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(hash(value));
+        if (refreshToken != null) {
+            refreshTokenRepository.deleteFamily(refreshToken.getFamilyId());
+        }
+    }
+
+    private String save(String username, String familyId) {
+        byte[] bytes = new byte[REFRESH_TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String value = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        long now = System.currentTimeMillis();
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenHash(hash(value));
+        refreshToken.setFamilyId(familyId);
+        refreshToken.setUsername(username);
+        refreshToken.setCreatedAt(new Date(now));
+        refreshToken.setExpiresAt(new Date(now + refreshTokenExpirationMillis));
+        refreshTokenRepository.save(refreshToken);
+        return value;
+    }
+
+    private static String hash(String value) {
+        return Hashing.sha256().hashString(value, UTF_8).toString();
+    }
+}
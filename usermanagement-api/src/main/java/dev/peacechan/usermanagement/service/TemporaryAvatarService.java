@@ -0,0 +1,186 @@
+package dev.peacechan.usermanagement.service;
+
+import com.google.common.hash.Hashing;
+import dev.peacechan.usermanagement.enumeration.AvatarSource;
+import dev.peacechan.usermanagement.utility.IdenticonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.*;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static dev.peacechan.usermanagement.constant.FileConstant.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Default avatars for users without an uploaded profile image. Avatars are kept in a
+ * disk-backed LRU cache bounded by total bytes, and concurrent misses for the same username
+ * share a single load. Avatars are rendered locally as identicons unless the remote source is
+ * configured, in which case the identicon is the fallback when the remote service fails.
+ */
+@Service
+public class TemporaryAvatarService {
+    private final Logger LOGGER = LoggerFactory.getLogger(getClass());
+    private final Path avatarFolder = Paths.get(AVATAR_FOLDER).toAbsolutePath().normalize();
+    private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, Long> cachedAvatars = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+    private AvatarSource source;
+    private long maximumBytes;
+    private int remoteTimeoutMillis;
+
+    public TemporaryAvatarService(@Value("${temporary-avatar.source}") AvatarSource source,
+                                  @Value("${temporary-avatar.cache.maximum-bytes}") long maximumBytes,
+                                  @Value("${temporary-avatar.remote.timeout-ms}") int remoteTimeoutMillis) {
+        this.source = source;
+        this.maximumBytes = maximumBytes;
+        this.remoteTimeoutMillis = remoteTimeoutMillis;
+    }
+
+    @PostConstruct
+    public void loadCacheIndex() throws IOException {
+        Files.createDirectories(avatarFolder);
+        try (Stream<Path> files = Files.list(avatarFolder)) {
+            files.filter(Files::isRegularFile)
+                    .sorted(Comparator.comparing(this::lastModified))
+                    .forEach(file -> {
+                        try {
+                            addToIndex(file.getFileName().toString(), Files.size(file));
+                        } catch (IOException exception) {
+                            LOGGER.warn("Skipping cached avatar " + file + ": " + exception.getMessage());
+                        }
+                    });
+        }
+    }
+
+    public byte[] getAvatar(String username) throws IOException {
+        String fileName = Hashing.murmur3_128().hashString(username, UTF_8) + DOT + JPG_EXTENSION;
+        byte[] avatar = readCached(fileName);
+        if (avatar != null) {
+            return avatar;
+        }
+        CompletableFuture<byte[]> load = new CompletableFuture<>();
+        CompletableFuture<byte[]> existingLoad = inFlight.putIfAbsent(fileName, load);
+        if (existingLoad != null) {
+            try {
+                return existingLoad.join();
+            } catch (CompletionException exception) {
+                throw new IOException(exception.getCause());
+            }
+        }
+        try {
+            avatar = loadAvatar(username);
+            store(fileName, avatar);
+            load.complete(avatar);
+            return avatar;
+        } catch (IOException | RuntimeException exception) {
+            load.completeExceptionally(exception);
+            throw exception;
+        } finally {
+            inFlight.remove(fileName, load);
+        }
+    }
+
+    private byte[] loadAvatar(String username) throws IOException {
+        if (source == AvatarSource.REMOTE) {
+            try {
+                return fetchRemoteAvatar(username);
+            } catch (IOException exception) {
+                LOGGER.warn("Remote avatar unavailable for " + username + ", using identicon: " + exception.getMessage());
+            }
+        }
+        return IdenticonGenerator.generate(username, TEMPORARY_AVATAR_SIZE);
+    }
+
+    private byte[] fetchRemoteAvatar(String username) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(TEMP_PROFILE_IMAGE_BASE_URL + username).openConnection();
+        connection.setConnectTimeout(remoteTimeoutMillis);
+        connection.setReadTimeout(remoteTimeoutMillis);
+        try {
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                throw new IOException("HTTP " + connection.getResponseCode());
+            }
+            try (InputStream inputStream = connection.getInputStream()) {
+                byte[] avatar = inputStream.readNBytes(TEMPORARY_AVATAR_MAXIMUM_BYTES + 1);
+                if (avatar.length > TEMPORARY_AVATAR_MAXIMUM_BYTES) {
+                    throw new IOException("Avatar larger than " + TEMPORARY_AVATAR_MAXIMUM_BYTES + " bytes");
+                }
+                return avatar;
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private byte[] readCached(String fileName) throws IOException {
+        synchronized (cachedAvatars) {
+            if (cachedAvatars.get(fileName) == null) {
+                return null;
+            }
+        }
+        try {
+            return Files.readAllBytes(avatarFolder.resolve(fileName));
+        } catch (NoSuchFileException exception) {
+            synchronized (cachedAvatars) {
+                Long size = cachedAvatars.remove(fileName);
+                if (size != null) {
+                    cachedBytes -= size;
+                }
+            }
+            return null;
+        }
+    }
+
+    private void store(String fileName, byte[] avatar) throws IOException {
+        Path temporaryFile = Files.createTempFile(avatarFolder, fileName, ".tmp");
+        Files.write(temporaryFile, avatar);
+        Files.move(temporaryFile, avatarFolder.resolve(fileName), ATOMIC_MOVE, REPLACE_EXISTING);
+        addToIndex(fileName, avatar.length);
+    }
+
+    private void addToIndex(String fileName, long size) {
+        synchronized (cachedAvatars) {
+            Long previousSize = cachedAvatars.put(fileName, size);
+            cachedBytes += size - (previousSize == null ? 0 : previousSize);
+            Iterator<Map.Entry<String, Long>> eldest = cachedAvatars.entrySet().iterator();
+            while (cachedBytes > maximumBytes && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                if (entry.getKey().equals(fileName)) {
+                    continue;
+                }
+                eldest.remove();
+                cachedBytes -= entry.getValue();
+                try {
+                    Files.deleteIfExists(avatarFolder.resolve(entry.getKey()));
+                } catch (IOException exception) {
+                    LOGGER.warn("Failed to evict cached avatar " + entry.getKey() + ": " + exception.getMessage());
+                }
+            }
+        }
+    }
+
+    private long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package dev.peacechan.usermanagement.service;
+
+import dev.peacechan.usermanagement.domain.TokenRevocation;
+import dev.peacechan.usermanagement.domain.VerifiedToken;
+import dev.peacechan.usermanagement.repository.RefreshTokenRepository;
+import dev.peacechan.usermanagement.repository.TokenRevocationRepository;
+import dev.peacechan.usermanagement.utility.TokenRevocationList;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.Date;
+
+import static dev.peacechan.usermanagement.constant.SecurityConstant.TOKEN_TIME_PRECISION_MILLIS;
+
+/**
+ * Persists revocations in the {@code token_revocation} table and keeps this node's
+ * {@link TokenRevocationList} in step with it. Local revocations apply once their transaction
+ * commits, so a rolled-back change revokes nothing; those made on other nodes are picked up by
+ * an incremental poll. The poll reads rows past the last ID seen and
+ * also re-reads recent rows, since IDs from concurrent transactions can commit out of order.
+ */
+@Service
+public class TokenRevocationService {
+    private TokenRevocationRepository tokenRevocationRepository;
+    private RefreshTokenRepository refreshTokenRepository;
+    private TokenRevocationList tokenRevocationList;
+    private long accessTokenExpirationMillis;
+    private long syncLookbackMillis;
+    private volatile long lastSeenId;
+
+    public TokenRevocationService(TokenRevocationRepository tokenRevocationRepository, RefreshTokenRepository refreshTokenRepository,
+                                  TokenRevocationList tokenRevocationList, MeterRegistry meterRegistry,
+                                  @Value("${jwt.access-token.expiration-ms}") long accessTokenExpirationMillis,
+                                  @Value("${token-revocation.sync-lookback-ms}") long syncLookbackMillis) {
+        this.tokenRevocationRepository = tokenRevocationRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.tokenRevocationList = tokenRevocationList;
+        this.accessTokenExpirationMillis = accessTokenExpirationMillis;
+        this.syncLookbackMillis = syncLookbackMillis;
+        Gauge.builder("token.revocation.size", tokenRevocationList, TokenRevocationList::revokedTokenCount)
+                .description("Revocations held in memory").tag("kind", "token").register(meterRegistry);
+        Gauge.builder("token.revocation.size", tokenRevocationList, TokenRevocationList::revokedUserCount)
+                .description("Revocations held in memory").tag("kind", "user").register(meterRegistry);
+    }
+
+    /** Revokes a single access token until it expires. */
+    @Transactional
+    public void revokeToken(VerifiedToken verifiedToken) {
+        if (verifiedToken.getTokenId() == null) {
+            return;
+        }
+        TokenRevocation revocation = new TokenRevocation();
+        revocation.setTokenId(verifiedToken.getTokenId());
+        revocation.setExpiresAt(verifiedToken.getExpiresAt());
+        revocation.setCreatedAt(new Date());
+        tokenRevocationRepository.save(revocation);
+        afterCommit(() -> tokenRevocationList.revokeToken(verifiedToken.getTokenId(), verifiedToken.getExpiresAt().getTime()));
+    }
+
+    /**
+     * Revokes every access token issued to the user so far and deletes their refresh tokens, so
+     * the user has to log in again to get a token that reflects their current account. The
+     * revocation is kept for one access-token lifetime, the longest {@code JwtTokenProvider}
+     * accepts.
+     */
+    @Transactional
+    public void revokeUser(String username) {
+        long now = System.currentTimeMillis();
+        TokenRevocation revocation = new TokenRevocation();
+        revocation.setUsername(username);
+        revocation.setNotBefore(new Date(now));
+        revocation.setExpiresAt(new Date(now + accessTokenExpirationMillis + TOKEN_TIME_PRECISION_MILLIS));
+        revocation.setCreatedAt(new Date(now));
+        tokenRevocationRepository.save(revocation);
+        refreshTokenRepository.deleteByUsername(username);
+        afterCommit(() -> tokenRevocationList.revokeUser(username, now));
+    }
+
+    private void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${token-revocation.sync-interval-ms}")
+    public void sync() {
+        long now = System.currentTimeMillis();
+        long maximumId = lastSeenId;
+        for (TokenRevocation revocation : tokenRevocationRepository.findChanges(lastSeenId, new Date(now - syncLookbackMillis), new Date(now))) {
+            if (revocation.getTokenId() != null) {
+                tokenRevocationList.revokeToken(revocation.getTokenId(), revocation.getExpiresAt().getTime());
+            } else {
+                tokenRevocationList.revokeUser(revocation.getUsername(), revocation.getNotBefore().getTime());
+            }
+            maximumId = Math.max(maximumId, revocation.getId());
+        }
+        lastSeenId = maximumId;
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${token-revocation.cleanup-interval-ms}")
+    public void removeExpired() {
+        long now = System.currentTimeMillis();
+        tokenRevocationRepository.deleteExpired(new Date(now));
+        refreshTokenRepository.deleteExpired(new Date(now));
+        tokenRevocationList.removeExpired(now, now - accessTokenExpirationMillis - TOKEN_TIME_PRECISION_MILLIS);
+    }
+}
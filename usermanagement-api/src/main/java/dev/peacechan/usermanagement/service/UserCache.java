@@ -0,0 +1,241 @@
+package dev.peacechan.usermanagement.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import dev.peacechan.usermanagement.domain.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of users by username and email, plus their serialized JSON for
+ * {@code /user/find}. Entries are also held by id, which lets a writer that only knows the id
+ * find the other keys to drop. Entries are private snapshots and callers always get a copy, so a
+ * caller mutating its user cannot change what others read.
+ * <p>
+ * Writers invalidate the keys of the user they changed, once straight away and again after
+ * commit. A load that overlaps an invalidation is not stored, so a row read before a write
+ * commits cannot outlive it in the cache. Misses are not cached, so new users need no
+ * invalidation.
+ * <p>
+ * With a read replica, a load can still see the old row for a while after the write commits.
+ * {@code user-cache.replica-lag-ms} keeps loads of a just-invalidated user out of the cache for
+ * that long. Unless set, it is {@code datasource.replica.read-your-writes-ms} when a replica is
+ * configured and 0 otherwise.
+ */
+@Service
+public class UserCache {
+    private final Cache<Long, User> usersById;
+    private final Cache<String, User> usersByUsername;
+    private final Cache<String, User> usersByEmail;
+    private final Cache<String, byte[]> userJson;
+    private final Cache<Object, Boolean> recentlyInvalidated;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Timer loadTimer;
+    private final Timer jsonLoadTimer;
+
+    @Autowired
+    public UserCache(MeterRegistry meterRegistry,
+                     @Value("${user-cache.maximum-size}") long maximumSize,
+                     @Value("${user-cache.expire-after-write-ms}") long expireAfterWriteMillis,
+                     @Value("${user-cache.json.maximum-bytes}") long maximumJsonBytes,
+                     @Value("${user-cache.replica-lag-ms:-1}") long replicaLagMillis,
+                     @Value("${datasource.replica.url:}") String replicaUrl,
+                     @Value("${datasource.replica.read-your-writes-ms}") long readYourWritesMillis) {
+        this(meterRegistry, maximumSize, expireAfterWriteMillis, maximumJsonBytes,
+                replicaLagMillis >= 0 ? replicaLagMillis : StringUtils.isBlank(replicaUrl) ? 0 : readYourWritesMillis);
+    }
+
+    UserCache(MeterRegistry meterRegistry, long maximumSize, long expireAfterWriteMillis, long maximumJsonBytes, long replicaLagMillis) {
+        this.usersById = userTier(maximumSize, expireAfterWriteMillis);
+        this.usersByUsername = userTier(maximumSize, expireAfterWriteMillis);
+        this.usersByEmail = userTier(maximumSize, expireAfterWriteMillis);
+        this.userJson = CacheBuilder.newBuilder()
+                .maximumWeight(maximumJsonBytes)
+                .weigher((String username, byte[] json) -> json.length)
+                .expireAfterWrite(expireAfterWriteMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        this.recentlyInvalidated = replicaLagMillis > 0
+                ? CacheBuilder.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfterWrite(replicaLagMillis, TimeUnit.MILLISECONDS)
+                        .build()
+                : null;
+        GuavaCacheMetrics.monitor(meterRegistry, usersById, "users-by-id");
+        GuavaCacheMetrics.monitor(meterRegistry, usersByUsername, "users-by-username");
+        GuavaCacheMetrics.monitor(meterRegistry, usersByEmail, "users-by-email");
+        GuavaCacheMetrics.monitor(meterRegistry, userJson, "user-json");
+        this.loadTimer = Timer.builder("user.cache.load").description("Time to load a user missing from the cache")
+                .tag("tier", "entity").register(meterRegistry);
+        this.jsonLoadTimer = Timer.builder("user.cache.load").description("Time to load a user missing from the cache")
+                .tag("tier", "json").register(meterRegistry);
+    }
+
+    public User getByUsername(String username, Supplier<User> loader) {
+        return copy(get(usersByUsername, username, loader, User::getUsername));
+    }
+
+    public User getByEmail(String email, Supplier<User> loader) {
+        return copy(get(usersByEmail, email, loader, User::getEmail));
+    }
+
+    /**
+     * Returns the JSON of the user with this username, or null when the loader finds none. As
+     * with the entity tiers, it is only cached when the loaded username matches exactly.
+     */
+    public byte[] getJson(String username, Supplier<User> loader, JsonWriter writer) throws IOException {
+        byte[] json = userJson.getIfPresent(username);
+        if (json != null) {
+            return json;
+        }
+        long version = invalidations.get();
+        Timer.Sample sample = Timer.start();
+        User user = loader.get();
+        json = user == null ? null : writer.write(user);
+        sample.stop(jsonLoadTimer);
+        if (json != null && username.equals(user.getUsername())) {
+            synchronized (this) {
+                if (invalidations.get() == version && !recentlyInvalidated(username)) {
+                    userJson.put(username, json);
+                }
+            }
+        }
+        return json;
+    }
+
+    /** Returns a marker to pass to {@link #put} for a user about to be read outside the cache. */
+    public long version() {
+        return invalidations.get();
+    }
+
+    /** Stores a user read after {@link #version} returned the given marker, unless it was invalidated since. */
+    public void put(User user, long version) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        User snapshot = copy(user);
+        synchronized (this) {
+            if (invalidations.get() != version || recentlyInvalidated(snapshot.getId())
+                    || recentlyInvalidated(snapshot.getUsername())) {
+                return;
+            }
+            userJson.invalidate(snapshot.getUsername());
+            usersById.put(snapshot.getId(), snapshot);
+            usersByUsername.put(snapshot.getUsername(), snapshot);
+            usersByEmail.put(snapshot.getEmail(), snapshot);
+        }
+    }
+
+    /** Drops every entry for a user, given the id and the username and email it had when cached. */
+    public void invalidate(Long id, String username, String email) {
+        invalidateNow(id, username, email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateNow(id, username, email);
+                }
+            });
+        }
+    }
+
+    private synchronized void invalidateNow(Long id, String username, String email) {
+        invalidations.incrementAndGet();
+        if (recentlyInvalidated != null) {
+            if (id != null) {
+                recentlyInvalidated.put(id, Boolean.TRUE);
+            }
+            if (username != null) {
+                recentlyInvalidated.put(username, Boolean.TRUE);
+            }
+        }
+        if (id != null) {
+            User cached = usersById.getIfPresent(id);
+            usersById.invalidate(id);
+            if (cached != null) {
+                invalidateKeys(cached.getUsername(), cached.getEmail());
+            }
+        }
+        invalidateKeys(username, email);
+    }
+
+    private void invalidateKeys(String username, String email) {
+        if (username != null) {
+            usersByUsername.invalidate(username);
+            userJson.invalidate(username);
+        }
+        if (email != null) {
+            usersByEmail.invalidate(email);
+        }
+    }
+
+    private boolean recentlyInvalidated(Object key) {
+        return recentlyInvalidated != null && key != null && recentlyInvalidated.getIfPresent(key) != null;
+    }
+
+    // Only stores the user under the key it was found by when the key matches exactly, so a
+    // case-insensitive match cannot leave an entry that invalidation by the real value misses.
+    private <K> User get(Cache<K, User> tier, K key, Supplier<User> loader, Function<User, K> keyOf) {
+        User cached = tier.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long version = invalidations.get();
+        User user = loadTimer.record(loader);
+        if (user != null && Objects.equals(keyOf.apply(user), key)) {
+            put(user, version);
+        }
+        return user;
+    }
+
+    @FunctionalInterface
+    public interface JsonWriter {
+        byte[] write(User user) throws IOException;
+    }
+
+    private static <K> Cache<K, User> userTier(long maximumSize, long expireAfterWriteMillis) {
+        return CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    private static User copy(User user) {
+        if (user == null) {
+            return null;
+        }
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setUserId(user.getUserId());
+        copy.setFirstName(user.getFirstName());
+        copy.setLastName(user.getLastName());
+        copy.setUsername(user.getUsername());
+        copy.setPassword(user.getPassword());
+        copy.setEmail(user.getEmail());
+        copy.setProfileImageUrl(user.getProfileImageUrl());
+        copy.setLastLoginDate(user.getLastLoginDate());
+        copy.setLastLoginDateDisplay(user.getLastLoginDateDisplay());
+        copy.setJoinDate(user.getJoinDate());
+        copy.setRole(user.getRole());
+        copy.setAuthorities(user.getAuthorities() == null ? null : new ArrayList<>(user.getAuthorities()));
+        copy.setActive(user.isActive());
+        copy.setNotLocked(user.isNotLocked());
+        return copy;
+    }
+}
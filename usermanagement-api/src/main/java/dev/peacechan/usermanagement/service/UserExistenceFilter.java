@@ -0,0 +1,187 @@
+package dev.peacechan.usermanagement.service;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Bloom filter over every username and email, so uniqueness checks for names that are
+ * definitely free never reach the database. Keys are lower-cased to stay conservative under
+ * case-insensitive collations. Entries cannot be removed, so renamed and deleted users linger
+ * as extra false positives until the periodic rebuild. Until the first build completes every
+ * lookup is treated as a possible hit. Users are added only once their transaction commits, and
+ * keys added while a rebuild scans the table are replayed into the rebuilt filter.
+ */
+@Service
+public class UserExistenceFilter {
+    private static final String SELECT_IDENTITIES = "select username, email from user";
+    private static final String COUNT_USERS = "select count(*) from user";
+    private static final String USERNAME_PREFIX = "u:";
+    private static final String EMAIL_PREFIX = "e:";
+
+    private final Logger LOGGER = LoggerFactory.getLogger(getClass());
+    private final List<String> keysAddedDuringRebuild = new ArrayList<>();
+    private volatile BloomFilter<String> filter;
+    private boolean rebuilding;
+    private JdbcTemplate jdbcTemplate;
+    private double falsePositiveProbability;
+    private int minimumCapacity;
+    private int fetchSize;
+    private Timer rebuildTimer;
+    private Counter definiteMisses;
+    private Counter possibleHits;
+    private Counter falsePositives;
+
+    public UserExistenceFilter(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                               @Value("${user-existence-filter.false-positive-probability}") double falsePositiveProbability,
+                               @Value("${user-existence-filter.minimum-capacity}") int minimumCapacity,
+                               @Value("${user-existence-filter.fetch-size}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.minimumCapacity = minimumCapacity;
+        this.fetchSize = fetchSize;
+        this.rebuildTimer = Timer.builder("user.existence.filter.rebuild").description("Time to rebuild the filter from the user table").register(meterRegistry);
+        this.definiteMisses = lookupCounter(meterRegistry, "miss");
+        this.possibleHits = lookupCounter(meterRegistry, "possible-hit");
+        this.falsePositives = lookupCounter(meterRegistry, "false-positive");
+        Gauge.builder("user.existence.filter.false.positive.rate", this, UserExistenceFilter::observedFalsePositiveRate)
+                .description("Share of lookups for absent keys that the filter could not rule out").register(meterRegistry);
+        Gauge.builder("user.existence.filter.expected.false.positive.rate", this, UserExistenceFilter::expectedFalsePositiveRate)
+                .description("False-positive probability predicted from the filter's current fill").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${user-existence-filter.rebuild-interval-ms}", fixedDelayString = "${user-existence-filter.rebuild-interval-ms}")
+    public void rebuild() {
+        synchronized (this) {
+            if (rebuilding) {
+                return;
+            }
+            rebuilding = true;
+        }
+        try {
+            rebuildTimer.record(this::buildAndSwap);
+        } catch (RuntimeException exception) {
+            LOGGER.error("Failed to rebuild the user existence filter", exception);
+            synchronized (this) {
+                rebuilding = false;
+                keysAddedDuringRebuild.clear();
+            }
+        }
+    }
+
+    public boolean mightContainUsername(String username) {
+        return mightContain(USERNAME_PREFIX, username);
+    }
+
+    public boolean mightContainEmail(String email) {
+        return mightContain(EMAIL_PREFIX, email);
+    }
+
+    /**
+     * Adds a user after the surrounding transaction commits; a rebuild that starts before the
+     * commit cannot see the row, so the key must reach {@link #put} after it is visible.
+     */
+    public void addUser(String username, String email) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    putUser(username, email);
+                }
+            });
+        } else {
+            putUser(username, email);
+        }
+    }
+
+    /** Reports that a possible hit turned out to be absent from the database. */
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    private void buildAndSwap() {
+        Long userCount = jdbcTemplate.queryForObject(COUNT_USERS, Long.class);
+        long capacity = Math.max(minimumCapacity, 2 * (userCount == null ? 0 : userCount));
+        // Each user contributes a username and an email key.
+        BloomFilter<String> rebuilt = BloomFilter.create(Funnels.stringFunnel(UTF_8), 2 * capacity, falsePositiveProbability);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_IDENTITIES);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, resultSet -> {
+            rebuilt.put(USERNAME_PREFIX + normalize(resultSet.getString(1)));
+            rebuilt.put(EMAIL_PREFIX + normalize(resultSet.getString(2)));
+        });
+        synchronized (this) {
+            keysAddedDuringRebuild.forEach(rebuilt::put);
+            keysAddedDuringRebuild.clear();
+            filter = rebuilt;
+            rebuilding = false;
+        }
+    }
+
+    private boolean mightContain(String prefix, String value) {
+        BloomFilter<String> current = filter;
+        if (current != null && !current.mightContain(prefix + normalize(value))) {
+            definiteMisses.increment();
+            return false;
+        }
+        possibleHits.increment();
+        return true;
+    }
+
+    private void putUser(String username, String email) {
+        put(USERNAME_PREFIX + normalize(username));
+        put(EMAIL_PREFIX + normalize(email));
+    }
+
+    private synchronized void put(String key) {
+        if (filter != null) {
+            filter.put(key);
+        }
+        if (rebuilding) {
+            keysAddedDuringRebuild.add(key);
+        }
+    }
+
+    private double observedFalsePositiveRate() {
+        double absentLookups = definiteMisses.count() + falsePositives.count();
+        return absentLookups == 0 ? 0 : falsePositives.count() / absentLookups;
+    }
+
+    private double expectedFalsePositiveRate() {
+        BloomFilter<String> current = filter;
+        return current == null ? 1 : current.expectedFpp();
+    }
+
+    private String normalize(String value) {
+        return StringUtils.trimToEmpty(value).toLowerCase(Locale.ROOT);
+    }
+
+    private Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("user.existence.filter.lookups").description("Username and email existence lookups")
+                .tag("result", result).register(meterRegistry);
+    }
+}
@@ -0,0 +1,118 @@
+package dev.peacechan.usermanagement.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.peacechan.usermanagement.enumeration.UserExportFormat;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Writes every user to a stream as CSV or NDJSON straight from a forward-only, read-only JDBC
+ * cursor. Only the exported columns are selected and no entities are built, so memory use does
+ * not depend on the number of users. The query runs in auto-commit mode, outside any transaction.
+ * Both formats write dates as ISO-8601 instants.
+ */
+@Service
+public class UserExportService {
+    private static final String[] COLUMNS = {"userId", "firstName", "lastName", "username", "email", "role",
+            "active", "notLocked", "joinDate", "lastLoginDate"};
+    private static final String SELECT_USERS = "select user_id, first_name, last_name, username, email, role, "
+            + "is_active, is_not_locked, join_date, last_login_date from user order by id";
+    // joinDate and lastLoginDate.
+    private static final int FIRST_DATE_COLUMN = 9;
+
+    private JdbcTemplate jdbcTemplate;
+    private ObjectMapper objectMapper;
+    private int fetchSize;
+
+    public UserExportService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                             @Value("${user-export.fetch-size}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    public void exportUsers(UserExportFormat format, Writer writer) throws IOException {
+        RowWriter rowWriter = format == UserExportFormat.CSV ? csvWriter(writer) : ndjsonWriter(writer);
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(SELECT_USERS,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                return statement;
+            }, resultSet -> {
+                try {
+                    rowWriter.write(resultSet);
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            });
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+        writer.flush();
+    }
+
+    private RowWriter csvWriter(Writer writer) throws IOException {
+        writer.write(String.join(",", COLUMNS));
+        writer.write("\r\n");
+        return resultSet -> {
+            for (int column = 1; column <= COLUMNS.length; column++) {
+                if (column > 1) {
+                    writer.write(',');
+                }
+                Object value = value(resultSet, column);
+                if (value != null) {
+                    writeCsvField(writer, value.toString());
+                }
+            }
+            writer.write("\r\n");
+        };
+    }
+
+    private void writeCsvField(Writer writer, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private RowWriter ndjsonWriter(Writer writer) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        generator.setRootValueSeparator(null);
+        return resultSet -> {
+            generator.writeStartObject();
+            for (int column = 1; column <= COLUMNS.length; column++) {
+                generator.writeFieldName(COLUMNS[column - 1]);
+                generator.writeObject(value(resultSet, column));
+            }
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+        };
+    }
+
+    private static Object value(ResultSet resultSet, int column) throws SQLException {
+        if (column < FIRST_DATE_COLUMN) {
+            return resultSet.getObject(column);
+        }
+        Timestamp timestamp = resultSet.getTimestamp(column);
+        return timestamp == null ? null : timestamp.toInstant().toString();
+    }
+
+    private interface RowWriter {
+        void write(ResultSet resultSet) throws SQLException, IOException;
+    }
+}
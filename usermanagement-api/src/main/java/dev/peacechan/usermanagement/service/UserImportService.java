@@ -0,0 +1,357 @@
+package dev.peacechan.usermanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.peacechan.usermanagement.domain.User;
+import dev.peacechan.usermanagement.domain.UserImportError;
+import dev.peacechan.usermanagement.domain.UserImportJob;
+import dev.peacechan.usermanagement.domain.UserImportResult;
+import dev.peacechan.usermanagement.domain.UserImportRow;
+import dev.peacechan.usermanagement.enumeration.ImportStatus;
+import dev.peacechan.usermanagement.enumeration.Role;
+import dev.peacechan.usermanagement.exception.domain.UserImportException;
+import dev.peacechan.usermanagement.repository.UserImportErrorRepository;
+import dev.peacechan.usermanagement.repository.UserImportJobRepository;
+import dev.peacechan.usermanagement.repository.UserRepository;
+import dev.peacechan.usermanagement.utility.BoundedPasswordEncoder;
+import dev.peacechan.usermanagement.utility.CsvRecordReader;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.*;
+
+import static dev.peacechan.usermanagement.constant.FileConstant.DEFAULT_USER_IMAGE_PATH;
+import static dev.peacechan.usermanagement.constant.UserImplConstant.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+
+/**
+ * Imports users from a CSV or NDJSON stream in fixed-size chunks, so memory use does not grow
+ * with the file. Each chunk is checked for uniqueness with two set queries, has its generated
+ * passwords hashed in parallel, and is inserted through Hibernate's JDBC batching in one
+ * transaction together with the job's progress. A failed import can therefore be resumed by
+ * sending the same file again with its id; rows already processed are skipped.
+ */
+@Service
+public class UserImportService {
+    private final Logger LOGGER = LoggerFactory.getLogger(getClass());
+    private UserRepository userRepository;
+    private UserImportJobRepository userImportJobRepository;
+    private UserImportErrorRepository userImportErrorRepository;
+    private BoundedPasswordEncoder passwordEncoder;
+    private EmailService emailService;
+    private UserExistenceFilter userExistenceFilter;
+    private UserSearchIndex userSearchIndex;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private ObjectMapper objectMapper;
+    private int chunkSize;
+    private int maximumReportedErrors;
+
+    public UserImportService(UserRepository userRepository, UserImportJobRepository userImportJobRepository,
+                             UserImportErrorRepository userImportErrorRepository, BoundedPasswordEncoder passwordEncoder,
+                             EmailService emailService, UserExistenceFilter userExistenceFilter, UserSearchIndex userSearchIndex,
+                             EntityManager entityManager,
+                             TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                             @Value("${user-import.chunk-size}") int chunkSize,
+                             @Value("${user-import.maximum-reported-errors}") int maximumReportedErrors) {
+        this.userRepository = userRepository;
+        this.userImportJobRepository = userImportJobRepository;
+        this.userImportErrorRepository = userImportErrorRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.emailService = emailService;
+        this.userExistenceFilter = userExistenceFilter;
+        this.userSearchIndex = userSearchIndex;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.maximumReportedErrors = maximumReportedErrors;
+    }
+
+    public UserImportResult importUsers(String format, InputStream input, Long importId) throws UserImportException {
+        if (!TEXT_CSV_VALUE.equals(format) && !APPLICATION_NDJSON_VALUE.equals(format)) {
+            throw new UserImportException(UNSUPPORTED_IMPORT_FORMAT + format);
+        }
+        UserImportJob job = importId == null ? startJob(format) : resumeJob(importId, format);
+        if (job.getStatus() == ImportStatus.COMPLETED) {
+            return getImport(job.getId());
+        }
+        String profileImageBase = ServletUriComponentsBuilder.fromCurrentContextPath().path(DEFAULT_USER_IMAGE_PATH).toUriString();
+        try {
+            RowReader reader = openReader(format, new BufferedReader(new InputStreamReader(input, UTF_8)));
+            List<UserImportRow> chunk = new ArrayList<>(chunkSize);
+            UserImportRow row;
+            while ((row = reader.read()) != null) {
+                if (row.getRowNumber() <= job.getProcessedRows()) {
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    importChunk(job, chunk, profileImageBase);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(job, chunk, profileImageBase);
+            }
+            job.setStatus(ImportStatus.COMPLETED);
+        } catch (IOException | RuntimeException exception) {
+            LOGGER.error("User import " + job.getId() + " stopped after row " + job.getProcessedRows(), exception);
+            job.setStatus(ImportStatus.FAILED);
+            job.setLastError(StringUtils.abbreviate(String.valueOf(exception.getMessage()), MAXIMUM_IMPORT_ERROR_LENGTH));
+        }
+        job.setUpdatedAt(new Date());
+        saveJob(job);
+        return getImport(job.getId());
+    }
+
+    public UserImportResult getImport(Long importId) throws UserImportException {
+        UserImportJob job = userImportJobRepository.findById(importId)
+                .orElseThrow(() -> new UserImportException(IMPORT_NOT_FOUND + importId));
+        return new UserImportResult(job, userImportErrorRepository.findByImportJobIdOrderByRowNumber(importId));
+    }
+
+    private UserImportJob startJob(String format) {
+        UserImportJob job = new UserImportJob();
+        job.setFormat(format);
+        job.setStatus(ImportStatus.RUNNING);
+        job.setCreatedAt(new Date());
+        job.setUpdatedAt(job.getCreatedAt());
+        return saveJob(job);
+    }
+
+    private UserImportJob resumeJob(Long importId, String format) throws UserImportException {
+        UserImportJob job = userImportJobRepository.findById(importId)
+                .orElseThrow(() -> new UserImportException(IMPORT_NOT_FOUND + importId));
+        if (!format.equals(job.getFormat())) {
+            throw new UserImportException(IMPORT_FORMAT_MISMATCH + job.getFormat());
+        }
+        if (job.getStatus() == ImportStatus.FAILED) {
+            job.setStatus(ImportStatus.RUNNING);
+            job.setLastError(null);
+            job = saveJob(job);
+        }
+        return job;
+    }
+
+    private UserImportJob saveJob(UserImportJob job) {
+        return transactionTemplate.execute(status -> userImportJobRepository.save(job));
+    }
+
+    private void importChunk(UserImportJob job, List<UserImportRow> rows, String profileImageBase) {
+        List<UserImportError> errors = new ArrayList<>();
+        List<UserImportRow> accepted = validate(rows, errors);
+        List<String> passwords = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            passwords.add(RandomStringUtils.randomAlphanumeric(10));
+        }
+        List<String> encodedPasswords = passwordEncoder.encodeAll(passwords);
+        List<User> users = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            users.add(newUser(accepted.get(i), encodedPasswords.get(i), profileImageBase));
+        }
+        long reportedErrors = Math.min(job.getFailedRows(), maximumReportedErrors);
+        List<UserImportError> reported = errors.subList(0, (int) Math.max(0, Math.min(errors.size(), maximumReportedErrors - reportedErrors)));
+        reported.forEach(error -> error.setImportJobId(job.getId()));
+
+        UserImportJob progress = new UserImportJob();
+        progress.setId(job.getId());
+        progress.setFormat(job.getFormat());
+        progress.setStatus(job.getStatus());
+        progress.setCreatedAt(job.getCreatedAt());
+        progress.setProcessedRows(rows.get(rows.size() - 1).getRowNumber());
+        progress.setImportedRows(job.getImportedRows() + users.size());
+        progress.setFailedRows(job.getFailedRows() + errors.size());
+        progress.setUpdatedAt(new Date());
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                entityManager.persist(user);
+                emailService.sendEmail(user.getFirstName(), passwords.get(i), user.getEmail());
+            }
+            reported.forEach(entityManager::persist);
+            entityManager.merge(progress);
+            entityManager.flush();
+            entityManager.clear();
+        });
+        // Only committed progress is copied back, so a failed chunk is retried on resume.
+        job.setProcessedRows(progress.getProcessedRows());
+        job.setImportedRows(progress.getImportedRows());
+        job.setFailedRows(progress.getFailedRows());
+        job.setUpdatedAt(progress.getUpdatedAt());
+        users.forEach(user -> userExistenceFilter.addUser(user.getUsername(), user.getEmail()));
+        users.forEach(userSearchIndex::index);
+    }
+
+    private List<UserImportRow> validate(List<UserImportRow> rows, List<UserImportError> errors) {
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        List<UserImportRow> candidates = new ArrayList<>(rows.size());
+        for (UserImportRow row : rows) {
+            String error = row.getError();
+            if (error == null && (StringUtils.isBlank(row.getUsername()) || StringUtils.isBlank(row.getEmail()))) {
+                error = USERNAME_AND_EMAIL_REQUIRED;
+            }
+            if (error == null && row.getRole() != null && toRole(row.getRole()) == null) {
+                error = INVALID_ROLE + row.getRole();
+            }
+            if (error == null && !usernames.add(row.getUsername().toLowerCase(Locale.ROOT))) {
+                error = DUPLICATE_USERNAME_IN_IMPORT;
+            }
+            if (error == null && !emails.add(row.getEmail().toLowerCase(Locale.ROOT))) {
+                error = DUPLICATE_EMAIL_IN_IMPORT;
+            }
+            if (error == null) {
+                candidates.add(row);
+            } else {
+                errors.add(importError(row, error));
+            }
+        }
+        Set<String> existingUsernames = lowerCase(findExisting(candidates, true));
+        Set<String> existingEmails = lowerCase(findExisting(candidates, false));
+        List<UserImportRow> accepted = new ArrayList<>(candidates.size());
+        for (UserImportRow row : candidates) {
+            if (existingUsernames.contains(row.getUsername().toLowerCase(Locale.ROOT))) {
+                errors.add(importError(row, USERNAME_ALREADY_EXIST));
+            } else if (existingEmails.contains(row.getEmail().toLowerCase(Locale.ROOT))) {
+                errors.add(importError(row, EMAIL_ALREADY_EXIST));
+            } else {
+                accepted.add(row);
+            }
+        }
+        errors.sort(Comparator.comparingLong(UserImportError::getRowNumber));
+        return accepted;
+    }
+
+    // Only values the existence filter cannot rule out are sent to the database.
+    private List<String> findExisting(List<UserImportRow> rows, boolean usernames) {
+        List<String> values = new ArrayList<>();
+        for (UserImportRow row : rows) {
+            if (usernames && userExistenceFilter.mightContainUsername(row.getUsername())) {
+                values.add(row.getUsername());
+            } else if (!usernames && userExistenceFilter.mightContainEmail(row.getEmail())) {
+                values.add(row.getEmail());
+            }
+        }
+        if (values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return usernames ? userRepository.findExistingUsernames(values) : userRepository.findExistingEmails(values);
+    }
+
+    private User newUser(UserImportRow row, String encodedPassword, String profileImageBase) {
+        Role role = row.getRole() == null ? Role.ROLE_USER : toRole(row.getRole());
+        User user = new User();
+        user.setUserId(RandomStringUtils.randomNumeric(10));
+        user.setFirstName(row.getFirstName());
+        user.setLastName(row.getLastName());
+        user.setUsername(row.getUsername());
+        user.setEmail(row.getEmail());
+        user.setJoinDate(new Date());
+        user.setNotLocked(row.getNotLocked() == null || row.getNotLocked());
+        user.setActive(row.getActive() == null || row.getActive());
+        user.setPassword(encodedPassword);
+        user.setRole(role.name());
+        user.setAuthorities(role.getAuthorities());
+        user.setProfileImageUrl(profileImageBase + row.getUsername());
+        return user;
+    }
+
+    private RowReader openReader(String format, BufferedReader reader) throws IOException, UserImportException {
+        long[] rowNumber = {0};
+        if (APPLICATION_NDJSON_VALUE.equals(format)) {
+            return () -> {
+                String line;
+                do {
+                    line = reader.readLine();
+                } while (line != null && line.isBlank());
+                if (line == null) {
+                    return null;
+                }
+                UserImportRow row;
+                try {
+                    row = objectMapper.readValue(line, UserImportRow.class);
+                } catch (JsonProcessingException exception) {
+                    row = new UserImportRow();
+                    row.setError(INVALID_IMPORT_ROW + exception.getOriginalMessage());
+                }
+                row.setRowNumber(++rowNumber[0]);
+                return row;
+            };
+        }
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        List<String> header = csv.readRecord();
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; header != null && i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("username") || !columns.containsKey("email")) {
+            throw new UserImportException(MISSING_IMPORT_COLUMNS);
+        }
+        return () -> {
+            List<String> fields = csv.readRecord();
+            if (fields == null) {
+                return null;
+            }
+            UserImportRow row = new UserImportRow();
+            row.setRowNumber(++rowNumber[0]);
+            if (fields.size() != header.size()) {
+                row.setError(INVALID_IMPORT_ROW + "expected " + header.size() + " fields but found " + fields.size());
+                return row;
+            }
+            row.setFirstName(field(fields, columns, "firstname"));
+            row.setLastName(field(fields, columns, "lastname"));
+            row.setUsername(field(fields, columns, "username"));
+            row.setEmail(field(fields, columns, "email"));
+            row.setRole(field(fields, columns, "role"));
+            String active = field(fields, columns, "active");
+            row.setActive(active == null ? null : Boolean.valueOf(active));
+            String notLocked = field(fields, columns, "notlocked");
+            row.setNotLocked(notLocked == null ? null : Boolean.valueOf(notLocked));
+            return row;
+        };
+    }
+
+    private String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        return index == null ? null : StringUtils.trimToNull(fields.get(index));
+    }
+
+    private Role toRole(String role) {
+        try {
+            return Role.valueOf(role.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
+    }
+
+    private Set<String> lowerCase(List<String> values) {
+        Set<String> lowerCased = new HashSet<>();
+        values.forEach(value -> lowerCased.add(value.toLowerCase(Locale.ROOT)));
+        return lowerCased;
+    }
+
+    private UserImportError importError(UserImportRow row, String message) {
+        UserImportError error = new UserImportError();
+        error.setRowNumber(row.getRowNumber());
+        error.setMessage(StringUtils.abbreviate(message, MAXIMUM_IMPORT_ERROR_LENGTH));
+        return error;
+    }
+
+    private interface RowReader {
+        /** Returns the next row, or {@code null} when the input is exhausted. */
+        UserImportRow read() throws IOException;
+    }
+}
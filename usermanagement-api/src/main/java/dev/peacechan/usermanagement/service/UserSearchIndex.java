@@ -0,0 +1,445 @@
+package dev.peacechan.usermanagement.service;
+
+import dev.peacechan.usermanagement.domain.User;
+import dev.peacechan.usermanagement.domain.UserSearchResult;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory search over username, email, first name and last name. Every field contributes
+ * its trigrams to posting lists of document numbers, so a query of three or more characters
+ * is answered by intersecting the postings of its trigrams and checking the few survivors.
+ * Shorter queries use posting lists keyed by the first one and two characters of each field,
+ * and match prefixes only. A query of several words matches users that match every word, in
+ * any of the fields.
+ * <p>
+ * Changes are applied after their transaction commits. A changed user is appended as a new
+ * document and the old one is tombstoned. The index is rebuilt from the database when
+ * tombstones pile up and on a fixed interval, which also picks up writes made elsewhere.
+ */
+@Service
+public class UserSearchIndex {
+    private static final String SELECT_USERS = "select id, user_id, first_name, last_name, username, email, role, "
+            + "is_active, is_not_locked from user";
+    private static final int GRAM_LENGTH = 3;
+    private static final int ACTIVE = 1;
+    private static final int NOT_LOCKED = 2;
+    private static final int ROLE_SHIFT = 2;
+
+    private final Logger LOGGER = LoggerFactory.getLogger(getClass());
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Consumer<Index>> changesDuringRebuild = new ArrayList<>();
+    private volatile Index index = new Index();
+    private boolean rebuilding;
+    // Counts published under the write lock, so gauges and maintenance can read them without it.
+    private volatile int liveDocuments;
+    private volatile int tombstones;
+    private volatile long lastRebuild;
+    private JdbcTemplate jdbcTemplate;
+    private int fetchSize;
+    private double maximumTombstoneRatio;
+    private long rebuildIntervalMillis;
+    private Timer rebuildTimer;
+    private Timer searchTimer;
+
+    public UserSearchIndex(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                           @Value("${user-search.fetch-size}") int fetchSize,
+                           @Value("${user-search.maximum-tombstone-ratio}") double maximumTombstoneRatio,
+                           @Value("${user-search.rebuild-interval-ms}") long rebuildIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+        this.maximumTombstoneRatio = maximumTombstoneRatio;
+        this.rebuildIntervalMillis = rebuildIntervalMillis;
+        this.rebuildTimer = Timer.builder("user.search.index.rebuild").description("Time to rebuild the search index from the user table").register(meterRegistry);
+        this.searchTimer = Timer.builder("user.search.query").description("Time to answer a search from the index").register(meterRegistry);
+        Gauge.builder("user.search.index.documents", this, search -> search.liveDocuments)
+                .description("Users in the search index").register(meterRegistry);
+        Gauge.builder("user.search.index.tombstones", this, search -> search.tombstones)
+                .description("Replaced or deleted documents awaiting a rebuild").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            if (rebuilding) {
+                return;
+            }
+            rebuilding = true;
+        }
+        try {
+            rebuildTimer.record(this::buildAndSwap);
+        } catch (RuntimeException exception) {
+            LOGGER.error("Failed to rebuild the user search index", exception);
+            synchronized (this) {
+                rebuilding = false;
+                changesDuringRebuild.clear();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${user-search.maintenance-interval-ms}", initialDelayString = "${user-search.maintenance-interval-ms}")
+    public void rebuildIfNeeded() {
+        int deleted = tombstones;
+        int documents = liveDocuments + deleted;
+        boolean tooManyTombstones = documents > 0 && (double) deleted / documents > maximumTombstoneRatio;
+        if (tooManyTombstones || System.currentTimeMillis() - lastRebuild >= rebuildIntervalMillis) {
+            rebuild();
+        }
+    }
+
+    /** Adds or replaces the user once the surrounding transaction, if any, has committed. */
+    public void index(User user) {
+        Document document = new Document(user.getId(), user.getUserId(), user.getFirstName(), user.getLastName(),
+                user.getUsername(), user.getEmail(), user.getRole(), user.isActive(), user.isNotLocked());
+        afterCommit(target -> target.add(document));
+    }
+
+    public void remove(Long id) {
+        afterCommit(target -> target.remove(id));
+    }
+
+    /**
+     * Returns up to {@code limit} users matching every word of the query, exact matches first,
+     * then prefix matches, then substring matches, with username breaking ties. A blank query
+     * matches every user that passes the filters.
+     */
+    public List<UserSearchResult> search(String query, String role, Boolean active, Boolean locked, int limit) {
+        return searchTimer.record(() -> {
+            lock.readLock().lock();
+            try {
+                String normalized = normalize(query);
+                return index.search(normalized.isEmpty() ? new String[0] : normalized.split("\\s+"), role, active, locked, limit);
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    private void afterCommit(Consumer<Index> change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    private void apply(Consumer<Index> change) {
+        synchronized (this) {
+            if (rebuilding) {
+                changesDuringRebuild.add(change);
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            publishCounts(index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void buildAndSwap() {
+        Index rebuilt = new Index();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_USERS);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, resultSet -> {
+            rebuilt.add(new Document(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3),
+                    resultSet.getString(4), resultSet.getString(5), resultSet.getString(6), resultSet.getString(7),
+                    resultSet.getBoolean(8), resultSet.getBoolean(9)));
+        });
+        lock.writeLock().lock();
+        try {
+            synchronized (this) {
+                changesDuringRebuild.forEach(change -> change.accept(rebuilt));
+                changesDuringRebuild.clear();
+                index = rebuilt;
+                publishCounts(rebuilt);
+                rebuilding = false;
+                lastRebuild = System.currentTimeMillis();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void publishCounts(Index current) {
+        liveDocuments = current.liveDocuments;
+        tombstones = current.deletedCount;
+    }
+
+    private static String normalize(String value) {
+        return StringUtils.trimToEmpty(value).toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Document {
+        private final long id;
+        private final String userId;
+        private final String firstName;
+        private final String lastName;
+        private final String username;
+        private final String email;
+        private final String role;
+        private final boolean active;
+        private final boolean notLocked;
+        // Normalized username, email, first name and last name, in ranking order.
+        private final String[] fields;
+
+        private Document(long id, String userId, String firstName, String lastName, String username, String email,
+                         String role, boolean active, boolean notLocked) {
+            this.id = id;
+            this.userId = userId;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.username = username;
+            this.email = email;
+            this.role = role;
+            this.active = active;
+            this.notLocked = notLocked;
+            this.fields = new String[]{normalize(username), normalize(email), normalize(firstName), normalize(lastName)};
+        }
+
+        private UserSearchResult toResult() {
+            return new UserSearchResult(userId, firstName, lastName, username, email, role, active, notLocked);
+        }
+    }
+
+    /** Growable array of ascending document numbers, also used for per-document attributes. */
+    private static final class Postings {
+        private int[] documents = new int[4];
+        private int size;
+
+        private void add(int document) {
+            if (size > 0 && documents[size - 1] == document) {
+                return;
+            }
+            append(document);
+        }
+
+        private void append(int value) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+            }
+            documents[size++] = value;
+        }
+    }
+
+    private static final class Index {
+        private final List<Document> documents = new ArrayList<>();
+        // Role code and flags of each document, packed so filters never touch the document itself.
+        private final Postings attributes = new Postings();
+        private final Map<String, Integer> roleCodes = new HashMap<>();
+        private final Map<Long, Integer> documentsById = new HashMap<>();
+        private final Map<String, Postings> grams = new HashMap<>();
+        private final Map<String, Postings> prefixes = new HashMap<>();
+        private final BitSet deletedDocuments = new BitSet();
+        private int liveDocuments;
+        private int deletedCount;
+
+        private void add(Document document) {
+            remove(document.id);
+            int number = documents.size();
+            documents.add(document);
+            int roleCode = roleCodes.computeIfAbsent(normalize(document.role), role -> roleCodes.size());
+            attributes.append(roleCode << ROLE_SHIFT | (document.active ? ACTIVE : 0) | (document.notLocked ? NOT_LOCKED : 0));
+            documentsById.put(document.id, number);
+            liveDocuments++;
+            for (String field : document.fields) {
+                for (int start = 0; start + GRAM_LENGTH <= field.length(); start++) {
+                    grams.computeIfAbsent(field.substring(start, start + GRAM_LENGTH), gram -> new Postings()).add(number);
+                }
+                for (int length = 1; length < GRAM_LENGTH && length <= field.length(); length++) {
+                    prefixes.computeIfAbsent(field.substring(0, length), prefix -> new Postings()).add(number);
+                }
+            }
+        }
+
+        private void remove(long id) {
+            Integer number = documentsById.remove(id);
+            if (number != null) {
+                deletedDocuments.set(number);
+                documents.set(number, null);
+                liveDocuments--;
+                deletedCount++;
+            }
+        }
+
+        private List<UserSearchResult> search(String[] terms, String role, Boolean active, Boolean locked, int limit) {
+            Comparator<Match> ranking = Comparator.comparingInt((Match match) -> match.score)
+                    .thenComparing(match -> match.document.username, Comparator.nullsFirst(Comparator.reverseOrder()));
+            PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, ranking);
+            Integer roleCode = role == null ? null : roleCodes.get(normalize(role));
+            if (role != null && roleCode == null) {
+                return new ArrayList<>();
+            }
+            int[] candidates = candidates(terms);
+            int candidateCount = candidates == null ? documents.size() : candidates.length;
+            for (int i = 0; i < candidateCount; i++) {
+                int number = candidates == null ? i : candidates[i];
+                if (deletedDocuments.get(number) || !passesFilters(attributes.documents[number], roleCode, active, locked)) {
+                    continue;
+                }
+                Document document = documents.get(number);
+                int score = score(document, terms);
+                if (score < 0) {
+                    continue;
+                }
+                best.add(new Match(document, score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            List<UserSearchResult> results = new ArrayList<>(best.size());
+            while (!best.isEmpty()) {
+                results.add(best.poll().document.toResult());
+            }
+            Collections.reverse(results);
+            return results;
+        }
+
+        // Returns the candidate document numbers, or null when every document is a candidate.
+        private int[] candidates(String[] terms) {
+            if (terms.length == 0) {
+                return null;
+            }
+            List<int[]> lists = new ArrayList<>();
+            for (String term : terms) {
+                int[] termCandidates = candidates(term);
+                if (termCandidates.length == 0) {
+                    return termCandidates;
+                }
+                lists.add(termCandidates);
+            }
+            lists.sort(Comparator.comparingInt(list -> list.length));
+            int[] result = lists.get(0);
+            int size = result.length;
+            for (int list = 1; list < lists.size() && size > 0; list++) {
+                size = intersect(result, size, lists.get(list), lists.get(list).length);
+            }
+            return Arrays.copyOf(result, size);
+        }
+
+        private int[] candidates(String query) {
+            if (query.length() < GRAM_LENGTH) {
+                Postings postings = prefixes.get(query);
+                return postings == null ? new int[0] : Arrays.copyOf(postings.documents, postings.size);
+            }
+            List<Postings> lists = new ArrayList<>();
+            for (int start = 0; start + GRAM_LENGTH <= query.length(); start++) {
+                Postings postings = grams.get(query.substring(start, start + GRAM_LENGTH));
+                if (postings == null) {
+                    return new int[0];
+                }
+                lists.add(postings);
+            }
+            lists.sort(Comparator.comparingInt(postings -> postings.size));
+            int[] result = Arrays.copyOf(lists.get(0).documents, lists.get(0).size);
+            int size = result.length;
+            for (int list = 1; list < lists.size() && size > 0; list++) {
+                size = intersect(result, size, lists.get(list).documents, lists.get(list).size);
+            }
+            return Arrays.copyOf(result, size);
+        }
+
+        // Keeps the first size entries of result that also occur in the first count entries of
+        // documents; both are ascending. Gallops through documents, so a short result costs
+        // little against a long posting list.
+        private int intersect(int[] result, int size, int[] documents, int count) {
+            int kept = 0;
+            int position = 0;
+            for (int i = 0; i < size && position < count; i++) {
+                int document = result[i];
+                int step = 1;
+                int high = position;
+                while (high < count && documents[high] < document) {
+                    position = high + 1;
+                    high += step;
+                    step <<= 1;
+                }
+                int found = Arrays.binarySearch(documents, position, Math.min(high + 1, count), document);
+                if (found >= 0) {
+                    result[kept++] = document;
+                    position = found + 1;
+                } else {
+                    position = -found - 1;
+                }
+            }
+            return kept;
+        }
+
+        private boolean passesFilters(int attributes, Integer roleCode, Boolean active, Boolean locked) {
+            return (roleCode == null || attributes >>> ROLE_SHIFT == roleCode)
+                    && (active == null || active == ((attributes & ACTIVE) != 0))
+                    && (locked == null || locked != ((attributes & NOT_LOCKED) != 0));
+        }
+
+        // Sums the best match of each word; -1 when any word does not match.
+        private int score(Document document, String[] terms) {
+            int total = 0;
+            for (String term : terms) {
+                int score = score(document, term);
+                if (score < 0) {
+                    return -1;
+                }
+                total += score;
+            }
+            return total;
+        }
+
+        // Exact matches rank above prefix matches, which rank above substring matches; earlier
+        // fields win within a kind. Short queries only match prefixes. -1 means no match.
+        private int score(Document document, String query) {
+            int fieldCount = document.fields.length;
+            int best = -1;
+            for (int field = 0; field < fieldCount; field++) {
+                String value = document.fields[field];
+                int kind;
+                if (value.equals(query)) {
+                    kind = 3;
+                } else if (value.startsWith(query)) {
+                    kind = 2;
+                } else if (query.length() >= GRAM_LENGTH && value.contains(query)) {
+                    kind = 1;
+                } else {
+                    continue;
+                }
+                best = Math.max(best, kind * fieldCount + (fieldCount - field));
+            }
+            return best;
+        }
+    }
+
+    private static final class Match {
+        private final Document document;
+        private final int score;
+
+        private Match(Document document, int score) {
+            this.document = document;
+            this.score = score;
+        }
+    }
+}
@@ -2,21 +2,24 @@ package dev.peacechan.usermanagement.service;
 
 
 import dev.peacechan.usermanagement.domain.User;
+import dev.peacechan.usermanagement.domain.UserPage;
 import dev.peacechan.usermanagement.exception.domain.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.mail.MessagingException;
 import java.io.IOException;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserService {
-    User register(String firstName, String lastName, String username, String email) throws UserNotFoundException, UsernameExistException, EmailExistException, MessagingException;
+    User register(String firstName, String lastName, String username, String email) throws UserNotFoundException, UsernameExistException, EmailExistException;
     List<User> getUsers();
+    UserPage getUserPage(String cursor, int size, String sort, String direction) throws InvalidPageRequestException;
+    void streamUsers(Consumer<User> consumer);
     User findUserByUsername(String username);
     User findUserByEmail(String email);
     User addNewUser(String firstName, String lastName, String username, String email, String role, boolean isNonLocked, boolean isActive, MultipartFile multipartFile) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException, NotAnImageFileException;
     User updateUser(String currentUsername, String newFirstName, String newLastName, String newUsername, String newEmail, String role, boolean isNonLocked, boolean isActive, MultipartFile multipartFile) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException, NotAnImageFileException;
     void deleteUser(Long id);
-    void resetPassword(String email) throws EmailNotFoundException, MessagingException;
+    void resetPassword(String email) throws EmailNotFoundException;
     User updateProfileImage(String username, MultipartFile profileImage) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException, NotAnImageFileException;
 }
\ No newline at end of file
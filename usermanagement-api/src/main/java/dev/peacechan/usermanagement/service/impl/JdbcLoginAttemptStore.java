@@ -0,0 +1,111 @@
+package dev.peacechan.usermanagement.service.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import dev.peacechan.usermanagement.domain.LoginAttempt;
+import dev.peacechan.usermanagement.enumeration.LoginAttemptScope;
+import dev.peacechan.usermanagement.service.LoginAttemptStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+
+import static dev.peacechan.usermanagement.constant.MetricConstant.LOGIN_ATTEMPT_NEAR_CACHE_SIZE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Shares attempt counts between nodes through the {@link LoginAttempt} table. Each key has a
+ * row per fixed window (bucket), incremented in place by the database, so a count is the
+ * current bucket plus the overlapping part of the previous one, and old buckets are removed
+ * with a range delete. Reads go through a short-lived near-cache to keep the login path off
+ * the database; increments made on this node refresh it immediately.
+ */
+@Service
+@ConditionalOnProperty(name = "login-attempt.store", havingValue = "jdbc")
+public class JdbcLoginAttemptStore implements LoginAttemptStore {
+    private static final String INCREMENT = "update login_attempt set attempts = attempts + 1 where scope = ? and attempt_key = ? and bucket = ?";
+    private static final String INSERT = "insert into login_attempt (scope, attempt_key, bucket, attempts) values (?, ?, ?, 1)";
+    private static final String SELECT_RECENT = "select bucket, attempts from login_attempt where scope = ? and attempt_key = ? and bucket >= ?";
+    private static final String DELETE_KEY = "delete from login_attempt where scope = ? and attempt_key = ?";
+    private static final String DELETE_EXPIRED = "delete from login_attempt where bucket < ?";
+
+    private final Cache<String, Double> nearCache;
+    private JdbcTemplate jdbcTemplate;
+    private long windowMillis;
+
+    public JdbcLoginAttemptStore(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                 @Value("${login-attempt.window-ms}") long windowMillis,
+                                 @Value("${login-attempt.maximum-keys}") int maximumKeys,
+                                 @Value("${login-attempt.jdbc.near-cache-ttl-ms}") long nearCacheTtlMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.windowMillis = windowMillis;
+        this.nearCache = CacheBuilder.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterWrite(nearCacheTtlMillis, MILLISECONDS)
+                .build();
+        Gauge.builder(LOGIN_ATTEMPT_NEAR_CACHE_SIZE, nearCache, Cache::size)
+                .description("Attempt counts held locally between database reads").register(meterRegistry);
+    }
+
+    @Override
+    public double recordFailure(LoginAttemptScope scope, String key) {
+        long bucket = System.currentTimeMillis() / windowMillis;
+        if (jdbcTemplate.update(INCREMENT, scope.name(), key, bucket) == 0) {
+            try {
+                jdbcTemplate.update(INSERT, scope.name(), key, bucket);
+            } catch (DuplicateKeyException exception) {
+                // Another node created the bucket between our update and insert.
+                jdbcTemplate.update(INCREMENT, scope.name(), key, bucket);
+            }
+        }
+        double attempts = loadAttempts(scope, key);
+        nearCache.put(cacheKey(scope, key), attempts);
+        return attempts;
+    }
+
+    @Override
+    public double getAttempts(LoginAttemptScope scope, String key) {
+        String cacheKey = cacheKey(scope, key);
+        Double attempts = nearCache.getIfPresent(cacheKey);
+        if (attempts == null) {
+            attempts = loadAttempts(scope, key);
+            nearCache.put(cacheKey, attempts);
+        }
+        return attempts;
+    }
+
+    @Override
+    public void reset(LoginAttemptScope scope, String key) {
+        jdbcTemplate.update(DELETE_KEY, scope.name(), key);
+        nearCache.put(cacheKey(scope, key), 0.0);
+    }
+
+    @Override
+    public void removeExpired() {
+        jdbcTemplate.update(DELETE_EXPIRED, System.currentTimeMillis() / windowMillis - 1);
+    }
+
+    private double loadAttempts(LoginAttemptScope scope, String key) {
+        long now = System.currentTimeMillis();
+        long currentBucket = now / windowMillis;
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(SELECT_RECENT, scope.name(), key, currentBucket - 1);
+        double overlap = 1 - (double) (now % windowMillis) / windowMillis;
+        double attempts = 0;
+        for (Map<String, Object> row : rows) {
+            long bucket = ((Number) row.get("bucket")).longValue();
+            int count = ((Number) row.get("attempts")).intValue();
+            attempts += bucket == currentBucket ? count : count * overlap;
+        }
+        return attempts;
+    }
+
+    private String cacheKey(LoginAttemptScope scope, String key) {
+        return scope.name() + ':' + key;
+    }
+}
@@ -0,0 +1,63 @@
+package dev.peacechan.usermanagement.service.impl;
+
+import dev.peacechan.usermanagement.enumeration.LoginAttemptScope;
+import dev.peacechan.usermanagement.service.LoginAttemptStore;
+import dev.peacechan.usermanagement.utility.SlidingWindowAttemptTracker;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Keeps attempt counts in this JVM only. Suitable for a single node; use the JDBC store when
+ * several nodes must share lockouts.
+ */
+@Service
+@ConditionalOnProperty(name = "login-attempt.store", havingValue = "local", matchIfMissing = true)
+public class LocalLoginAttemptStore implements LoginAttemptStore {
+    private final Map<LoginAttemptScope, SlidingWindowAttemptTracker> trackers = new EnumMap<>(LoginAttemptScope.class);
+
+    public LocalLoginAttemptStore(MeterRegistry meterRegistry,
+                                  @Value("${login-attempt.window-ms}") long windowMillis,
+                                  @Value("${login-attempt.maximum-keys}") int maximumKeys) {
+        for (LoginAttemptScope scope : LoginAttemptScope.values()) {
+            SlidingWindowAttemptTracker tracker = new SlidingWindowAttemptTracker(windowMillis, maximumKeys);
+            trackers.put(scope, tracker);
+            registerMetrics(meterRegistry, scope.name().toLowerCase(), tracker);
+        }
+    }
+
+    @Override
+    public double recordFailure(LoginAttemptScope scope, String key) {
+        return trackers.get(scope).increment(key);
+    }
+
+    @Override
+    public double getAttempts(LoginAttemptScope scope, String key) {
+        return trackers.get(scope).count(key);
+    }
+
+    @Override
+    public void reset(LoginAttemptScope scope, String key) {
+        trackers.get(scope).reset(key);
+    }
+
+    @Override
+    public void removeExpired() {
+        trackers.values().forEach(SlidingWindowAttemptTracker::removeExpired);
+    }
+
+    private void registerMetrics(MeterRegistry meterRegistry, String key, SlidingWindowAttemptTracker tracker) {
+        Gauge.builder("login.attempt.tracked.keys", tracker, SlidingWindowAttemptTracker::size)
+                .description("Keys with failed logins in the window").tag("key", key).register(meterRegistry);
+        Gauge.builder("login.attempt.memory", tracker, SlidingWindowAttemptTracker::estimatedBytes)
+                .description("Estimated heap used by the attempt counters").baseUnit("bytes").tag("key", key).register(meterRegistry);
+        FunctionCounter.builder("login.attempt.evictions", tracker, SlidingWindowAttemptTracker::evictionCount)
+                .description("Keys dropped to stay within login-attempt.maximum-keys").tag("key", key).register(meterRegistry);
+    }
+}
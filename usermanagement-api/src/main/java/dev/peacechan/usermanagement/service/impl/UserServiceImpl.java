@@ -1,30 +1,46 @@
 package dev.peacechan.usermanagement.service.impl;
 
 import dev.peacechan.usermanagement.domain.User;
+import dev.peacechan.usermanagement.domain.UserIdentity;
+import dev.peacechan.usermanagement.domain.UserPage;
+import dev.peacechan.usermanagement.domain.UserPageCursor;
 import dev.peacechan.usermanagement.domain.UserPrincipal;
 import dev.peacechan.usermanagement.enumeration.Role;
+import dev.peacechan.usermanagement.enumeration.UserSortKey;
 import dev.peacechan.usermanagement.exception.domain.*;
 import dev.peacechan.usermanagement.repository.UserRepository;
 
 import dev.peacechan.usermanagement.service.EmailService;
 import dev.peacechan.usermanagement.service.LoginAttemptService;
+import dev.peacechan.usermanagement.service.LoginStampRecorder;
+import dev.peacechan.usermanagement.service.ProfileImageProcessor;
+import dev.peacechan.usermanagement.service.ProfileImageService;
+import dev.peacechan.usermanagement.service.TokenRevocationService;
+import dev.peacechan.usermanagement.service.UserCache;
+import dev.peacechan.usermanagement.service.UserExistenceFilter;
+import dev.peacechan.usermanagement.service.UserSearchIndex;
 import dev.peacechan.usermanagement.service.UserService;
+import io.micrometer.core.annotation.Timed;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import javax.mail.MessagingException;
+import javax.persistence.EntityManager;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -32,13 +48,16 @@ import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static dev.peacechan.usermanagement.constant.FileConstant.*;
+import static dev.peacechan.usermanagement.constant.MetricConstant.SERVICE_METHOD_TIMER;
 import static dev.peacechan.usermanagement.constant.UserImplConstant.*;
-import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 @Service
-@Transactional
+@Transactional(rollbackFor = {UsernameExistException.class, EmailExistException.class})
 @Qualifier("userDetailsService")
 public class UserServiceImpl implements UserService, UserDetailsService {
 
@@ -47,35 +66,66 @@ public class UserServiceImpl implements UserService, UserDetailsService {
         private PasswordEncoder passwordEncoder;
         private LoginAttemptService loginAttemptService;
         private EmailService emailService;
+        private EntityManager entityManager;
+        private LoginStampRecorder loginStampRecorder;
+        private ProfileImageService profileImageService;
+        private ProfileImageProcessor profileImageProcessor;
+        private UserExistenceFilter userExistenceFilter;
+        private UserSearchIndex userSearchIndex;
+        private UserCache userCache;
+        private TokenRevocationService tokenRevocationService;
+        private TransactionTemplate readOnlyTransaction;
 
-        public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder, LoginAttemptService loginAttemptService, EmailService emailService) {
+        public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder, LoginAttemptService loginAttemptService, EmailService emailService, EntityManager entityManager, LoginStampRecorder loginStampRecorder, ProfileImageService profileImageService, ProfileImageProcessor profileImageProcessor, UserExistenceFilter userExistenceFilter, UserSearchIndex userSearchIndex, UserCache userCache, TokenRevocationService tokenRevocationService, PlatformTransactionManager transactionManager) {
             this.userRepository = userRepository;
             this.passwordEncoder = passwordEncoder;
             this.loginAttemptService = loginAttemptService;
             this.emailService = emailService;
+            this.entityManager = entityManager;
+            this.loginStampRecorder = loginStampRecorder;
+            this.profileImageService = profileImageService;
+            this.profileImageProcessor = profileImageProcessor;
+            this.userExistenceFilter = userExistenceFilter;
+            this.userSearchIndex = userSearchIndex;
+            this.userCache = userCache;
+            this.tokenRevocationService = tokenRevocationService;
+            this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+            this.readOnlyTransaction.setReadOnly(true);
         }
 
+        @Timed(value = SERVICE_METHOD_TIMER, histogram = true)
         @Override
         public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+            long cacheVersion = userCache.version();
             User user = userRepository.findUserByUsername(username);
             if(user == null){
                 throw new UsernameNotFoundException(USER_NOT_FOUND_BY_USERNAME + username);
             }else{
+                boolean wasNotLocked = user.isNotLocked();
                 try {
                     validateLoginAttempt(user);
                 } catch (ExecutionException e) {
                     e.printStackTrace();
                 }
+                if (user.isNotLocked() != wasNotLocked) {
+                    userRepository.saveAndFlush(user);
+                    userSearchIndex.index(user);
+                }
+                entityManager.detach(user);
+                Date loginDate = new Date();
+                loginStampRecorder.record(user.getId(), user.getLastLoginDate(), loginDate);
                 user.setLastLoginDateDisplay(user.getLastLoginDate());
-                user.setLastLoginDate(new Date());
-                userRepository.save(user);
+                user.setLastLoginDate(loginDate);
+                // Later lookups of the user, such as the client reloading it after login, can use the row just read.
+                userCache.put(user, cacheVersion);
                 UserPrincipal userPrincipal = new UserPrincipal(user);
                 return userPrincipal;
             }
         }
 
+        @Timed(value = SERVICE_METHOD_TIMER, histogram = true)
         @Override
-        public User register(String firstName, String lastName, String username, String email) throws UserNotFoundException, UsernameExistException, EmailExistException, MessagingException {
+        public User register(String firstName, String lastName, String username, String email) throws UserNotFoundException, UsernameExistException, EmailExistException {
             validateNewUserAndEmail(StringUtils.EMPTY, username, email);
             User user = new User();
             String password = generatePassword();
@@ -91,7 +141,9 @@ public class UserServiceImpl implements UserService, UserDetailsService {
             user.setRole(Role.ROLE_USER.name());
             user.setAuthorities(Role.ROLE_USER.getAuthorities());
             user.setProfileImageUrl(getTemporarilyProfileImageUrl(username));
-            this.userRepository.save(user);
+            saveUnique(user);
+            this.userExistenceFilter.addUser(username, email);
+            this.userSearchIndex.index(user);
             LOGGER.info("New user password => " + password);
             this.emailService.sendEmail(firstName, password, email);
             return user;
@@ -101,21 +153,69 @@ public class UserServiceImpl implements UserService, UserDetailsService {
             return RandomStringUtils.randomNumeric(10);
         }
 
+        @Timed(value = SERVICE_METHOD_TIMER, histogram = true)
         @Override
+        @Transactional(readOnly = true)
         public List<User> getUsers() {
             return userRepository.findAll();
         }
 
+        @Timed(value = SERVICE_METHOD_TIMER, histogram = true)
+        @Override
+        @Transactional(readOnly = true)
+        public UserPage getUserPage(String cursor, int size, String sort, String direction) throws InvalidPageRequestException {
+            int pageSize = Math.min(Math.max(size, 1), MAXIMUM_PAGE_SIZE);
+            UserPageCursor pageCursor = cursor == null ? null : UserPageCursor.decode(cursor);
+            UserSortKey sortKey;
+            boolean ascending;
+            if (pageCursor != null) {
+                sortKey = pageCursor.getSortKey();
+                ascending = pageCursor.isAscending();
+            } else {
+                try {
+                    sortKey = UserSortKey.valueOf(sort.toUpperCase());
+                } catch (IllegalArgumentException exception) {
+                    throw new InvalidPageRequestException(INVALID_SORT_KEY + sort);
+                }
+                ascending = !"desc".equalsIgnoreCase(direction);
+            }
+            List<User> users = userRepository.findPage(sortKey, ascending, pageCursor, pageSize + 1);
+            String nextCursor = null;
+            if (users.size() > pageSize) {
+                users = users.subList(0, pageSize);
+                nextCursor = UserPageCursor.after(sortKey, ascending, users.get(pageSize - 1)).encode();
+            }
+            return new UserPage(users, pageSize, nextCursor);
+        }
+
+        @Timed(value = SERVICE_METHOD_TIMER, histogram = true)
         @Override
+        @Transactional(readOnly = true)
+        public void streamUsers(Consumer<User> consumer) {
+            try (Stream<User> users = userRepository.streamAllUsers()) {
+                users.forEach(user -> {
+                    consumer.accept(user);
+                    entityManager.detach(user);
+                });
+            }
+        }
+
+        // Only a cache miss starts a transaction, so a hit never checks out a connection.
+        @Timed(value = SERVICE_METHOD_TIMER, histogram = true)
+        @Override
+        @Transactional(propagation = Propagation.SUPPORTS)
         public User findUserByUsername(String username) {
-            return userRepository.findUserByUsername(username);
+            return userCache.getByUsername(username, () -> readOnlyTransaction.execute(status -> userRepository.findUserByUsername(username)));
         }
 
+        @Timed(value = SERVICE_METHOD_TIMER, histogram = true)
         @Override
+        @Transactional(propagation = Propagation.SUPPORTS)
         public User findUserByEmail(String email) {
-            return userRepository.findUserByEmail(email);
+            return userCache.getByEmail(email, () -> readOnlyTransaction.execute(status -> userRepository.findUserByEmail(email)));
         }
 
+        @Timed(value = SERVICE_METHOD_TIMER, histogram = true)
         @Override
         public User addNewUser(String firstName, String lastName, String username, String email, String role, boolean isNonLocked, boolean isActive, MultipartFile profileImage) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException, NotAnImageFileException {
             validateNewUserAndEmail(StringUtils.EMPTY, username, email);
@@ -132,14 +232,23 @@ public class UserServiceImpl implements UserService, UserDetailsService {
             user.setRole(getRoleEnumName(role).name());
             user.setAuthorities(getRoleEnumName(role).getAuthorities());
             user.setJoinDate(new Date());
-            this.userRepository.save(user);
+            saveUnique(user);
+            this.userExistenceFilter.addUser(username, email);
+            this.userSearchIndex.index(user);
             saveProfileImage(user, profileImage);
             return user;
         }
 
+        @Timed(value = SERVICE_METHOD_TIMER, histogram = true)
         @Override
         public User updateUser(String currentUsername, String newFirstName, String newLastName, String newUsername, String newEmail, String role, boolean isNonLocked, boolean isActive, MultipartFile profileImage) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException, NotAnImageFileException {
             User currentUser = validateNewUserAndEmail(currentUsername, newUsername, newEmail);
+            this.userCache.invalidate(currentUser.getId(), currentUser.getUsername(), currentUser.getEmail());
+            // Tokens carry the username and permissions, so they must not outlive a change to either or a lock.
+            if (!currentUser.getUsername().equals(newUsername) || !getRoleEnumName(role).name().equals(currentUser.getRole())
+                    || (currentUser.isActive() && !isActive) || (currentUser.isNotLocked() && !isNonLocked)) {
+                this.tokenRevocationService.revokeUser(currentUser.getUsername());
+            }
             currentUser.setFirstName(newFirstName);
             currentUser.setLastName(newLastName);
             currentUser.setUsername(newUsername);
@@ -148,18 +257,28 @@ public class UserServiceImpl implements UserService, UserDetailsService {
             currentUser.setActive(isActive);
             currentUser.setRole(getRoleEnumName(role).name());
             currentUser.setAuthorities(getRoleEnumName(role).getAuthorities());
-            this.userRepository.save(currentUser);
+            saveUnique(currentUser);
+            this.userExistenceFilter.addUser(newUsername, newEmail);
+            this.userSearchIndex.index(currentUser);
             saveProfileImage(currentUser, profileImage);
             return currentUser;
         }
 
+        @Timed(value = SERVICE_METHOD_TIMER, histogram = true)
         @Override
         public void deleteUser(Long id) {
+            this.userRepository.findById(id).ifPresent(user -> {
+                this.userCache.invalidate(id, user.getUsername(), user.getEmail());
+                this.tokenRevocationService.revokeUser(user.getUsername());
+                this.profileImageProcessor.forgetUploads(user.getUsername());
+            });
             this.userRepository.deleteById(id);
+            this.userSearchIndex.remove(id);
         }
 
+        @Timed(value = SERVICE_METHOD_TIMER, histogram = true)
         @Override
-        public void resetPassword(String email) throws EmailNotFoundException, MessagingException {
+        public void resetPassword(String email) throws EmailNotFoundException {
             User user = this.userRepository.findUserByEmail(email);
             if(user == null){
                 throw new EmailNotFoundException(USER_NOT_FOUND_BY_EMAIL);
@@ -167,12 +286,16 @@ public class UserServiceImpl implements UserService, UserDetailsService {
             String password = generatePassword();
             user.setPassword(encodePassword(password));
             userRepository.save(user);
+            this.userCache.invalidate(user.getId(), user.getUsername(), user.getEmail());
+            this.tokenRevocationService.revokeUser(user.getUsername());
             this.emailService.sendEmail(user.getFirstName(), password, email);
         }
 
+        @Timed(value = SERVICE_METHOD_TIMER, histogram = true)
         @Override
         public User updateProfileImage(String username, MultipartFile profileImage) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException, NotAnImageFileException {
             User user = validateNewUserAndEmail(username, null, null);
+            this.userCache.invalidate(user.getId(), user.getUsername(), user.getEmail());
             saveProfileImage(user, profileImage);
             return null;
         }
@@ -187,21 +310,21 @@ public class UserServiceImpl implements UserService, UserDetailsService {
                     Files.createDirectories(userFolder);
                     LOGGER.info(DIRECTORY_CREATED);
                 }
-                Files.deleteIfExists(Paths.get(userFolder + user.getUsername() + DOT + JPG_EXTENSION));
-                Files.copy(
-                        profileImage.getInputStream(),
-                        userFolder.resolve(user.getUsername() + DOT + JPG_EXTENSION),
-                        REPLACE_EXISTING
-                );
-                user.setProfileImageUrl(setProfileImageUrl(user.getUsername()));
+                Path original = userFolder.resolve(user.getUsername() + DOT + JPG_EXTENSION);
+                profileImageProcessor.deleteVariants(user.getUsername());
+                profileImageProcessor.saveOriginal(profileImage.getInputStream(), original);
+                profileImageProcessor.process(user.getUsername(), original);
+                String contentHash = profileImageService.getProfileImage(user.getUsername(), user.getUsername() + DOT + JPG_EXTENSION).getContentHash();
+                user.setProfileImageUrl(setProfileImageUrl(user.getUsername(), contentHash));
                 userRepository.save(user);
                 LOGGER.info(FILE_SAVED_IN_FILE_SYSTEM + profileImage.getOriginalFilename());
             }
         }
 
-        private String setProfileImageUrl(String username) {
+        private String setProfileImageUrl(String username, String contentHash) {
             return ServletUriComponentsBuilder.fromCurrentContextPath()
                     .path(USER_IMAGE_PATH + username + FORWARD_SLASH + username + DOT + JPG_EXTENSION)
+                    .queryParam(IMAGE_VERSION_PARAMETER, contentHash)
                     .toUriString();
         }
 
@@ -209,31 +332,65 @@ public class UserServiceImpl implements UserService, UserDetailsService {
             return Role.valueOf(role.toUpperCase());
         }
 
-        private User validateNewUserAndEmail(String currentUsername, String newUsername, String newEmail) throws UserNotFoundException, UsernameExistException, EmailExistException {
-            User userByUsername = findUserByUsername(newUsername);
-            User userByEmail = findUserByEmail(newEmail);
+        // Two requests can both pass validateNewUserAndEmail; the unique constraints decide between them.
+        private void saveUnique(User user) throws UsernameExistException, EmailExistException {
+            try {
+                userRepository.saveAndFlush(user);
+            } catch (DataIntegrityViolationException exception) {
+                String violation = String.valueOf(exception.getMostSpecificCause().getMessage()).toLowerCase(Locale.ROOT);
+                if (violation.contains(USERNAME_UNIQUE_CONSTRAINT)) {
+                    throw new UsernameExistException(USERNAME_ALREADY_EXIST);
+                }
+                if (violation.contains(EMAIL_UNIQUE_CONSTRAINT)) {
+                    throw new EmailExistException(EMAIL_ALREADY_EXIST);
+                }
+                throw exception;
+            }
+        }
 
+        private User validateNewUserAndEmail(String currentUsername, String newUsername, String newEmail) throws UserNotFoundException, UsernameExistException, EmailExistException {
+            User currentUser = null;
             if(StringUtils.isNotBlank(currentUsername)){
-                User currentUser = findUserByUsername(currentUsername);
+                // Writers start from the stored row rather than a cached copy.
+                currentUser = userRepository.findUserByUsername(currentUsername);
                 if (currentUser == null){
                     throw new UserNotFoundException(USER_NOT_FOUND_BY_USERNAME + currentUsername);
                 }
-                if(userByUsername != null && !currentUser.getId().equals(userByUsername.getId())){
-                    throw new UsernameExistException(USERNAME_ALREADY_EXIST);
-                }
-                if(userByEmail != null && !currentUser.getId().equals(userByEmail.getId())){
-                    throw new EmailExistException(EMAIL_ALREADY_EXIST);
-                }
+            }
+            // Names the filter rules out cannot exist, so only the remaining ones are queried, together.
+            String usernameToCheck = newUsername != null && userExistenceFilter.mightContainUsername(newUsername) ? newUsername : null;
+            String emailToCheck = newEmail != null && userExistenceFilter.mightContainEmail(newEmail) ? newEmail : null;
+            if(usernameToCheck == null && emailToCheck == null){
                 return currentUser;
-            }else{
-                if(userByUsername != null){
-                    throw new UsernameExistException(USERNAME_ALREADY_EXIST);
-                }
-                if(userByEmail != null){
-                    throw new EmailExistException(EMAIL_ALREADY_EXIST);
+            }
+            Long currentId = currentUser == null ? null : currentUser.getId();
+            boolean usernameFound = false;
+            boolean emailFound = false;
+            boolean usernameTaken = false;
+            boolean emailTaken = false;
+            for (UserIdentity identity : userRepository.findIdentitiesByUsernameOrEmail(usernameToCheck, emailToCheck)) {
+                boolean sameUsername = StringUtils.equalsIgnoreCase(identity.getUsername(), usernameToCheck);
+                boolean sameEmail = StringUtils.equalsIgnoreCase(identity.getEmail(), emailToCheck);
+                usernameFound |= sameUsername;
+                emailFound |= sameEmail;
+                if(!identity.getId().equals(currentId)){
+                    usernameTaken |= sameUsername;
+                    emailTaken |= sameEmail;
                 }
-                return null;
             }
+            if(usernameTaken){
+                throw new UsernameExistException(USERNAME_ALREADY_EXIST);
+            }
+            if(emailTaken){
+                throw new EmailExistException(EMAIL_ALREADY_EXIST);
+            }
+            if(usernameToCheck != null && !usernameFound){
+                userExistenceFilter.recordFalsePositive();
+            }
+            if(emailToCheck != null && !emailFound){
+                userExistenceFilter.recordFalsePositive();
+            }
+            return currentUser;
         }
 
         private void validateLoginAttempt(User user) throws ExecutionException {
@@ -0,0 +1,145 @@
+package dev.peacechan.usermanagement.utility;
+
+import dev.peacechan.usermanagement.exception.domain.PasswordHashingUnavailableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static dev.peacechan.usermanagement.constant.SecurityConstant.PASSWORD_HASHING_UNAVAILABLE;
+
+/**
+ * Runs a CPU-bound password encoder on a fixed pool with a bounded queue, so a burst of logins
+ * cannot occupy every request thread and core. When the queue is full the caller gets a
+ * {@link PasswordHashingUnavailableException} straight away instead of waiting. Bulk jobs use a
+ * separate, smaller lane through {@link #encodeAll}, so they neither take the interactive pool's
+ * places nor hash on their own threads.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final ThreadPoolExecutor bulkExecutor;
+    private final Semaphore bulkSlots;
+    private final Timer encodeQueueWait;
+    private final Timer matchesQueueWait;
+    private final Timer encodeDuration;
+    private final Timer matchesDuration;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, int bulkThreads, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hash-"));
+        // Producers wait for a slot, and a slot is freed before its thread takes the next task, so
+        // the queue has room for every slot and never rejects.
+        this.bulkSlots = new Semaphore(2 * bulkThreads);
+        this.bulkExecutor = new ThreadPoolExecutor(bulkThreads, bulkThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(2 * bulkThreads), new CustomizableThreadFactory("password-hash-bulk-"));
+        this.encodeQueueWait = queueWaitTimer(meterRegistry, "encode");
+        this.matchesQueueWait = queueWaitTimer(meterRegistry, "matches");
+        this.encodeDuration = durationTimer(meterRegistry, "encode");
+        this.matchesDuration = durationTimer(meterRegistry, "matches");
+        Gauge.builder("password.hash.queue.size", executor, e -> e.getQueue().size())
+                .description("Password operations waiting for a hashing thread").register(meterRegistry);
+        Gauge.builder("password.hash.bulk.queue.size", bulkExecutor, e -> e.getQueue().size())
+                .description("Bulk password hashes waiting for a bulk hashing thread").register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword), encodeQueueWait, encodeDuration);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> delegate.matches(rawPassword, encodedPassword), matchesQueueWait, matchesDuration);
+    }
+
+    /**
+     * Encodes a batch on the bulk lane. The caller blocks while the lane is full, so a bulk job
+     * runs at the lane's pace and never hashes on its own thread.
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        List<Future<String>> pending = new ArrayList<>(rawPasswords.size());
+        for (CharSequence rawPassword : rawPasswords) {
+            try {
+                bulkSlots.acquire();
+            } catch (InterruptedException exception) {
+                pending.forEach(result -> result.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(exception);
+            }
+            try {
+                pending.add(bulkExecutor.submit(() -> {
+                    try {
+                        return encodeDuration.recordCallable(() -> delegate.encode(rawPassword));
+                    } finally {
+                        bulkSlots.release();
+                    }
+                }));
+            } catch (RejectedExecutionException exception) {
+                bulkSlots.release();
+                pending.forEach(result -> result.cancel(true));
+                throw new PasswordHashingUnavailableException(PASSWORD_HASHING_UNAVAILABLE);
+            }
+        }
+        List<String> encoded = new ArrayList<>(pending.size());
+        for (Future<String> result : pending) {
+            encoded.add(await(result));
+        }
+        return encoded;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        bulkExecutor.shutdownNow();
+    }
+
+    private <T> T submit(Callable<T> operation, Timer queueWait, Timer duration) {
+        long submittedAt = System.nanoTime();
+        Future<T> result;
+        try {
+            result = executor.submit(() -> {
+                queueWait.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return duration.recordCallable(operation);
+            });
+        } catch (RejectedExecutionException exception) {
+            throw new PasswordHashingUnavailableException(PASSWORD_HASHING_UNAVAILABLE);
+        }
+        return await(result);
+    }
+
+    private <T> T await(Future<T> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException exception) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) exception.getCause();
+            }
+            throw new IllegalStateException(exception.getCause());
+        }
+    }
+
+    private Timer queueWaitTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("password.hash.queue.wait").description("Time spent waiting for a hashing thread")
+                .tag("operation", operation).register(meterRegistry);
+    }
+
+    private Timer durationTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("password.hash.duration").description("Time spent hashing or verifying a password")
+                .tag("operation", operation).register(meterRegistry);
+    }
+}
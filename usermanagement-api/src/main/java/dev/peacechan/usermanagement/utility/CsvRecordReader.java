@@ -0,0 +1,80 @@
+package dev.peacechan.usermanagement.utility;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads RFC 4180 records one at a time from a character stream, so a file of any size is
+ * parsed in constant memory. Quoted fields may contain separators, doubled quotes and line
+ * breaks. Blank lines are skipped.
+ */
+public class CsvRecordReader {
+    private static final int END_OF_STREAM = -1;
+    private final Reader reader;
+    private int pushedBack = Integer.MIN_VALUE;
+
+    public CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /** Returns the next record, or {@code null} at the end of the stream. */
+    public List<String> readRecord() throws IOException {
+        int character = read();
+        while (character == '\r' || character == '\n') {
+            character = read();
+        }
+        if (character == END_OF_STREAM) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (character == END_OF_STREAM) {
+                    throw new IOException("Unterminated quoted field");
+                }
+                if (character == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        character = next;
+                        continue;
+                    }
+                } else {
+                    field.append((char) character);
+                }
+            } else if (character == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (character == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (character == '\r' || character == '\n' || character == END_OF_STREAM) {
+                if (character == '\r') {
+                    int next = read();
+                    if (next != '\n') {
+                        pushedBack = next;
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) character);
+            }
+            character = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != Integer.MIN_VALUE) {
+            int character = pushedBack;
+            pushedBack = Integer.MIN_VALUE;
+            return character;
+        }
+        return reader.read();
+    }
+}
@@ -0,0 +1,78 @@
+package dev.peacechan.usermanagement.utility;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Encrypts email bodies while they wait in the outbox, since they carry generated passwords.
+ * Uses AES-GCM with the base64 key in {@code email.outbox.encryption-key}. The key is required and
+ * must be the same on every node, since any node may claim a row another node queued. Outside the
+ * {@code prod} profile a blank key is replaced by a random one for this process, which only suits a
+ * single node that never restarts with rows still queued.
+ */
+@Component
+public class EmailBodyCipher {
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final String PRODUCTION_PROFILE = "prod";
+    private final Logger LOGGER = LoggerFactory.getLogger(getClass());
+
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final SecretKey key;
+
+    public EmailBodyCipher(@Value("${email.outbox.encryption-key}") String encodedKey, Environment environment) throws GeneralSecurityException {
+        if (encodedKey.isBlank()) {
+            if (environment.acceptsProfiles(Profiles.of(PRODUCTION_PROFILE))) {
+                throw new IllegalStateException("email.outbox.encryption-key must be set to a base64 AES key shared by every node");
+            }
+            LOGGER.warn("email.outbox.encryption-key is blank; using a random key for this process only. Queued emails "
+                    + "cannot be sent by other nodes or after a restart. Set a shared key before running more than one node.");
+            KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+            keyGenerator.init(256);
+            this.key = keyGenerator.generateKey();
+            return;
+        }
+        byte[] keyBytes = Base64.getDecoder().decode(encodedKey.trim());
+        if (keyBytes.length != 16 && keyBytes.length != 24 && keyBytes.length != 32) {
+            throw new IllegalStateException("email.outbox.encryption-key must decode to 16, 24 or 32 bytes");
+        }
+        this.key = new SecretKeySpec(keyBytes, "AES");
+    }
+
+    public String encrypt(String plaintext) {
+        byte[] iv = new byte[IV_BYTES];
+        secureRandom.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            byte[] ciphertext = cipher.doFinal(plaintext.getBytes(UTF_8));
+            return Base64.getEncoder().encodeToString(ByteBuffer.allocate(iv.length + ciphertext.length).put(iv).put(ciphertext).array());
+        } catch (GeneralSecurityException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    public String decrypt(String encrypted) throws GeneralSecurityException {
+        byte[] bytes = Base64.getDecoder().decode(encrypted);
+        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, bytes, 0, IV_BYTES));
+        return new String(cipher.doFinal(bytes, IV_BYTES, bytes.length - IV_BYTES), UTF_8);
+    }
+}
@@ -0,0 +1,94 @@
+package dev.peacechan.usermanagement.utility;
+
+import dev.peacechan.usermanagement.enumeration.ExecutionMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates the threads for request handling, email delivery and image processing according to
+ * {@code execution.mode}. In {@link ExecutionMode#VIRTUAL} mode they are virtual threads. The
+ * API is looked up reflectively so the application still builds and runs on a JDK without it,
+ * in which case it falls back to platform threads with a warning.
+ */
+@Component
+public class ExecutionThreads {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExecutionThreads.class);
+
+    private final VirtualThreadApi virtualThreadApi;
+
+    public ExecutionThreads(@Value("${execution.mode}") ExecutionMode mode) {
+        this.virtualThreadApi = mode == ExecutionMode.VIRTUAL ? VirtualThreadApi.lookUp() : null;
+        LOGGER.info("Running blocking work on " + (isVirtual() ? "virtual" : "platform") + " threads");
+    }
+
+    public boolean isVirtual() {
+        return virtualThreadApi != null;
+    }
+
+    /** Returns a factory for threads named with the given prefix and a counter. */
+    public ThreadFactory threadFactory(String prefix) {
+        return isVirtual() ? virtualThreadApi.factory(prefix) : new CustomizableThreadFactory(prefix);
+    }
+
+    /** Returns an executor that starts a new virtual thread per task; only valid in virtual mode. */
+    public ExecutorService newThreadPerTaskExecutor(String prefix) {
+        if (!isVirtual()) {
+            throw new IllegalStateException("Thread-per-task executors are only used with virtual threads");
+        }
+        return virtualThreadApi.newThreadPerTaskExecutor(virtualThreadApi.factory(prefix));
+    }
+
+    private static class VirtualThreadApi {
+        private final Method ofVirtual;
+        private final Method name;
+        private final Method factory;
+        private final Method newThreadPerTaskExecutor;
+
+        private VirtualThreadApi() throws ReflectiveOperationException {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            this.ofVirtual = Thread.class.getMethod("ofVirtual");
+            this.name = builderClass.getMethod("name", String.class, long.class);
+            this.factory = builderClass.getMethod("factory");
+            this.newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        }
+
+        // Starts nothing but creates a thread, since on some JDKs the API exists but throws
+        // unless preview features are enabled.
+        static VirtualThreadApi lookUp() {
+            try {
+                VirtualThreadApi api = new VirtualThreadApi();
+                api.factory("probe-").newThread(() -> { });
+                return api;
+            } catch (ReflectiveOperationException | RuntimeException exception) {
+                LOGGER.warn("Virtual threads are not available on Java " + System.getProperty("java.version")
+                        + ", falling back to platform threads");
+                return null;
+            }
+        }
+
+        ThreadFactory factory(String prefix) {
+            try {
+                return (ThreadFactory) factory.invoke(name.invoke(ofVirtual.invoke(null), prefix, 0L));
+            } catch (IllegalAccessException | InvocationTargetException exception) {
+                throw new IllegalStateException("Cannot create virtual threads", exception);
+            }
+        }
+
+        ExecutorService newThreadPerTaskExecutor(ThreadFactory threadFactory) {
+            try {
+                return (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+            } catch (IllegalAccessException | InvocationTargetException exception) {
+                throw new IllegalStateException("Cannot create a virtual thread executor", exception);
+            }
+        }
+    }
+}
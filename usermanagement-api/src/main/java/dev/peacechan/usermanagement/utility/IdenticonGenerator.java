@@ -0,0 +1,53 @@
+package dev.peacechan.usermanagement.utility;
+
+import com.google.common.hash.Hashing;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static dev.peacechan.usermanagement.constant.FileConstant.JPG_EXTENSION;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Renders a deterministic 5x5, horizontally mirrored identicon for a seed such as a username,
+ * so default avatars can be produced locally without any network access.
+ */
+public class IdenticonGenerator {
+    private static final int GRID = 5;
+    private static final Color BACKGROUND = new Color(240, 240, 240);
+
+    private IdenticonGenerator() {
+    }
+
+    public static byte[] generate(String seed, int size) throws IOException {
+        byte[] hash = Hashing.sha256().hashString(seed, UTF_8).asBytes();
+        float hue = (hash[0] & 0xFF) / 255f;
+        Color foreground = Color.getHSBColor(hue, 0.55f, 0.75f);
+
+        int cell = size / (GRID + 1);
+        int margin = (size - cell * GRID) / 2;
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(BACKGROUND);
+            graphics.fillRect(0, 0, size, size);
+            graphics.setColor(foreground);
+            for (int row = 0; row < GRID; row++) {
+                for (int column = 0; column < (GRID + 1) / 2; column++) {
+                    if ((hash[1 + row * 3 + column] & 1) == 1) {
+                        graphics.fillRect(margin + column * cell, margin + row * cell, cell, cell);
+                        graphics.fillRect(margin + (GRID - 1 - column) * cell, margin + row * cell, cell, cell);
+                    }
+                }
+            }
+        } finally {
+            graphics.dispose();
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, JPG_EXTENSION, outputStream);
+        return outputStream.toByteArray();
+    }
+}
@@ -4,81 +4,120 @@ import com.auth0.jwt.JWT;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import dev.peacechan.usermanagement.domain.PermissionAuthenticationToken;
 import dev.peacechan.usermanagement.domain.UserPrincipal;
+import dev.peacechan.usermanagement.domain.VerifiedToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import javax.servlet.http.HttpServletRequest;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static com.auth0.jwt.algorithms.Algorithm.HMAC512;
+import static dev.peacechan.usermanagement.constant.MetricConstant.JWT_VERIFY_TIMER;
 import static dev.peacechan.usermanagement.constant.SecurityConstant.*;
-import static java.util.Arrays.stream;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MINUTES;
 
 @Component
 public class JwtTokenProvider {
-    @Value("${jwt.secret}")
-    private String secret;
-    public String generateJwtToken(UserPrincipal userPrincipal) {
-        String[] claims = getClaimsFromUser(userPrincipal);
-        return JWT.create().withIssuer(PEACE_CHAN_DEV).withAudience(PEACE_CHAN_ADMINISTRATION)
-                .withIssuedAt(new Date()).withSubject(userPrincipal.getUsername())
-                .withArrayClaim(AUTHORITIES, claims).withExpiresAt(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .sign(HMAC512(secret.getBytes()));
-    }
-    public List<GrantedAuthority> getAuthorities(String token) {
-        String[] claims = getClaimsFromToken(token);
-        return stream(claims).map(SimpleGrantedAuthority::new).collect(Collectors.toList());
-    }
-    public Authentication getAuthentication(String username, List<GrantedAuthority> authorities, HttpServletRequest request) {
-        UsernamePasswordAuthenticationToken userPasswordAuthToken = new
-                UsernamePasswordAuthenticationToken(username, null, authorities);
-        userPasswordAuthToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-        return userPasswordAuthToken;
-    }
+    private final Algorithm algorithm;
+    private final JWTVerifier verifier;
+    private final Cache<HashCode, VerifiedToken> verifiedTokenCache;
+    private final Timer cachedVerifyTimer;
+    private final Timer decodedVerifyTimer;
+    private final long accessTokenExpirationMillis;
 
-    public boolean isTokenValid(String username, String token) {
-        JWTVerifier verifier = getJWTVerifier();
-        return StringUtils.isNotEmpty(username) && !isTokenExpired(verifier, token);
+    public JwtTokenProvider(MeterRegistry meterRegistry,
+                            @Value("${jwt.secret}") String secret,
+                            @Value("${jwt.verified-token-cache.maximum-size}") long verifiedTokenCacheSize,
+                            @Value("${jwt.access-token.expiration-ms}") long accessTokenExpirationMillis) {
+        this.algorithm = HMAC512(secret.getBytes());
+        this.verifier = JWT.require(this.algorithm).withIssuer(PEACE_CHAN_DEV).build();
+        this.verifiedTokenCache = CacheBuilder.newBuilder()
+                .maximumSize(verifiedTokenCacheSize)
+                .expireAfterWrite(VERIFIED_TOKEN_CACHE_EXPIRATION_MINUTES, MINUTES)
+                .build();
+        this.cachedVerifyTimer = verifyTimer(meterRegistry, "hit");
+        this.decodedVerifyTimer = verifyTimer(meterRegistry, "miss");
+        this.accessTokenExpirationMillis = accessTokenExpirationMillis;
     }
 
-    public String getSubject(String token) {
-        JWTVerifier verifier = getJWTVerifier();
-        return verifier.verify(token).getSubject();
+    private static Timer verifyTimer(MeterRegistry meterRegistry, String cache) {
+        return Timer.builder(JWT_VERIFY_TIMER).description("Time to verify a token, by whether it was already verified")
+                .tag("cache", cache).publishPercentileHistogram().register(meterRegistry);
     }
 
-    private boolean isTokenExpired(JWTVerifier verifier, String token) {
-        Date expiration = verifier.verify(token).getExpiresAt();
-        return expiration.before(new Date());
-    }
-    private String[] getClaimsFromToken(String token) {
-        JWTVerifier verifier = getJWTVerifier();
-        return verifier.verify(token).getClaim(AUTHORITIES).asArray(String.class);
+    /**
+     * Issues a short-lived access token whose permissions are a single bitmask claim rather than
+     * an array of authority names. The token ID lets a single token be revoked.
+     */
+    public String generateJwtToken(UserPrincipal userPrincipal) {
+        long now = System.currentTimeMillis();
+        return JWT.create().withIssuer(PEACE_CHAN_DEV).withAudience(PEACE_CHAN_ADMINISTRATION)
+                .withJWTId(UUID.randomUUID().toString())
+                .withIssuedAt(new Date(now)).withSubject(userPrincipal.getUsername())
+                .withClaim(PERMISSIONS, userPrincipal.getPermissions()).withExpiresAt(new Date(now + this.accessTokenExpirationMillis))
+                .sign(this.algorithm);
     }
 
-    private JWTVerifier getJWTVerifier() {
-        JWTVerifier verifier;
+    /**
+     * Verifies the signature and expiry of the token once and returns everything the
+     * authorization filter needs. Tokens that already passed verification are served from
+     * a cache keyed by their SHA-256 digest until they expire.
+     */
+    public VerifiedToken verifyToken(String token) {
+        Timer.Sample sample = Timer.start();
+        HashCode digest = Hashing.sha256().hashString(token, UTF_8);
+        VerifiedToken verifiedToken = this.verifiedTokenCache.getIfPresent(digest);
+        if (verifiedToken != null) {
+            if (!verifiedToken.isExpired()) {
+                sample.stop(this.cachedVerifyTimer);
+                return verifiedToken;
+            }
+            this.verifiedTokenCache.invalidate(digest);
+        }
         try {
-            Algorithm algorithm = HMAC512(secret);
-            verifier = JWT.require(algorithm).withIssuer(PEACE_CHAN_DEV).build();
-        }catch (JWTVerificationException exception) {
-            throw new JWTVerificationException(TOKEN_CANNOT_BE_VERIFIED);
+            verifiedToken = decodeToken(token);
+        } finally {
+            sample.stop(this.decodedVerifyTimer);
         }
-        return verifier;
+        this.verifiedTokenCache.put(digest, verifiedToken);
+        return verifiedToken;
+    }
+
+    public Authentication getAuthentication(VerifiedToken verifiedToken, HttpServletRequest request) {
+        PermissionAuthenticationToken userPasswordAuthToken = new
+                PermissionAuthenticationToken(verifiedToken.getSubject(), verifiedToken.getPermissions());
+        userPasswordAuthToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        return userPasswordAuthToken;
     }
 
-    private String[] getClaimsFromUser(UserPrincipal user) {
-        List<String> authorities = new ArrayList<>();
-        for (GrantedAuthority grantedAuthority : user.getAuthorities()){
-            authorities.add(grantedAuthority.getAuthority());
+    private VerifiedToken decodeToken(String token) {
+        DecodedJWT decodedJWT = this.verifier.verify(token);
+        if (StringUtils.isEmpty(decodedJWT.getSubject()) || decodedJWT.getExpiresAt() == null) {
+            throw new JWTVerificationException(TOKEN_CANNOT_BE_VERIFIED);
+        }
+        // Revocations are only kept for one access-token lifetime, so a token that lives longer,
+        // or whose lifetime is unknown, would become usable again once they are dropped.
+        if (decodedJWT.getIssuedAt() == null || decodedJWT.getExpiresAt().getTime() - decodedJWT.getIssuedAt().getTime()
+                > this.accessTokenExpirationMillis + TOKEN_TIME_PRECISION_MILLIS) {
+            throw new JWTVerificationException(TOKEN_CANNOT_BE_VERIFIED);
+        }
+        Long permissions = decodedJWT.getClaim(PERMISSIONS).asLong();
+        if (permissions == null) {
+            throw new JWTVerificationException(TOKEN_CANNOT_BE_VERIFIED);
         }
-        return authorities.toArray(new String[0]);
+        return new VerifiedToken(decodedJWT.getSubject(), decodedJWT.getId(), decodedJWT.getIssuedAt(), decodedJWT.getExpiresAt(), permissions);
     }
 }
@@ -0,0 +1,25 @@
+package dev.peacechan.usermanagement.utility;
+
+import dev.peacechan.usermanagement.domain.PermissionAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+/**
+ * Permission checks for {@code @PreAuthorize}, e.g. {@code @permissionChecker.has(authentication, 'user:delete')}.
+ * Authentications from a token are tested against their mask; any other kind falls back to
+ * its authority list.
+ */
+@Component("permissionChecker")
+public class PermissionChecker {
+
+    public boolean has(Authentication authentication, String authority) {
+        long bit = PermissionRegistry.bitOf(authority);
+        if (authentication == null || bit == 0) {
+            return false;
+        }
+        long permissions = authentication instanceof PermissionAuthenticationToken
+                ? ((PermissionAuthenticationToken) authentication).getPermissions()
+                : PermissionRegistry.maskOfGranted(authentication.getAuthorities());
+        return (permissions & bit) != 0;
+    }
+}
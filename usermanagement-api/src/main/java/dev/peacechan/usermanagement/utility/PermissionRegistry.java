@@ -0,0 +1,72 @@
+package dev.peacechan.usermanagement.utility;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.*;
+
+import static dev.peacechan.usermanagement.constant.Authority.PERMISSION_BITS;
+
+/**
+ * Maps the authority strings in {@link dev.peacechan.usermanagement.constant.Authority} to bit
+ * positions. Every distinct permission mask has one shared, immutable authority list, so
+ * turning a mask back into authorities allocates nothing. Authorities without a bit are
+ * ignored.
+ */
+public final class PermissionRegistry {
+    private static final Map<String, Long> BITS = new HashMap<>();
+    private static final List<List<GrantedAuthority>> AUTHORITIES_BY_MASK;
+
+    static {
+        if (PERMISSION_BITS.length > 16) {
+            throw new IllegalStateException("Too many permissions for a precomputed mask table");
+        }
+        GrantedAuthority[] authorities = new GrantedAuthority[PERMISSION_BITS.length];
+        for (int bit = 0; bit < PERMISSION_BITS.length; bit++) {
+            BITS.put(PERMISSION_BITS[bit], 1L << bit);
+            authorities[bit] = new SimpleGrantedAuthority(PERMISSION_BITS[bit]);
+        }
+        List<List<GrantedAuthority>> byMask = new ArrayList<>(1 << PERMISSION_BITS.length);
+        for (int mask = 0; mask < 1 << PERMISSION_BITS.length; mask++) {
+            List<GrantedAuthority> granted = new ArrayList<>();
+            for (int bit = 0; bit < PERMISSION_BITS.length; bit++) {
+                if ((mask & 1 << bit) != 0) {
+                    granted.add(authorities[bit]);
+                }
+            }
+            byMask.add(List.copyOf(granted));
+        }
+        AUTHORITIES_BY_MASK = byMask;
+    }
+
+    private PermissionRegistry() {
+    }
+
+    /** Returns the bit of an authority, or 0 when it has none. */
+    public static long bitOf(String authority) {
+        Long bit = BITS.get(authority);
+        return bit == null ? 0 : bit;
+    }
+
+    public static long maskOf(Collection<String> authorities) {
+        long mask = 0;
+        if (authorities != null) {
+            for (String authority : authorities) {
+                mask |= bitOf(authority);
+            }
+        }
+        return mask;
+    }
+
+    public static long maskOfGranted(Collection<? extends GrantedAuthority> authorities) {
+        long mask = 0;
+        for (GrantedAuthority authority : authorities) {
+            mask |= bitOf(authority.getAuthority());
+        }
+        return mask;
+    }
+
+    public static List<GrantedAuthority> authoritiesOf(long mask) {
+        return AUTHORITIES_BY_MASK.get((int) (mask & (AUTHORITIES_BY_MASK.size() - 1)));
+    }
+}
@@ -0,0 +1,55 @@
+package dev.peacechan.usermanagement.utility;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limits how many virtual threads can be inside code that blocks while holding a monitor, such
+ * as the JDBC driver and the mail transport. A virtual thread blocked inside {@code synchronized}
+ * pins its carrier, so without a limit those sections could take every carrier and stall all
+ * other requests. Entries are reentrant per thread. With platform threads the guard does nothing.
+ */
+@Component
+public class PinningGuard {
+    private final Semaphore permits;
+    private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+    public PinningGuard(ExecutionThreads executionThreads, MeterRegistry meterRegistry,
+                        @Value("${execution.virtual.pinned-permits}") int pinnedPermits) {
+        if (!executionThreads.isVirtual()) {
+            this.permits = null;
+            return;
+        }
+        // 0 leaves one carrier free of pinned work, out of one per core by default.
+        int available = pinnedPermits > 0 ? pinnedPermits : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.permits = new Semaphore(available, true);
+        Gauge.builder("execution.pinning.permits.available", permits, Semaphore::availablePermits)
+                .description("Threads that may still enter sections that pin their carrier").register(meterRegistry);
+    }
+
+    public void enter() throws InterruptedException {
+        if (permits == null) {
+            return;
+        }
+        int[] held = depth.get();
+        if (held[0] == 0) {
+            permits.acquire();
+        }
+        held[0]++;
+    }
+
+    public void exit() {
+        if (permits == null) {
+            return;
+        }
+        int[] held = depth.get();
+        if (--held[0] == 0) {
+            depth.remove();
+            permits.release();
+        }
+    }
+}
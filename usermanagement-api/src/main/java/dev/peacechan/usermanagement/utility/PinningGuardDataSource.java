@@ -0,0 +1,98 @@
+package dev.peacechan.usermanagement.utility;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Predicate;
+
+/**
+ * Holds a {@link PinningGuard} entry only while a driver call that may block on the socket is
+ * running: every {@link Connection} method, statement execution, and {@link ResultSet#next()}
+ * and {@code close()}, which fetch and drain streamed rows. Between calls no permit is held,
+ * so an idle connection, or a streaming response waiting on a slow client, does not keep other
+ * threads out of the driver. Checking a connection out of the pool is not guarded either: a
+ * thread waiting for a free connection must not hold the permit the current holders need to
+ * finish and return theirs.
+ */
+public class PinningGuardDataSource extends DelegatingDataSource {
+    private final PinningGuard pinningGuard;
+
+    public PinningGuardDataSource(DataSource targetDataSource, PinningGuard pinningGuard) {
+        super(targetDataSource);
+        this.pinningGuard = pinningGuard;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return guarded(Connection.class, super.getConnection(), method -> true);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return guarded(Connection.class, super.getConnection(username, password), method -> true);
+    }
+
+    private void enter() throws SQLException {
+        try {
+            pinningGuard.enter();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting to use a database connection", exception);
+        }
+    }
+
+    private <T> T guarded(Class<T> type, T target, Predicate<Method> blocks) {
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                (proxy, method, arguments) -> wrap(method, blocks.test(method) ? invokeGuarded(target, method, arguments) : invoke(target, method, arguments))));
+    }
+
+    // Statements and result sets handed out by a guarded object are guarded in turn.
+    @SuppressWarnings("unchecked")
+    private Object wrap(Method method, Object result) {
+        Class<?> type = method.getReturnType();
+        if (result == null || !type.isInterface()) {
+            return result;
+        }
+        if (Statement.class.isAssignableFrom(type)) {
+            return guarded((Class<Object>) type, result, PinningGuardDataSource::statementBlocks);
+        }
+        if (ResultSet.class.equals(type)) {
+            return guarded(ResultSet.class, (ResultSet) result, PinningGuardDataSource::resultSetBlocks);
+        }
+        return result;
+    }
+
+    private Object invokeGuarded(Object target, Method method, Object[] arguments) throws Throwable {
+        enter();
+        try {
+            return invoke(target, method, arguments);
+        } finally {
+            pinningGuard.exit();
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] arguments) throws Throwable {
+        try {
+            return method.invoke(target, arguments);
+        } catch (InvocationTargetException exception) {
+            throw exception.getTargetException();
+        }
+    }
+
+    private static boolean statementBlocks(Method method) {
+        String name = method.getName();
+        return name.startsWith("execute") || name.equals("getMoreResults") || name.equals("cancel") || name.equals("close");
+    }
+
+    private static boolean resultSetBlocks(Method method) {
+        String name = method.getName();
+        return name.equals("next") || name.equals("close");
+    }
+}
@@ -0,0 +1,27 @@
+package dev.peacechan.usermanagement.utility;
+
+import dev.peacechan.usermanagement.enumeration.DataSourceRoute;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections for read-only transactions to the replica and everything else to the
+ * primary, unless the current user wrote recently (see {@link ReadYourWritesListener}). Must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, because the
+ * transaction is only marked read-only after the JPA transaction manager asks for a connection.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    private final ReadYourWritesWindow readYourWritesWindow;
+
+    public ReadWriteRoutingDataSource(ReadYourWritesWindow readYourWritesWindow) {
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return readYourWritesWindow.isPinned() ? DataSourceRoute.PRIMARY : DataSourceRoute.REPLICA;
+        }
+        return DataSourceRoute.PRIMARY;
+    }
+}
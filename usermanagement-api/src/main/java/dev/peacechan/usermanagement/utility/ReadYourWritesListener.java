@@ -0,0 +1,56 @@
+package dev.peacechan.usermanagement.utility;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Starts the read-your-writes window for the current user when a transaction actually inserts,
+ * updates or deletes an entity. Read-write transactions that only read, such as the lookups
+ * around a login, leave the user's reads on the replica. Writes issued with {@code JdbcTemplate}
+ * bypass Hibernate and do not pin.
+ */
+public class ReadYourWritesListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+    private final ReadYourWritesWindow readYourWritesWindow;
+
+    public ReadYourWritesListener(ReadYourWritesWindow readYourWritesWindow) {
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+
+    public void register(EntityManagerFactory entityManagerFactory) {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        readYourWritesWindow.recordWriteAfterCommit();
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        readYourWritesWindow.recordWriteAfterCommit();
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        readYourWritesWindow.recordWriteAfterCommit();
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+}
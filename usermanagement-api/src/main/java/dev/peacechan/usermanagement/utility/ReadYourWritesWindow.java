@@ -0,0 +1,74 @@
+package dev.peacechan.usermanagement.utility;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Remembers which authenticated users committed a write recently, so their reads can go to the
+ * primary until the replica has caught up with them. Requests without an authenticated user are
+ * never pinned.
+ */
+@Component
+public class ReadYourWritesWindow {
+    private static final int MAXIMUM_PINNED_USERS = 100_000;
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesWindow(@Value("${datasource.replica.read-your-writes-ms}") long windowMillis) {
+        this.recentWriters = CacheBuilder.newBuilder()
+                .maximumSize(MAXIMUM_PINNED_USERS)
+                .expireAfterWrite(windowMillis, MILLISECONDS)
+                .build();
+    }
+
+    /** Whether the current user wrote within the window. */
+    public boolean isPinned() {
+        String username = currentUsername();
+        return username != null && recentWriters.getIfPresent(username) != null;
+    }
+
+    /** Starts the window for the current user once the surrounding transaction commits. */
+    public void recordWriteAfterCommit() {
+        String username = currentUsername();
+        if (username == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        // Called for every row written; one synchronization per transaction is enough.
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof WindowStart) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new WindowStart(username));
+    }
+
+    private class WindowStart implements TransactionSynchronization {
+        private final String username;
+
+        private WindowStart(String username) {
+            this.username = username;
+        }
+
+        @Override
+        public void afterCommit() {
+            recentWriters.put(username, Boolean.TRUE);
+        }
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
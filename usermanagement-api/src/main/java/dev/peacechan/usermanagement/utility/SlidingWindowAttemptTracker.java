@@ -0,0 +1,182 @@
+package dev.peacechan.usermanagement.utility;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Counts attempts per key over a sliding window, approximated from the current and previous
+ * fixed windows weighted by how much of the previous one still overlaps. Each key costs a
+ * single {@link AtomicLong} packing the window number with both counts, so increments are
+ * lock-free CAS updates. The number of keys is bounded: when full, keys whose windows have
+ * passed are dropped first, then the lowest counts among a sample. Expired keys are swept at
+ * most once per window, and samples are taken by a cursor that restarts at a random offset on
+ * each pass, so eviction stays O(sample size) and reaches every part of the key space.
+ */
+public class SlidingWindowAttemptTracker {
+    private static final int COUNT_BITS = 16;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final int EVICTION_SAMPLE_SIZE = 32;
+    // ConcurrentHashMap node, AtomicLong and String headers on a 64-bit JVM with compressed oops.
+    private static final long ENTRY_OVERHEAD_BYTES = 32 + 16 + 24 + 16;
+
+    private final Map<String, AtomicLong> windows = new ConcurrentHashMap<>();
+    private final LongAdder keyBytes = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final long windowMillis;
+    private final int maximumKeys;
+    private final LongSupplier clock;
+    private final Object evictionLock = new Object();
+    private Iterator<Map.Entry<String, AtomicLong>> evictionCursor = Collections.emptyIterator();
+    private long lastSweptWindow = -1;
+
+    public SlidingWindowAttemptTracker(long windowMillis, int maximumKeys) {
+        this(windowMillis, maximumKeys, System::currentTimeMillis);
+    }
+
+    SlidingWindowAttemptTracker(long windowMillis, int maximumKeys, LongSupplier clock) {
+        this.windowMillis = windowMillis;
+        this.maximumKeys = maximumKeys;
+        this.clock = clock;
+    }
+
+    /** Records an attempt and returns the estimated number of attempts in the window. */
+    public double increment(String key) {
+        AtomicLong window = windows.get(key);
+        if (window == null) {
+            if (windows.size() >= maximumKeys) {
+                evict();
+            }
+            AtomicLong created = new AtomicLong();
+            window = windows.putIfAbsent(key, created);
+            if (window == null) {
+                window = created;
+                keyBytes.add(2L * key.length());
+            }
+        }
+        long now = clock.getAsLong();
+        long currentWindow = now / windowMillis;
+        long packed;
+        long updated;
+        do {
+            packed = window.get();
+            updated = advance(packed, currentWindow);
+            long current = updated & COUNT_MASK;
+            if (current < COUNT_MASK) {
+                updated++;
+            }
+        } while (!window.compareAndSet(packed, updated));
+        return estimate(updated, now);
+    }
+
+    public double count(String key) {
+        AtomicLong window = windows.get(key);
+        if (window == null) {
+            return 0;
+        }
+        long now = clock.getAsLong();
+        return estimate(advance(window.get(), now / windowMillis), now);
+    }
+
+    public void reset(String key) {
+        if (windows.remove(key) != null) {
+            keyBytes.add(-2L * key.length());
+        }
+    }
+
+    /** Drops every key that has no attempts left in the sliding window. */
+    public void removeExpired() {
+        long currentWindow = clock.getAsLong() / windowMillis;
+        for (Map.Entry<String, AtomicLong> entry : windows.entrySet()) {
+            if (windowOf(entry.getValue().get()) < currentWindow - 1 && windows.remove(entry.getKey(), entry.getValue())) {
+                keyBytes.add(-2L * entry.getKey().length());
+            }
+        }
+    }
+
+    public int size() {
+        return windows.size();
+    }
+
+    public long estimatedBytes() {
+        return windows.size() * ENTRY_OVERHEAD_BYTES + keyBytes.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private void evict() {
+        synchronized (evictionLock) {
+            long currentWindow = clock.getAsLong() / windowMillis;
+            // Keys only expire when the window moves on, so one sweep per window finds them all.
+            if (currentWindow != lastSweptWindow) {
+                lastSweptWindow = currentWindow;
+                removeExpired();
+            }
+            while (windows.size() >= maximumKeys) {
+                String victim = null;
+                long lowestCount = Long.MAX_VALUE;
+                for (int sampled = 0; sampled < EVICTION_SAMPLE_SIZE; sampled++) {
+                    Map.Entry<String, AtomicLong> entry = nextSample();
+                    if (entry == null) {
+                        break;
+                    }
+                    long packed = advance(entry.getValue().get(), currentWindow);
+                    long count = (packed & COUNT_MASK) + ((packed >>> COUNT_BITS) & COUNT_MASK);
+                    if (count < lowestCount) {
+                        lowestCount = count;
+                        victim = entry.getKey();
+                    }
+                }
+                if (victim == null) {
+                    return;
+                }
+                if (windows.remove(victim) != null) {
+                    keyBytes.add(-2L * victim.length());
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    // On average the skip to a random offset costs about as much as the samples read before the next wrap.
+    private Map.Entry<String, AtomicLong> nextSample() {
+        if (!evictionCursor.hasNext()) {
+            evictionCursor = windows.entrySet().iterator();
+            int skip = ThreadLocalRandom.current().nextInt(Math.max(1, windows.size()));
+            while (skip-- > 0 && evictionCursor.hasNext()) {
+                evictionCursor.next();
+            }
+            if (!evictionCursor.hasNext()) {
+                evictionCursor = windows.entrySet().iterator();
+            }
+        }
+        return evictionCursor.hasNext() ? evictionCursor.next() : null;
+    }
+
+    // Rolls the packed counts forward so the window number is the current one.
+    private long advance(long packed, long currentWindow) {
+        long window = windowOf(packed);
+        if (window == currentWindow) {
+            return packed;
+        }
+        long previous = window == currentWindow - 1 ? packed & COUNT_MASK : 0;
+        return (currentWindow << (2 * COUNT_BITS)) | (previous << COUNT_BITS);
+    }
+
+    private double estimate(long packed, long now) {
+        double elapsed = (double) (now % windowMillis) / windowMillis;
+        long previous = (packed >>> COUNT_BITS) & COUNT_MASK;
+        return (packed & COUNT_MASK) + previous * (1 - elapsed);
+    }
+
+    private long windowOf(long packed) {
+        return packed >>> (2 * COUNT_BITS);
+    }
+}
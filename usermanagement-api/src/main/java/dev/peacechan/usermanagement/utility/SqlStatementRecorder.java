@@ -0,0 +1,127 @@
+package dev.peacechan.usermanagement.utility;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.boot.Metadata;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Counts the SQL that Hibernate runs on the current thread while a recording is open: statements
+ * prepared (through the {@link StatementInspector}), entity rows loaded (through a post-load
+ * listener) and the time spent executing statements in the driver (through a session event
+ * listener). Statements issued with {@code JdbcTemplate} bypass Hibernate and are not counted.
+ */
+@Component
+public class SqlStatementRecorder implements StatementInspector, HibernatePropertiesCustomizer {
+    private static final ThreadLocal<Recording> CURRENT = new ThreadLocal<>();
+
+    /** Starts counting on this thread; the returned recording keeps counting until {@link #stop}. */
+    public Recording start() {
+        Recording recording = new Recording();
+        CURRENT.set(recording);
+        return recording;
+    }
+
+    public void stop() {
+        CURRENT.remove();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Recording recording = CURRENT.get();
+        if (recording != null) {
+            recording.statements++;
+        }
+        return sql;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+        hibernateProperties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, JdbcTimingListener.class.getName());
+        hibernateProperties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> Collections.singletonList(new RowCountingIntegrator()));
+    }
+
+    /** What one recording has counted so far. Only read it from the recording thread. */
+    public static final class Recording {
+        private int statements;
+        private long rows;
+        private long jdbcNanos;
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getJdbcNanos() {
+            return jdbcNanos;
+        }
+    }
+
+    /** Created by Hibernate for every session. */
+    public static class JdbcTimingListener extends BaseSessionEventListener {
+        private long executeStart = -1;
+        private long batchStart = -1;
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            executeStart = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            executeStart = addElapsed(executeStart);
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            batchStart = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            batchStart = addElapsed(batchStart);
+        }
+
+        private static long addElapsed(long start) {
+            Recording recording = CURRENT.get();
+            if (recording != null && start >= 0) {
+                recording.jdbcNanos += System.nanoTime() - start;
+            }
+            return -1;
+        }
+    }
+
+    private static class RowCountingIntegrator implements Integrator {
+        @Override
+        public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+            serviceRegistry.getService(EventListenerRegistry.class).appendListeners(EventType.POST_LOAD, (PostLoadEventListener) event -> {
+                Recording recording = CURRENT.get();
+                if (recording != null) {
+                    recording.rows++;
+                }
+            });
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        }
+    }
+}
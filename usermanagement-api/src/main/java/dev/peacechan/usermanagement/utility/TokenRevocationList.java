@@ -0,0 +1,50 @@
+package dev.peacechan.usermanagement.utility;
+
+import dev.peacechan.usermanagement.domain.VerifiedToken;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The in-memory view of revoked access tokens that the authorization filters consult on every
+ * request: token IDs revoked one by one (logout) and per-user "not before" times (role changes,
+ * deletion, password resets). A check is two hash lookups and never touches the database.
+ * Entries are only needed until the tokens they cover would have expired anyway.
+ */
+@Component
+public class TokenRevocationList {
+    private final Map<String, Long> revokedTokenExpiry = new ConcurrentHashMap<>();
+    private final Map<String, Long> notBeforeByUsername = new ConcurrentHashMap<>();
+
+    public boolean isRevoked(VerifiedToken verifiedToken) {
+        if (verifiedToken.getTokenId() != null && revokedTokenExpiry.containsKey(verifiedToken.getTokenId())) {
+            return true;
+        }
+        Long notBefore = notBeforeByUsername.get(verifiedToken.getSubject());
+        // Issue times have second precision, so a token from the same second as the revocation is refused too.
+        return notBefore != null && verifiedToken.getIssuedAtMillis() < notBefore;
+    }
+
+    public void revokeToken(String tokenId, long expiresAtMillis) {
+        revokedTokenExpiry.merge(tokenId, expiresAtMillis, Math::max);
+    }
+
+    public void revokeUser(String username, long notBeforeMillis) {
+        notBeforeByUsername.merge(username, notBeforeMillis, Math::max);
+    }
+
+    /** Drops token IDs that expired and "not before" times older than the given cutoff. */
+    public void removeExpired(long nowMillis, long notBeforeCutoffMillis) {
+        revokedTokenExpiry.values().removeIf(expiresAt -> expiresAt <= nowMillis);
+        notBeforeByUsername.values().removeIf(notBefore -> notBefore < notBeforeCutoffMillis);
+    }
+
+    public int revokedTokenCount() {
+        return revokedTokenExpiry.size();
+    }
+
+    public int revokedUserCount() {
+        return notBeforeByUsername.size();
+    }
+}
@@ -0,0 +1,61 @@
+package dev.peacechan.usermanagement;
+
+import dev.peacechan.usermanagement.enumeration.Role;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes active, unlocked test users and the authorities of their role straight to a database,
+ * so a test's setup does not run through the services it exercises, and removes them again.
+ */
+public final class UserFixtures {
+    private static final String INSERT_USER = "insert into user (id, user_id, username, email, password, role, is_active, is_not_locked, join_date) "
+            + "values (?, ?, ?, ?, ?, ?, true, true, ?)";
+    private static final String INSERT_AUTHORITY = "insert into user_authorities (user_id, authorities) values (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserFixtures(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Inserts a user with the email {@code <username>@example.com} and no password. */
+    public void insertUser(long id, String username, Role role) {
+        insertUser(id, username, username + "@example.com", role, null);
+    }
+
+    public void insertUser(long id, String username, String email, Role role, String encodedPassword) {
+        insertUser(id, username, email, role, encodedPassword, null);
+    }
+
+    public void insertUser(long id, String username, String email, Role role, String encodedPassword, Instant joinDate) {
+        jdbcTemplate.update(INSERT_USER, id, String.valueOf(id), username, email, encodedPassword, role.name(),
+                joinDate == null ? null : Timestamp.from(joinDate));
+        for (String authority : role.getAuthorities()) {
+            jdbcTemplate.update(INSERT_AUTHORITY, id, authority);
+        }
+    }
+
+    /** Batch-inserts users {@code user<id>} for ids {@code fromId} to {@code toId}, both inclusive. */
+    public void insertUsers(long fromId, long toId, Role role) {
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> authorities = new ArrayList<>();
+        for (long id = fromId; id <= toId; id++) {
+            users.add(new Object[]{id, String.valueOf(id), "user" + id, "user" + id + "@example.com", null, role.name(), null});
+            for (String authority : role.getAuthorities()) {
+                authorities.add(new Object[]{id, authority});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_USER, users);
+        jdbcTemplate.batchUpdate(INSERT_AUTHORITY, authorities);
+    }
+
+    public void deleteUsers() {
+        jdbcTemplate.update("delete from user_authorities");
+        jdbcTemplate.update("delete from user");
+    }
+}
@@ -0,0 +1,46 @@
+package dev.peacechan.usermanagement.configuration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.web.server.LocalManagementPort;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementServerProperties;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMetrics
+@ActiveProfiles("test")
+class ActuatorSecurityTest {
+
+    @LocalServerPort
+    private int serverPort;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ManagementServerProperties managementServerProperties;
+
+    @Test
+    void prometheusIsOnlyServedOnTheManagementPort() {
+        assertNotEquals(serverPort, managementPort);
+        assertEquals(HttpStatus.OK, restTemplate.getForEntity("http://localhost:" + managementPort + "/actuator/prometheus", String.class).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, restTemplate.getForEntity("http://localhost:" + serverPort + "/actuator/prometheus", String.class).getStatusCode());
+    }
+
+    @Test
+    void managementPortOnlyListensOnLoopback() {
+        assertTrue(managementServerProperties.getAddress().isLoopbackAddress());
+    }
+}
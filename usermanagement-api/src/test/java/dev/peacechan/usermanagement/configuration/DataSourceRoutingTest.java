@@ -0,0 +1,168 @@
+package dev.peacechan.usermanagement.configuration;
+
+import com.auth0.jwt.JWT;
+import dev.peacechan.usermanagement.UserFixtures;
+import dev.peacechan.usermanagement.domain.User;
+import dev.peacechan.usermanagement.enumeration.Role;
+import dev.peacechan.usermanagement.repository.UserRepository;
+import dev.peacechan.usermanagement.service.UserCache;
+import dev.peacechan.usermanagement.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static dev.peacechan.usermanagement.constant.SecurityConstant.JWT_TOKEN_HEADER;
+import static dev.peacechan.usermanagement.constant.SecurityConstant.PERMISSIONS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "email.outbox.poll-interval-ms=3600000",
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "datasource.replica.url=" + DataSourceRoutingTest.REPLICA_URL,
+        "datasource.replica.username=sa",
+        "datasource.replica.password=",
+        "datasource.replica.maximum-pool-size=2",
+        // Without a session held open for the request, each transaction picks its own data source.
+        "spring.jpa.open-in-view=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class DataSourceRoutingTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private UserService userService;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+    private final UserFixtures replicaUsers = new UserFixtures(replica);
+    private UserFixtures primaryUsers;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        // The replica gets the primary's schema but none of its rows.
+        if (replica.queryForObject("select count(*) from information_schema.tables where table_name = 'USER'", Integer.class) == 0) {
+            for (String statement : jdbcTemplate.queryForList("script nodata", String.class)) {
+                replica.execute(statement);
+            }
+        }
+        primaryUsers = new UserFixtures(jdbcTemplate);
+        replicaUsers.insertUser(1, "replica-only", Role.ROLE_USER);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        primaryUsers.deleteUsers();
+        replicaUsers.deleteUsers();
+    }
+
+    @Test
+    void readOnlyTransactionsUseReplica() {
+        assertNotNull(readOnly.execute(status -> userRepository.findUserByUsername("replica-only")));
+        assertNull(readWrite.execute(status -> userRepository.findUserByUsername("replica-only")));
+    }
+
+    @Test
+    void writerReadsFromPrimaryUntilWindowCloses() {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("writer", null));
+        readWrite.executeWithoutResult(status -> userRepository.save(newUser("written")));
+
+        assertNotNull(readOnly.execute(status -> userRepository.findUserByUsername("written")));
+        assertNull(readOnly.execute(status -> userRepository.findUserByUsername("replica-only")));
+
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("reader", null));
+        assertNull(readOnly.execute(status -> userRepository.findUserByUsername("written")));
+        assertNotNull(readOnly.execute(status -> userRepository.findUserByUsername("replica-only")));
+    }
+
+    @Test
+    void readWriteTransactionsThatWriteNothingDoNotPin() {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("looker", null));
+        readWrite.executeWithoutResult(status -> userRepository.findUserByUsername("replica-only"));
+
+        assertNotNull(readOnly.execute(status -> userRepository.findUserByUsername("replica-only")));
+    }
+
+    @Test
+    void loginSignsTheTokenFromThePrimaryRow() throws Exception {
+        // The replica still has the role the user held before an admin lowered it on the primary.
+        primaryUsers.insertUser(2, "demoted", "demoted@example.com", Role.ROLE_USER, passwordEncoder.encode("secret-password"));
+        replicaUsers.insertUser(2, "demoted", "demoted@example.com", Role.ROLE_SUPER_ADMIN, passwordEncoder.encode("secret-password"));
+        userCache.invalidate(2L, "demoted", "demoted@example.com");
+
+        String token = mockMvc.perform(post("/user/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"demoted\",\"password\":\"secret-password\"}"))
+                .andExpect(status().isOk()).andReturn().getResponse().getHeader(JWT_TOKEN_HEADER);
+
+        assertEquals(Role.ROLE_USER.getPermissions(), JWT.decode(token).getClaim(PERMISSIONS).asLong());
+    }
+
+    @Test
+    void cachedLookupsReadTheReplicaOnlyOnAMiss() {
+        try {
+            assertNotNull(userService.findUserByUsername("replica-only"));
+
+            replicaUsers.deleteUsers();
+            assertNotNull(userService.findUserByUsername("replica-only"));
+        } finally {
+            userCache.invalidate(1L, "replica-only", "replica-only@example.com");
+        }
+    }
+
+    @Test
+    void readOnlyTransactionsDoNotFlush() {
+        readOnly.executeWithoutResult(status -> userRepository.findUserByUsername("replica-only").setFirstName("changed"));
+
+        assertNull(replica.queryForObject("select first_name from user where username = 'replica-only'", String.class));
+    }
+
+    private static User newUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setRole(Role.ROLE_USER.name());
+        user.setActive(true);
+        user.setNotLocked(true);
+        return user;
+    }
+}
@@ -0,0 +1,44 @@
+package dev.peacechan.usermanagement.domain;
+
+import dev.peacechan.usermanagement.enumeration.UserSortKey;
+import dev.peacechan.usermanagement.exception.domain.InvalidPageRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserPageCursorTest {
+
+    @Test
+    void cursorsSurviveARoundTrip() throws Exception {
+        UserPageCursor decoded = UserPageCursor.decode(new UserPageCursor(UserSortKey.EMAIL, false, 42L, "a|b@example.com").encode());
+
+        assertEquals(UserSortKey.EMAIL, decoded.getSortKey());
+        assertFalse(decoded.isAscending());
+        assertEquals(42L, decoded.getLastId());
+        assertEquals("a|b@example.com", decoded.getLastValue());
+    }
+
+    @Test
+    void nullSortValuesStayDistinctFromTheStringNull() throws Exception {
+        assertNull(UserPageCursor.decode(new UserPageCursor(UserSortKey.EMAIL, true, 7L, null).encode()).getLastValue());
+        assertEquals("null", UserPageCursor.decode(new UserPageCursor(UserSortKey.EMAIL, true, 7L, "null").encode()).getLastValue());
+        assertEquals("", UserPageCursor.decode(new UserPageCursor(UserSortKey.EMAIL, true, 7L, "").encode()).getLastValue());
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        assertThrows(InvalidPageRequestException.class, () -> UserPageCursor.decode("not base64!"));
+        assertThrows(InvalidPageRequestException.class, () -> UserPageCursor.decode(encode("EMAIL|A|7")));
+        assertThrows(InvalidPageRequestException.class, () -> UserPageCursor.decode(encode("EMAIL|X|7|Va")));
+        assertThrows(InvalidPageRequestException.class, () -> UserPageCursor.decode(encode("PASSWORD|A|7|Va")));
+        assertThrows(InvalidPageRequestException.class, () -> UserPageCursor.decode(encode("EMAIL|A|seven|Va")));
+        assertThrows(InvalidPageRequestException.class, () -> UserPageCursor.decode(encode("EMAIL|A|7|null")));
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(UTF_8));
+    }
+}
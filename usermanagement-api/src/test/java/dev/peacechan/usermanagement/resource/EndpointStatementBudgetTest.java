@@ -0,0 +1,68 @@
+package dev.peacechan.usermanagement.resource;
+
+import dev.peacechan.usermanagement.UserFixtures;
+import dev.peacechan.usermanagement.enumeration.Role;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static dev.peacechan.usermanagement.resource.SqlStatementBudget.sqlStatements;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class EndpointStatementBudgetTest {
+    private static final String USERNAME = "budget-user";
+    private static final String PASSWORD = "secret-password";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private UserFixtures users;
+
+    @BeforeEach
+    void insertUser() {
+        users = new UserFixtures(jdbcTemplate);
+        users.insertUser(1, USERNAME, "budget-user@example.com", Role.ROLE_HR, passwordEncoder.encode(PASSWORD));
+    }
+
+    @AfterEach
+    void deleteUsers() {
+        jdbcTemplate.update("delete from refresh_token");
+        users.deleteUsers();
+    }
+
+    @Test
+    void login() throws Exception {
+        mockMvc.perform(post("/user/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + USERNAME + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatements().atMost(2));
+    }
+
+    @Test
+    @WithMockUser
+    void findUser() throws Exception {
+        mockMvc.perform(get("/user/find/{username}", USERNAME))
+                .andExpect(status().isOk())
+                .andExpect(sqlStatements().atMost(1));
+    }
+}
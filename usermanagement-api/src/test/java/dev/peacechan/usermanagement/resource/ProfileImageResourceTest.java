@@ -0,0 +1,187 @@
+package dev.peacechan.usermanagement.resource;
+
+import dev.peacechan.usermanagement.service.ProfileImageProcessor;
+import org.apache.catalina.Globals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static dev.peacechan.usermanagement.constant.FileConstant.USER_FOLDER;
+import static dev.peacechan.usermanagement.constant.FileConstant.VERSIONED_IMAGE_MAX_AGE_DAYS;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Images over 16 bytes are served from disk rather than the in-memory cache.
+@SpringBootTest(properties = "profile-image.cache.maximum-entry-bytes=16")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProfileImageResourceTest {
+    private static final String USERNAME = "image-user";
+    private static final String ORIGINAL = USERNAME + ".jpg";
+    private static final String IMAGE_URL = "/user/image/{username}/{fileName}";
+    private static final String VERSIONED = CacheControl.maxAge(VERSIONED_IMAGE_MAX_AGE_DAYS, TimeUnit.DAYS).cachePublic().getHeaderValue();
+    private static final String UNVERSIONED = CacheControl.noCache().cachePublic().getHeaderValue();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final Path folder = Paths.get(USER_FOLDER + USERNAME);
+    private final byte[] original = bytes(64, 1);
+
+    @BeforeEach
+    void writeOriginal() throws IOException {
+        Files.createDirectories(folder);
+        Files.write(folder.resolve(ORIGINAL), original);
+    }
+
+    @AfterEach
+    void deleteImages() throws IOException {
+        try (Stream<Path> files = Files.walk(folder)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void matchingETagsAreAnsweredWithNotModified() throws Exception {
+        String eTag = eTagOf(ORIGINAL);
+
+        mockMvc.perform(get(IMAGE_URL, USERNAME, ORIGINAL).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().bytes(new byte[0]));
+        mockMvc.perform(get(IMAGE_URL, USERNAME, ORIGINAL).header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(original));
+    }
+
+    @Test
+    void rangesAreServedForFilesAndCachedImages() throws Exception {
+        mockMvc.perform(get(IMAGE_URL, USERNAME, ORIGINAL).header(HttpHeaders.RANGE, "bytes=4-7"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 4-7/64"))
+                .andExpect(content().bytes(Arrays.copyOfRange(original, 4, 8)));
+
+        Files.write(folder.resolve("small.jpg"), bytes(8, 2));
+        mockMvc.perform(get(IMAGE_URL, USERNAME, "small.jpg").header(HttpHeaders.RANGE, "bytes=0-1"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-1/8"))
+                .andExpect(content().bytes(Arrays.copyOfRange(bytes(8, 2), 0, 2)));
+    }
+
+    @Test
+    void plainRequestsAreHandedToSendfile() throws Exception {
+        MvcResult result = mockMvc.perform(get(IMAGE_URL, USERNAME, ORIGINAL).requestAttr(Globals.SENDFILE_SUPPORTED_ATTR, true))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, original.length))
+                .andExpect(content().bytes(new byte[0]))
+                .andReturn();
+
+        assertEquals(folder.resolve(ORIGINAL).toAbsolutePath().normalize().toString(),
+                result.getRequest().getAttribute(Globals.SENDFILE_FILENAME_ATTR));
+        assertEquals(0L, result.getRequest().getAttribute(Globals.SENDFILE_FILE_START_ATTR));
+        assertEquals((long) original.length, result.getRequest().getAttribute(Globals.SENDFILE_FILE_END_ATTR));
+    }
+
+    @Test
+    void conditionalAndRangeRequestsBypassSendfile() throws Exception {
+        String eTag = eTagOf(ORIGINAL);
+        String lastModified = mockMvc.perform(get(IMAGE_URL, USERNAME, ORIGINAL))
+                .andReturn().getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+        MvcResult range = mockMvc.perform(get(IMAGE_URL, USERNAME, ORIGINAL)
+                        .requestAttr(Globals.SENDFILE_SUPPORTED_ATTR, true).header(HttpHeaders.RANGE, "bytes=0-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(original, 0, 4)))
+                .andReturn();
+        MvcResult ifNoneMatch = mockMvc.perform(get(IMAGE_URL, USERNAME, ORIGINAL)
+                        .requestAttr(Globals.SENDFILE_SUPPORTED_ATTR, true).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andReturn();
+        MvcResult ifModifiedSince = mockMvc.perform(get(IMAGE_URL, USERNAME, ORIGINAL)
+                        .requestAttr(Globals.SENDFILE_SUPPORTED_ATTR, true).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified())
+                .andReturn();
+
+        for (MvcResult result : new MvcResult[]{range, ifNoneMatch, ifModifiedSince}) {
+            assertNull(result.getRequest().getAttribute(Globals.SENDFILE_FILENAME_ATTR));
+        }
+    }
+
+    @Test
+    void onlyUrlsCarryingTheCurrentVersionAreCachedForLong() throws Exception {
+        String version = unquote(eTagOf(ORIGINAL));
+
+        mockMvc.perform(get(IMAGE_URL, USERNAME, ORIGINAL).param("v", version))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, VERSIONED));
+        mockMvc.perform(get(IMAGE_URL, USERNAME, ORIGINAL))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, UNVERSIONED));
+        mockMvc.perform(get(IMAGE_URL, USERNAME, ORIGINAL).param("v", "outdated"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, UNVERSIONED));
+    }
+
+    @Test
+    void sizedRequestsFallBackToTheOriginalUntilTheVariantExists() throws Exception {
+        String version = unquote(eTagOf(ORIGINAL));
+
+        mockMvc.perform(get(IMAGE_URL, USERNAME, ORIGINAL).param("v", version).param("size", "100"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, UNVERSIONED))
+                .andExpect(content().bytes(original));
+
+        byte[] variant = bytes(32, 3);
+        Files.write(folder.resolve(ProfileImageProcessor.variantFileName(USERNAME, 128)), variant);
+        mockMvc.perform(get(IMAGE_URL, USERNAME, ORIGINAL).param("v", version).param("size", "100"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, VERSIONED))
+                .andExpect(content().bytes(variant));
+    }
+
+    @Test
+    void nonNumericSizesAreRejected() throws Exception {
+        mockMvc.perform(get(IMAGE_URL, USERNAME, ORIGINAL).param("size", "abc"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String eTagOf(String fileName) throws Exception {
+        MvcResult result = mockMvc.perform(get(IMAGE_URL, USERNAME, fileName)).andExpect(status().isOk()).andReturn();
+        assertArrayEquals(Files.readAllBytes(folder.resolve(fileName)), result.getResponse().getContentAsByteArray());
+        return result.getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private static String unquote(String eTag) {
+        return eTag.substring(1, eTag.length() - 1);
+    }
+
+    private static byte[] bytes(int length, int seed) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (seed * 31 + i);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,149 @@
+package dev.peacechan.usermanagement.resource;
+
+import dev.peacechan.usermanagement.UserFixtures;
+import dev.peacechan.usermanagement.domain.User;
+import dev.peacechan.usermanagement.domain.UserPrincipal;
+import dev.peacechan.usermanagement.enumeration.Role;
+import dev.peacechan.usermanagement.utility.JwtTokenProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.netty.DisposableServer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static dev.peacechan.usermanagement.constant.FileConstant.USER_FOLDER;
+import static dev.peacechan.usermanagement.constant.SecurityConstant.TOKEN_PREFIX;
+
+@SpringBootTest(properties = {
+        "email.outbox.poll-interval-ms=3600000",
+        "spring.datasource.url=jdbc:h2:mem:reactive;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "reactive.enabled=true",
+        "reactive.port=0",
+        "reactive.r2dbc.url=r2dbc:h2:mem:///reactive",
+        "reactive.r2dbc.username=sa",
+        "reactive.r2dbc.password="
+})
+@ActiveProfiles("test")
+class ReactiveUserApiTest {
+    private static final String USERNAME = "reactive-user";
+
+    @Autowired
+    private DisposableServer reactiveServer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    private WebTestClient client;
+    private String token;
+    private UserFixtures users;
+
+    @BeforeEach
+    void setUp() {
+        client = WebTestClient.bindToServer().baseUrl("http://localhost:" + reactiveServer.port()).build();
+        users = new UserFixtures(jdbcTemplate);
+        for (long id = 1; id <= 3; id++) {
+            users.insertUser(id, id == 1 ? USERNAME : "reactive-user-" + id, Role.ROLE_HR);
+        }
+        User user = new User();
+        user.setUsername(USERNAME);
+        user.setPassword("unused");
+        user.setRole(Role.ROLE_HR.name());
+        user.setAuthorities(Role.ROLE_HR.getAuthorities());
+        user.setActive(true);
+        user.setNotLocked(true);
+        token = TOKEN_PREFIX + jwtTokenProvider.generateJwtToken(new UserPrincipal(user));
+    }
+
+    @AfterEach
+    void deleteUsers() {
+        users.deleteUsers();
+    }
+
+    @Test
+    void findsUserWithAuthorities() {
+        client.get().uri("/user/find/{username}", USERNAME).header(HttpHeaders.AUTHORIZATION, token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.username").isEqualTo(USERNAME)
+                .jsonPath("$.authorities.length()").isEqualTo(2)
+                .jsonPath("$.password").doesNotExist();
+    }
+
+    @Test
+    void listsUsersInIdOrder() {
+        client.get().uri("/user/list").header(HttpHeaders.AUTHORIZATION, token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(3)
+                .jsonPath("$[0].username").isEqualTo(USERNAME)
+                .jsonPath("$[2].authorities.length()").isEqualTo(2);
+    }
+
+    @Test
+    void rejectsRequestsWithoutToken() {
+        client.get().uri("/user/list").exchange().expectStatus().isForbidden();
+    }
+
+    @Test
+    void servesProfileImageWithETag() throws IOException {
+        Path folder = Paths.get(USER_FOLDER + USERNAME);
+        Files.createDirectories(folder);
+        Files.write(folder.resolve(USERNAME + ".jpg"), new byte[]{1, 2, 3});
+        try {
+            String eTag = client.get().uri("/user/image/{username}/{fileName}", USERNAME, USERNAME + ".jpg")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentType(MediaType.IMAGE_JPEG)
+                    .expectBody(byte[].class).isEqualTo(new byte[]{1, 2, 3})
+                    .returnResult().getResponseHeaders().getETag();
+            client.get().uri("/user/image/{username}/{fileName}", USERNAME, USERNAME + ".jpg")
+                    .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                    .exchange()
+                    .expectStatus().isNotModified();
+        } finally {
+            Files.deleteIfExists(folder.resolve(USERNAME + ".jpg"));
+            Files.deleteIfExists(folder);
+        }
+    }
+
+    @Test
+    void rejectsNonNumericImageSize() {
+        client.get().uri("/user/image/{username}/{fileName}?size=abc", USERNAME, USERNAME + ".jpg")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void servesTheOriginalUncachedWhileVariantsAreMissing() throws IOException {
+        Path folder = Paths.get(USER_FOLDER + USERNAME);
+        Files.createDirectories(folder);
+        Files.write(folder.resolve(USERNAME + ".jpg"), new byte[]{1, 2, 3});
+        try {
+            client.get().uri("/user/image/{username}/{fileName}?size=64", USERNAME, USERNAME + ".jpg")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().cacheControl(CacheControl.noCache().cachePublic())
+                    .expectBody(byte[].class).isEqualTo(new byte[]{1, 2, 3});
+        } finally {
+            Files.deleteIfExists(folder.resolve(USERNAME + ".jpg"));
+            Files.deleteIfExists(folder);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package dev.peacechan.usermanagement.resource;
+
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static dev.peacechan.usermanagement.constant.MetricConstant.SQL_STATEMENTS_HEADER;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MockMvc matchers over the {@code X-Sql-Statements} header, for pinning how many statements an
+ * endpoint may run: {@code .andExpect(sqlStatements().atMost(2))}.
+ */
+final class SqlStatementBudget {
+    private static final Pattern STATEMENTS = Pattern.compile("statements=(\\d+)");
+
+    private SqlStatementBudget() {
+    }
+
+    static SqlStatementBudget sqlStatements() {
+        return new SqlStatementBudget();
+    }
+
+    ResultMatcher atMost(int maximum) {
+        return result -> assertTrue(statementsOf(result) <= maximum,
+                () -> "Expected at most " + maximum + " SQL statements but got " + result.getResponse().getHeader(SQL_STATEMENTS_HEADER));
+    }
+
+    static int statementsOf(MvcResult result) {
+        String header = result.getResponse().getHeader(SQL_STATEMENTS_HEADER);
+        assertNotNull(header, "No " + SQL_STATEMENTS_HEADER + " header on the response");
+        Matcher matcher = STATEMENTS.matcher(header);
+        assertTrue(matcher.find(), "Unreadable " + SQL_STATEMENTS_HEADER + " header: " + header);
+        return Integer.parseInt(matcher.group(1));
+    }
+}
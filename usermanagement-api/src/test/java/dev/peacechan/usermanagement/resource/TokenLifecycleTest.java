@@ -0,0 +1,143 @@
+package dev.peacechan.usermanagement.resource;
+
+import dev.peacechan.usermanagement.UserFixtures;
+import dev.peacechan.usermanagement.enumeration.Role;
+import dev.peacechan.usermanagement.service.TokenRevocationService;
+import dev.peacechan.usermanagement.utility.TokenRevocationList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static dev.peacechan.usermanagement.constant.SecurityConstant.JWT_TOKEN_HEADER;
+import static dev.peacechan.usermanagement.constant.SecurityConstant.REFRESH_TOKEN_HEADER;
+import static dev.peacechan.usermanagement.constant.SecurityConstant.TOKEN_PREFIX;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "email.outbox.poll-interval-ms=3600000")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TokenLifecycleTest {
+    private static final String USERNAME = "token-user";
+    private static final String PASSWORD = "secret-password";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private UserFixtures users;
+
+    @BeforeEach
+    void insertUser() {
+        users = new UserFixtures(jdbcTemplate);
+        users.insertUser(1, USERNAME, "token-user@example.com", Role.ROLE_HR, passwordEncoder.encode(PASSWORD));
+    }
+
+    @AfterEach
+    void deleteUsers() {
+        jdbcTemplate.update("delete from refresh_token");
+        jdbcTemplate.update("delete from token_revocation");
+        // Forget the user-wide revocation so the next test's login is not refused.
+        tokenRevocationList.removeExpired(System.currentTimeMillis(), Long.MAX_VALUE);
+        users.deleteUsers();
+    }
+
+    @Test
+    void refreshRotatesTokensAndDetectsReuse() throws Exception {
+        MvcResult login = login();
+        String refreshToken = login.getResponse().getHeader(REFRESH_TOKEN_HEADER);
+
+        MvcResult refreshed = mockMvc.perform(post("/user/token/refresh").header(REFRESH_TOKEN_HEADER, refreshToken))
+                .andExpect(status().isOk()).andReturn();
+        String rotatedToken = refreshed.getResponse().getHeader(REFRESH_TOKEN_HEADER);
+        assertNotEquals(refreshToken, rotatedToken);
+        listUsers(refreshed.getResponse().getHeader(JWT_TOKEN_HEADER)).andExpect(status().isOk());
+
+        // Presenting the spent token again revokes the family, including the token it was replaced by.
+        mockMvc.perform(post("/user/token/refresh").header(REFRESH_TOKEN_HEADER, refreshToken))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/user/token/refresh").header(REFRESH_TOKEN_HEADER, rotatedToken))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void logoutRevokesAccessAndRefreshTokens() throws Exception {
+        MvcResult login = login();
+        String accessToken = login.getResponse().getHeader(JWT_TOKEN_HEADER);
+        String refreshToken = login.getResponse().getHeader(REFRESH_TOKEN_HEADER);
+        listUsers(accessToken).andExpect(status().isOk());
+
+        mockMvc.perform(post("/user/logout").header(HttpHeaders.AUTHORIZATION, TOKEN_PREFIX + accessToken)
+                        .header(REFRESH_TOKEN_HEADER, refreshToken))
+                .andExpect(status().isOk());
+
+        listUsers(accessToken).andExpect(status().isForbidden());
+        mockMvc.perform(post("/user/token/refresh").header(REFRESH_TOKEN_HEADER, refreshToken))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void revokingUserRejectsEarlierTokens() throws Exception {
+        MvcResult login = login();
+        String accessToken = login.getResponse().getHeader(JWT_TOKEN_HEADER);
+
+        tokenRevocationService.revokeUser(USERNAME);
+
+        listUsers(accessToken).andExpect(status().isForbidden());
+        mockMvc.perform(post("/user/token/refresh").header(REFRESH_TOKEN_HEADER, login.getResponse().getHeader(REFRESH_TOKEN_HEADER)))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void rolledBackRevocationsRevokeNothing() throws Exception {
+        String accessToken = login().getResponse().getHeader(JWT_TOKEN_HEADER);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            tokenRevocationService.revokeUser(USERNAME);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, tokenRevocationList.revokedUserCount());
+        listUsers(accessToken).andExpect(status().isOk());
+    }
+
+    private MvcResult login() throws Exception {
+        return mockMvc.perform(post("/user/login").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + USERNAME + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .andExpect(status().isOk()).andReturn();
+    }
+
+    private ResultActions listUsers(String accessToken) throws Exception {
+        return mockMvc.perform(get("/user/list").header(HttpHeaders.AUTHORIZATION, TOKEN_PREFIX + accessToken));
+    }
+}
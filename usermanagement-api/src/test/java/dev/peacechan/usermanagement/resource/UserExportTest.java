@@ -0,0 +1,64 @@
+package dev.peacechan.usermanagement.resource;
+
+import dev.peacechan.usermanagement.UserFixtures;
+import dev.peacechan.usermanagement.enumeration.Role;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserExportTest {
+    private static final String JOIN_DATE = "2021-01-02T03:04:05Z";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UserFixtures users;
+
+    @BeforeEach
+    void insertUser() {
+        users = new UserFixtures(jdbcTemplate);
+        users.insertUser(1, "export-user", "export-user@example.com", Role.ROLE_USER, null, Instant.parse(JOIN_DATE));
+    }
+
+    @AfterEach
+    void deleteUsers() {
+        users.deleteUsers();
+    }
+
+    @Test
+    @WithMockUser(authorities = {"user:read", "user:update"})
+    void exportNeedsTheCreatePermission() throws Exception {
+        mockMvc.perform(get("/user/export")).andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(authorities = {"user:read", "user:update", "user:create"})
+    void csvAndNdjsonWriteDatesTheSameWay() throws Exception {
+        mockMvc.perform(get("/user/export").param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(",true,true," + JOIN_DATE + ",\r\n")));
+        mockMvc.perform(get("/user/export").param("format", "ndjson"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"joinDate\":\"" + JOIN_DATE + "\",\"lastLoginDate\":null")));
+    }
+}
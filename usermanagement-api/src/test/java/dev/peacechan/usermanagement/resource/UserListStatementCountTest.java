@@ -0,0 +1,66 @@
+package dev.peacechan.usermanagement.resource;
+
+import dev.peacechan.usermanagement.UserFixtures;
+import dev.peacechan.usermanagement.enumeration.Role;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static dev.peacechan.usermanagement.resource.SqlStatementBudget.statementsOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser
+class UserListStatementCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UserFixtures users;
+
+    @BeforeEach
+    void setUp() {
+        users = new UserFixtures(jdbcTemplate);
+    }
+
+    @AfterEach
+    void deleteUsers() {
+        users.deleteUsers();
+    }
+
+    @Test
+    void userListStatementCountDoesNotGrowWithUserCount() throws Exception {
+        users.insertUsers(1, 10, Role.ROLE_HR);
+        long statementsForTenUsers = countStatementsForUserList(10);
+
+        users.insertUsers(11, 10_000, Role.ROLE_HR);
+        long statementsForTenThousandUsers = countStatementsForUserList(10_000);
+
+        assertEquals(statementsForTenUsers, statementsForTenThousandUsers);
+    }
+
+    private long countStatementsForUserList(int expectedUsers) throws Exception {
+        MvcResult result = mockMvc.perform(get("/user/list"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(expectedUsers))
+                .andExpect(jsonPath("$[0].authorities.length()").value(2))
+                .andReturn();
+        return statementsOf(result);
+    }
+}
@@ -0,0 +1,121 @@
+package dev.peacechan.usermanagement.resource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.peacechan.usermanagement.UserFixtures;
+import dev.peacechan.usermanagement.enumeration.Role;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static dev.peacechan.usermanagement.constant.UserImplConstant.INVALID_CURSOR;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser
+class UserPageTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private UserFixtures users;
+
+    @BeforeEach
+    void insertUsers() {
+        users = new UserFixtures(jdbcTemplate);
+        // Emails are unique, so the ties are the rows without one.
+        users.insertUser(1, "carol", "carol@example.com", Role.ROLE_USER, null);
+        users.insertUser(2, "nemo1", null, Role.ROLE_USER, null);
+        users.insertUser(3, "alice", "alice@example.com", Role.ROLE_USER, null);
+        users.insertUser(4, "nemo2", null, Role.ROLE_USER, null);
+        users.insertUser(5, "bob", "bob@example.com", Role.ROLE_USER, null);
+        users.insertUser(6, "nemo3", null, Role.ROLE_USER, null);
+        users.insertUser(7, "nemo4", null, Role.ROLE_USER, null);
+    }
+
+    @AfterEach
+    void deleteUsers() {
+        users.deleteUsers();
+    }
+
+    @Test
+    void ascendingPagesPutNullsFirstAndSkipNone() throws Exception {
+        assertEquals(List.of("nemo1", "nemo2", "nemo3", "nemo4", "alice", "bob", "carol"), walkPages("email", "asc", 3));
+        assertEquals(List.of("nemo1", "nemo2", "nemo3", "nemo4", "alice", "bob", "carol"), walkPages("email", "asc", 1));
+    }
+
+    @Test
+    void descendingPagesPutNullsLastAndSkipNone() throws Exception {
+        assertEquals(List.of("carol", "bob", "alice", "nemo4", "nemo3", "nemo2", "nemo1"), walkPages("email", "desc", 2));
+        assertEquals(List.of("carol", "bob", "alice", "nemo4", "nemo3", "nemo2", "nemo1"), walkPages("email", "desc", 1));
+    }
+
+    @Test
+    void invalidCursorsReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/user/list/page").param("cursor", "not a cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(INVALID_CURSOR));
+        mockMvc.perform(get("/user/list/page").param("cursor", "RU1BSUx8QXw3"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamWritesOneJsonUserPerLine() throws Exception {
+        MvcResult result = mockMvc.perform(get("/user/list/stream"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn();
+
+        String body = result.getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals('\n', body.charAt(body.length() - 1));
+        assertEquals(7, lines.length);
+        List<String> usernames = new ArrayList<>();
+        for (String line : lines) {
+            JsonNode user = objectMapper.readTree(line);
+            usernames.add(user.get("username").asText());
+            assertEquals(false, user.has("password"));
+        }
+        usernames.sort(null);
+        assertEquals(List.of("alice", "bob", "carol", "nemo1", "nemo2", "nemo3", "nemo4"), usernames);
+    }
+
+    private List<String> walkPages(String sort, String direction, int size) throws Exception {
+        List<String> usernames = new ArrayList<>();
+        String cursor = null;
+        do {
+            MockHttpServletRequestBuilder request = get("/user/list/page").param("size", String.valueOf(size));
+            request = cursor == null ? request.param("sort", sort).param("direction", direction) : request.param("cursor", cursor);
+            JsonNode page = objectMapper.readTree(mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            page.get("users").forEach(user -> usernames.add(user.get("username").asText()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+        } while (cursor != null);
+        return usernames;
+    }
+}
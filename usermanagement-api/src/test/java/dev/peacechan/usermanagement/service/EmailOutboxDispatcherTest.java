@@ -0,0 +1,125 @@
+package dev.peacechan.usermanagement.service;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import dev.peacechan.usermanagement.domain.EmailOutboxMessage;
+import dev.peacechan.usermanagement.enumeration.EmailStatus;
+import dev.peacechan.usermanagement.repository.EmailOutboxRepository;
+import dev.peacechan.usermanagement.utility.EmailBodyCipher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "email.smtp.protocol=smtp",
+        "email.smtp.host=localhost",
+        "email.smtp.port=3025",
+        "email.smtp.starttls=false",
+        "email.smtp.username=mailer",
+        "email.smtp.password=secret"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class EmailOutboxDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("mailer", "secret"));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    private EmailOutboxDispatcher emailOutboxDispatcher;
+
+    @Autowired
+    private EmailBodyCipher emailBodyCipher;
+
+    @Test
+    void registrationEmailsAreDeliveredAfterCommit() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/user/register").contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"firstName\":\"Outbox\",\"lastName\":\"User\",\"username\":\"outbox" + i + "\",\"email\":\"outbox" + i + "@example.com\"}"))
+                    .andExpect(status().isOk());
+        }
+
+        assertTrue(greenMail.waitForIncomingEmail(10_000, 3));
+        MimeMessage[] messages = greenMail.getReceivedMessages();
+        assertEquals(3, messages.length);
+        assertTrue(messages[0].getRecipients(Message.RecipientType.TO)[0].toString().startsWith("outbox"));
+        assertTrue(String.valueOf(messages[0].getContent()).contains("Your new password is"));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (emailOutboxRepository.count() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, emailOutboxRepository.count());
+    }
+
+    @Test
+    void onlyClaimsOlderThanTheLeaseAreReleased() throws Exception {
+        EmailOutboxMessage abandoned = emailOutboxRepository.save(claimedMessage("abandoned@example.com", 3_600_000));
+        EmailOutboxMessage inFlight = emailOutboxRepository.save(claimedMessage("in-flight@example.com", 1_000));
+        try {
+            emailOutboxDispatcher.poll();
+
+            assertTrue(greenMail.waitForIncomingEmail(10_000, 1));
+            assertEquals("abandoned@example.com", greenMail.getReceivedMessages()[0].getRecipients(Message.RecipientType.TO)[0].toString());
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (emailOutboxRepository.existsById(abandoned.getId()) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertFalse(emailOutboxRepository.existsById(abandoned.getId()));
+            assertEquals(EmailStatus.SENDING, emailOutboxRepository.findById(inFlight.getId()).get().getStatus());
+        } finally {
+            emailOutboxRepository.deleteAll();
+        }
+    }
+
+    @Test
+    void smtpsConnectionsTimeOutWhenTheServerNeverAnswers() throws Exception {
+        // Accepted by the kernel backlog, but nothing ever reads or writes, so the TLS handshake stalls.
+        try (ServerSocket silentServer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Transport transport = Session.getInstance(EmailOutboxDispatcher.timeouts("smtps", 500)).getTransport("smtps");
+
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThrows(MessagingException.class,
+                    () -> transport.connect("localhost", silentServer.getLocalPort(), "mailer", "secret")));
+        }
+    }
+
+    private EmailOutboxMessage claimedMessage(String recipient, long claimedAgoMillis) {
+        EmailOutboxMessage message = new EmailOutboxMessage();
+        message.setRecipient(recipient);
+        message.setSubject("Lease");
+        message.setBody(emailBodyCipher.encrypt("Your new password is: <b>lease</b>"));
+        message.setStatus(EmailStatus.SENDING);
+        message.setClaimToken("node-that-died");
+        message.setClaimedAt(new Date(System.currentTimeMillis() - claimedAgoMillis));
+        message.setCreatedAt(new Date());
+        message.setNextAttemptAt(new Date());
+        return message;
+    }
+}
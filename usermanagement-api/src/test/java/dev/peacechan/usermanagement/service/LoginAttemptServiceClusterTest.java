@@ -0,0 +1,121 @@
+package dev.peacechan.usermanagement.service;
+
+import dev.peacechan.usermanagement.domain.LoginAttempt;
+import dev.peacechan.usermanagement.service.impl.JdbcLoginAttemptStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+import static dev.peacechan.usermanagement.constant.MetricConstant.LOGIN_ATTEMPT_LOCKOUTS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two nodes, each with its own application context, sharing one embedded database.
+ */
+class LoginAttemptServiceClusterTest {
+    private static final long NEAR_CACHE_TTL_MILLIS = 50;
+
+    private ConfigurableApplicationContext firstNode;
+    private ConfigurableApplicationContext secondNode;
+
+    @BeforeEach
+    void startNodes() {
+        firstNode = startNode();
+        secondNode = startNode();
+    }
+
+    @AfterEach
+    void stopNodes() {
+        secondNode.close();
+        firstNode.close();
+    }
+
+    @Test
+    void lockoutIsSharedBetweenNodes() throws InterruptedException {
+        LoginAttemptService first = firstNode.getBean(LoginAttemptService.class);
+        LoginAttemptService second = secondNode.getBean(LoginAttemptService.class);
+
+        for (int i = 0; i < 3; i++) {
+            first.addUserToLoginAttemptCache("alice");
+        }
+        for (int i = 0; i < 2; i++) {
+            second.addUserToLoginAttemptCache("alice");
+        }
+        assertTrue(second.hasExceededMaxAttempts("alice"));
+        assertTrue(second.hasExceededMaxAttempts("alice"));
+        Thread.sleep(2 * NEAR_CACHE_TTL_MILLIS);
+        assertTrue(first.hasExceededMaxAttempts("alice"));
+        assertFalse(first.hasExceededMaxAttempts("bob"));
+        assertEquals(0, lockouts(firstNode));
+        assertEquals(1, lockouts(secondNode));
+
+        second.evictUserFromLoginAttemptCache("alice");
+        Thread.sleep(2 * NEAR_CACHE_TTL_MILLIS);
+        assertFalse(first.hasExceededMaxAttempts("alice"));
+    }
+
+    @Test
+    void addressLimitIsCountedButNotEnforcedByDefault() {
+        LoginAttemptService first = firstNode.getBean(LoginAttemptService.class);
+
+        for (int i = 0; i < 50; i++) {
+            first.addAddressToLoginAttemptCache("10.0.0.1");
+        }
+
+        assertFalse(first.hasAddressExceededMaxAttempts("10.0.0.1"));
+        assertEquals(1, lockouts(firstNode, "address"));
+    }
+
+    private static double lockouts(ConfigurableApplicationContext node) {
+        return lockouts(node, "username");
+    }
+
+    private static double lockouts(ConfigurableApplicationContext node, String scope) {
+        return node.getBean(MeterRegistry.class).get(LOGIN_ATTEMPT_LOCKOUTS).tag("scope", scope).counter().count();
+    }
+
+    private ConfigurableApplicationContext startNode() {
+        return new SpringApplicationBuilder(NodeConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .run("--login-attempt.store=jdbc", "--spring.jpa.hibernate.ddl-auto=create", "--login-attempt.jdbc.near-cache-ttl-ms=" + NEAR_CACHE_TTL_MILLIS);
+    }
+
+    @Configuration
+    @Import({JdbcLoginAttemptStore.class, LoginAttemptService.class})
+    @ImportAutoConfiguration(HibernateJpaAutoConfiguration.class)
+    @EntityScan(basePackageClasses = LoginAttempt.class)
+    static class NodeConfiguration {
+
+        @Bean
+        DataSource dataSource() {
+            return new DriverManagerDataSource("jdbc:h2:mem:login_attempts;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+    }
+}
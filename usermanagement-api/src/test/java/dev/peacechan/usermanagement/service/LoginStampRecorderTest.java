@@ -0,0 +1,91 @@
+package dev.peacechan.usermanagement.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class LoginStampRecorderTest {
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void coalescesLoginsOfTheSameUser() {
+        LoginStampRecorder recorder = recorder(10, 60_000);
+        recorder.record(1L, new Date(1_000), new Date(2_000));
+        recorder.record(1L, new Date(2_000), new Date(3_000));
+
+        recorder.flush();
+
+        List<Object[]> batch = writtenBatches(1).get(0);
+        assertEquals(1, batch.size());
+        assertArrayEquals(new Object[]{new Timestamp(2_000), new Timestamp(3_000), 1L}, batch.get(0));
+        recorder.flush();
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void dropsNewUsersOnceFullWithoutWritingOnTheLoginThread() {
+        LoginStampRecorder recorder = recorder(2, 60_000);
+        recorder.record(1L, null, new Date(1_000));
+        recorder.record(2L, null, new Date(1_000));
+        recorder.record(3L, null, new Date(1_000));
+        recorder.record(1L, new Date(1_000), new Date(2_000));
+
+        verifyNoInteractions(jdbcTemplate);
+        assertEquals(1, meterRegistry.get("login.stamp.dropped").counter().count());
+        assertEquals(2, meterRegistry.get("login.stamp.queue.depth").gauge().value());
+    }
+
+    @Test
+    void keepsStampsAndBacksOffWhenTheWriteFails() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new DataAccessResourceFailureException("down"));
+        LoginStampRecorder recorder = recorder(10, 60_000);
+        recorder.record(1L, null, new Date(1_000));
+
+        recorder.flush();
+        recorder.flush();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+        assertEquals(1, meterRegistry.get("login.stamp.queue.depth").gauge().value());
+    }
+
+    @Test
+    void retriesFailedStampsMergedWithNewerLogins() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(new int[]{1});
+        LoginStampRecorder recorder = recorder(10, 0);
+        recorder.record(1L, null, new Date(1_000));
+        recorder.flush();
+        recorder.record(1L, new Date(1_000), new Date(2_000));
+
+        recorder.flush();
+
+        List<Object[]> retried = writtenBatches(2).get(1);
+        assertArrayEquals(new Object[]{new Timestamp(1_000), new Timestamp(2_000), 1L}, retried.get(0));
+        assertEquals(0, meterRegistry.get("login.stamp.queue.depth").gauge().value());
+    }
+
+    private LoginStampRecorder recorder(int maximumPending, long maximumBackoffMillis) {
+        return new LoginStampRecorder(jdbcTemplate, meterRegistry, maximumPending, 100, 1_000, maximumBackoffMillis);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Object[]>> writtenBatches(int times) {
+        ArgumentCaptor<List<Object[]>> batches = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(times)).batchUpdate(anyString(), batches.capture());
+        return batches.getAllValues();
+    }
+}
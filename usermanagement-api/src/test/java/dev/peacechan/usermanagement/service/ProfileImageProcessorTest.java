@@ -0,0 +1,133 @@
+package dev.peacechan.usermanagement.service;
+
+import dev.peacechan.usermanagement.enumeration.ExecutionMode;
+import dev.peacechan.usermanagement.utility.ExecutionThreads;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static dev.peacechan.usermanagement.constant.FileConstant.PROFILE_IMAGE_VARIANT_SIZES;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfileImageProcessorTest {
+    private static final long MAXIMUM_PIXELS = 3_000 * 1_000;
+
+    private final ProfileImageProcessor processor = new ProfileImageProcessor(new SimpleMeterRegistry(),
+            new ExecutionThreads(ExecutionMode.PLATFORM), 1, 10, MAXIMUM_PIXELS);
+
+    @TempDir
+    Path folder;
+
+    @AfterEach
+    void shutdown() {
+        processor.shutdown();
+    }
+
+    @Test
+    void largeImagesAreSubsampledIntoEveryVariant() throws Exception {
+        Path original = writePng("large", 2_900, 1_000);
+
+        processor.process("large", original);
+
+        awaitVariants("large");
+        for (int size : PROFILE_IMAGE_VARIANT_SIZES) {
+            BufferedImage variant = ImageIO.read(folder.resolve(ProfileImageProcessor.variantFileName("large", size)).toFile());
+            assertEquals(size, variant.getWidth());
+            assertEquals(size, variant.getHeight());
+        }
+    }
+
+    @Test
+    void imagesOverThePixelLimitAreNotDecoded() throws Exception {
+        Path bomb = writePng("bomb", 3_001, 1_000);
+        Path small = writePng("small", 64, 64);
+
+        processor.process("bomb", bomb);
+        processor.process("small", small);
+
+        // One worker, so the oversized image has been handled once the next one is done.
+        awaitVariants("small");
+        for (int size : PROFILE_IMAGE_VARIANT_SIZES) {
+            assertFalse(Files.exists(folder.resolve(ProfileImageProcessor.variantFileName("bomb", size))));
+        }
+    }
+
+    @Test
+    void variantsOfASupersededUploadNeverLand() throws Exception {
+        Path original = writePng("racer", 2_900, 1_000);
+        Path small = writePng("small", 64, 64);
+
+        processor.process("racer", original);
+        processor.process("small", small);
+        // A newer upload whose own processing never runs, as when the queue is full.
+        processor.deleteVariants("racer");
+
+        awaitVariants("small");
+        for (int size : PROFILE_IMAGE_VARIANT_SIZES) {
+            assertFalse(Files.exists(folder.resolve(ProfileImageProcessor.variantFileName("racer", size))));
+        }
+        try (Stream<Path> files = Files.list(folder)) {
+            assertTrue(files.noneMatch(file -> file.toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    void variantsOfADeletedUserNeverLand() throws Exception {
+        Path original = writePng("deleted", 2_900, 1_000);
+        Path small = writePng("small", 64, 64);
+
+        processor.process("deleted", original);
+        processor.process("small", small);
+        processor.forgetUploads("deleted");
+
+        awaitVariants("small");
+        for (int size : PROFILE_IMAGE_VARIANT_SIZES) {
+            assertFalse(Files.exists(folder.resolve(ProfileImageProcessor.variantFileName("deleted", size))));
+        }
+        // Nothing is kept for the deleted user, so a stray process call is refused.
+        assertThrows(IllegalStateException.class, () -> processor.process("deleted", original));
+    }
+
+    @Test
+    void processingWithoutDeletingVariantsFailsFast() {
+        assertThrows(IllegalStateException.class, () -> processor.process("unannounced", folder.resolve("unannounced.png")));
+    }
+
+    @Test
+    void originalsAreReplacedWhole() throws Exception {
+        Path original = folder.resolve("replaced.png");
+        Files.write(original, new byte[]{1, 2, 3, 4});
+
+        processor.saveOriginal(new ByteArrayInputStream(new byte[]{5, 6}), original);
+
+        assertArrayEquals(new byte[]{5, 6}, Files.readAllBytes(original));
+        try (Stream<Path> files = Files.list(folder)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    private Path writePng(String username, int width, int height) throws IOException {
+        processor.deleteVariants(username);
+        Path original = folder.resolve(username + ".png");
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", original.toFile());
+        return original;
+    }
+
+    private void awaitVariants(String username) throws InterruptedException {
+        Path largest = folder.resolve(ProfileImageProcessor.variantFileName(username, PROFILE_IMAGE_VARIANT_SIZES[PROFILE_IMAGE_VARIANT_SIZES.length - 1]));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!Files.exists(largest) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(Files.exists(largest));
+    }
+}
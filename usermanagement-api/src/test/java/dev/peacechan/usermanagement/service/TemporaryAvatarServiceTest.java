@@ -0,0 +1,76 @@
+package dev.peacechan.usermanagement.service;
+
+import com.google.common.hash.Hashing;
+import dev.peacechan.usermanagement.enumeration.AvatarSource;
+import dev.peacechan.usermanagement.utility.IdenticonGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
+
+import static dev.peacechan.usermanagement.constant.FileConstant.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemporaryAvatarServiceTest {
+    private final String username = "avatar-" + UUID.randomUUID();
+    private final Path cachedFile = Paths.get(AVATAR_FOLDER)
+            .resolve(Hashing.murmur3_128().hashString(username, UTF_8) + DOT + JPG_EXTENSION);
+
+    private TemporaryAvatarService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new TemporaryAvatarService(AvatarSource.IDENTICON, 16 * 1024 * 1024, 1000);
+        service.loadCacheIndex();
+    }
+
+    @AfterEach
+    void deleteCachedAvatar() throws Exception {
+        Files.deleteIfExists(cachedFile);
+    }
+
+    @Test
+    void firstRequestRendersAndStoresTheIdenticon() throws Exception {
+        byte[] avatar = service.getAvatar(username);
+
+        assertArrayEquals(IdenticonGenerator.generate(username, TEMPORARY_AVATAR_SIZE), avatar);
+        assertArrayEquals(avatar, Files.readAllBytes(cachedFile));
+    }
+
+    @Test
+    void repeatedRequestsAreServedFromTheCache() throws Exception {
+        service.getAvatar(username);
+        // A regenerated avatar would overwrite this marker.
+        byte[] marker = {1, 2, 3};
+        Files.write(cachedFile, marker);
+
+        assertArrayEquals(marker, service.getAvatar(username));
+        assertArrayEquals(marker, Files.readAllBytes(cachedFile));
+    }
+
+    @Test
+    void avatarsCachedByAnEarlierProcessAreReused() throws Exception {
+        service.getAvatar(username);
+        byte[] marker = {4, 5, 6};
+        Files.write(cachedFile, marker);
+
+        TemporaryAvatarService restarted = new TemporaryAvatarService(AvatarSource.IDENTICON, 16 * 1024 * 1024, 1000);
+        restarted.loadCacheIndex();
+
+        assertArrayEquals(marker, restarted.getAvatar(username));
+    }
+
+    @Test
+    void deletedCacheFilesAreRegenerated() throws Exception {
+        byte[] avatar = service.getAvatar(username);
+        Files.delete(cachedFile);
+
+        assertArrayEquals(avatar, service.getAvatar(username));
+        assertTrue(Files.exists(cachedFile));
+    }
+}
@@ -0,0 +1,134 @@
+package dev.peacechan.usermanagement.service;
+
+import dev.peacechan.usermanagement.domain.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserCacheTest {
+    private final UserCache cache = new UserCache(new SimpleMeterRegistry(), 100, 60_000, 1 << 20, 0);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void jsonIsCachedUnderTheExactUsernameOnly() throws Exception {
+        User alice = user(1L, "alice", "alice@example.com");
+
+        assertArrayEquals(json(alice), cache.getJson("ALICE", loading(alice), this::json));
+        cache.getJson("ALICE", loading(alice), this::json);
+        assertEquals(2, loads.get());
+
+        cache.getJson("alice", loading(alice), this::json);
+        cache.getJson("alice", loading(alice), this::json);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void invalidationDropsJsonAndEveryEntityKey() throws Exception {
+        User alice = user(1L, "alice", "alice@example.com");
+        cache.getJson("alice", loading(alice), this::json);
+        cache.getByUsername("alice", loading(alice));
+        assertEquals(2, loads.get());
+        loads.set(0);
+
+        cache.invalidate(1L, "alice", "alice@example.com");
+
+        cache.getJson("alice", loading(alice), this::json);
+        assertEquals(1, loads.get());
+        cache.getByEmail("alice@example.com", loading(alice));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidatingByIdAlsoDropsTheKeysTheUserWasCachedUnder() {
+        User alice = user(1L, "alice", "alice@example.com");
+        cache.getByUsername("alice", loading(alice));
+        loads.set(0);
+
+        // A writer that renamed the user only knows the id and the new values.
+        cache.invalidate(1L, "alicia", "alicia@example.com");
+
+        cache.getByEmail("alice@example.com", loading(alice));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void aLoadOverlappingAnInvalidationIsNotCached() throws Exception {
+        User alice = user(1L, "alice", "alice@example.com");
+        Supplier<User> racingLoader = () -> {
+            loads.incrementAndGet();
+            cache.invalidate(1L, "alice", "alice@example.com");
+            return alice;
+        };
+
+        cache.getByUsername("alice", racingLoader);
+        cache.getJson("alice", racingLoader, this::json);
+        loads.set(0);
+
+        cache.getByUsername("alice", loading(alice));
+        cache.getJson("alice", loading(alice), this::json);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void callersGetCopies() {
+        User alice = user(1L, "alice", "alice@example.com");
+        cache.getByUsername("alice", loading(alice)).setFirstName("Mallory");
+
+        assertEquals("Alice", cache.getByUsername("alice", loading(alice)).getFirstName());
+    }
+
+    @Test
+    void recentlyInvalidatedUsersStayUncachedForTheReplicaLag() {
+        UserCache lagging = new UserCache(new SimpleMeterRegistry(), 100, 60_000, 1 << 20, 60_000);
+        User alice = user(1L, "alice", "alice@example.com");
+        lagging.invalidate(1L, "alice", "alice@example.com");
+
+        lagging.getByUsername("alice", loading(alice));
+        lagging.getByUsername("alice", loading(alice));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void replicaLagDefaultsToTheReadYourWritesWindowWhenAReplicaIsConfigured() {
+        UserCache withReplica = new UserCache(new SimpleMeterRegistry(), 100, 60_000, 1 << 20, -1, "jdbc:mysql://replica/usermanagement", 60_000);
+        User alice = user(1L, "alice", "alice@example.com");
+        withReplica.invalidate(1L, "alice", "alice@example.com");
+
+        withReplica.getByUsername("alice", loading(alice));
+        withReplica.getByUsername("alice", loading(alice));
+        assertEquals(2, loads.get());
+
+        UserCache withoutReplica = new UserCache(new SimpleMeterRegistry(), 100, 60_000, 1 << 20, -1, "", 60_000);
+        withoutReplica.invalidate(1L, "alice", "alice@example.com");
+
+        withoutReplica.getByUsername("alice", loading(alice));
+        withoutReplica.getByUsername("alice", loading(alice));
+        assertEquals(3, loads.get());
+    }
+
+    private Supplier<User> loading(User user) {
+        return () -> {
+            loads.incrementAndGet();
+            return user;
+        };
+    }
+
+    private byte[] json(User user) {
+        return ("{\"username\":\"" + user.getUsername() + "\"}").getBytes(UTF_8);
+    }
+
+    private static User user(Long id, String username, String email) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setFirstName("Alice");
+        return user;
+    }
+}
@@ -0,0 +1,63 @@
+package dev.peacechan.usermanagement.service;
+
+import dev.peacechan.usermanagement.exception.domain.EmailExistException;
+import dev.peacechan.usermanagement.exception.domain.UsernameExistException;
+import dev.peacechan.usermanagement.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.reset;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class UserExistenceFilterTest {
+
+    @Autowired
+    private UserExistenceFilter userExistenceFilter;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @SpyBean
+    private UserRepository userRepository;
+
+    @Test
+    void usersAreAddedOnlyWhenTheirTransactionCommits() {
+        transactionTemplate.executeWithoutResult(status -> {
+            userExistenceFilter.addUser("rolled-back", "rolled-back@example.com");
+            assertFalse(userExistenceFilter.mightContainUsername("rolled-back"));
+            status.setRollbackOnly();
+        });
+        assertFalse(userExistenceFilter.mightContainUsername("rolled-back"));
+
+        transactionTemplate.executeWithoutResult(status -> userExistenceFilter.addUser("committed", "committed@example.com"));
+        assertTrue(userExistenceFilter.mightContainUsername("committed"));
+        assertTrue(userExistenceFilter.mightContainEmail("committed@example.com"));
+    }
+
+    @Test
+    void registrationsThatRaceTheExistenceCheckHitTheUniqueConstraints() throws Exception {
+        userService.register("Race", "Winner", "race", "race@example.com");
+        // Both requests pass the existence check before either commits.
+        doReturn(Collections.emptyList()).when(userRepository).findIdentitiesByUsernameOrEmail(any(), any());
+        try {
+            assertThrows(UsernameExistException.class, () -> userService.register("Race", "Loser", "race", "race-loser@example.com"));
+            assertThrows(EmailExistException.class, () -> userService.register("Race", "Loser", "race-loser", "race@example.com"));
+        } finally {
+            reset(userRepository);
+        }
+        assertNull(userRepository.findUserByUsername("race-loser"));
+    }
+}
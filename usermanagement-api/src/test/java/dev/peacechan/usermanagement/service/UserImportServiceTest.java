@@ -0,0 +1,159 @@
+package dev.peacechan.usermanagement.service;
+
+import dev.peacechan.usermanagement.UserFixtures;
+import dev.peacechan.usermanagement.domain.UserImportError;
+import dev.peacechan.usermanagement.domain.UserImportResult;
+import dev.peacechan.usermanagement.enumeration.ImportStatus;
+import dev.peacechan.usermanagement.enumeration.Role;
+import dev.peacechan.usermanagement.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static dev.peacechan.usermanagement.constant.UserImplConstant.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+
+@SpringBootTest(properties = "user-import.chunk-size=2")
+@ActiveProfiles("test")
+class UserImportServiceTest {
+    private static final String HEADER = "firstName,lastName,username,email,role\n";
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserExistenceFilter userExistenceFilter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UserFixtures users;
+
+    @BeforeEach
+    void bindRequest() {
+        users = new UserFixtures(jdbcTemplate);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void deleteImports() {
+        RequestContextHolder.resetRequestAttributes();
+        jdbcTemplate.update("delete from email_outbox_message");
+        jdbcTemplate.update("delete from user_import_error");
+        jdbcTemplate.update("delete from user_import_job");
+        users.deleteUsers();
+    }
+
+    @Test
+    void invalidAndDuplicateRowsAreReportedWhileTheRestIsImported() throws Exception {
+        users.insertUser(1000, "taken", Role.ROLE_USER);
+        userExistenceFilter.addUser("taken", "taken@example.com");
+        String csv = HEADER
+                + "Ada,Lovelace,ada,ada@example.com,ROLE_USER\n"
+                + "Ada,Again,ada,ada2@example.com,\n"
+                + "Bob,Builder,bob,ada@example.com,\n"
+                + "Cy,Taken,taken,cy@example.com,\n"
+                + "Di,Role,di,di@example.com,ROLE_KING\n"
+                + "Ed,,ed\n"
+                + ",,,fay@example.com,\n"
+                + "\"Gus, Jr\",Quote,gus,gus@example.com,ROLE_ADMIN\n"
+                + "Hal,One,hal,hal@example.com,\n"
+                + "Hal,Two,hal2,hal@example.com,\n";
+
+        UserImportResult result = userImportService.importUsers(TEXT_CSV_VALUE, stream(csv), null);
+
+        assertEquals(ImportStatus.COMPLETED, result.getJob().getStatus());
+        assertEquals(10, result.getJob().getProcessedRows());
+        assertEquals(3, result.getJob().getImportedRows());
+        assertEquals(7, result.getJob().getFailedRows());
+        List<String> messages = result.getErrors().stream().map(UserImportError::getMessage).collect(Collectors.toList());
+        assertEquals(DUPLICATE_USERNAME_IN_IMPORT, messages.get(0));
+        // Bob is in the next chunk, so Ada's email is already stored by then.
+        assertEquals(EMAIL_ALREADY_EXIST, messages.get(1));
+        assertEquals(USERNAME_ALREADY_EXIST, messages.get(2));
+        assertEquals(INVALID_ROLE + "ROLE_KING", messages.get(3));
+        assertTrue(messages.get(4).startsWith(INVALID_IMPORT_ROW));
+        assertEquals(USERNAME_AND_EMAIL_REQUIRED, messages.get(5));
+        assertEquals(DUPLICATE_EMAIL_IN_IMPORT, messages.get(6));
+        assertEquals("Gus, Jr", userRepository.findUserByUsername("gus").getFirstName());
+        assertEquals("ROLE_ADMIN", userRepository.findUserByUsername("gus").getRole());
+    }
+
+    @Test
+    void malformedNdjsonLinesAreReportedPerRow() throws Exception {
+        String ndjson = "{\"username\":\"hal\",\"email\":\"hal@example.com\"}\n"
+                + "{\"username\":\n"
+                + "\n"
+                + "{\"username\":\"ivy\",\"email\":\"ivy@example.com\",\"active\":false}\n";
+
+        UserImportResult result = userImportService.importUsers(APPLICATION_NDJSON_VALUE, stream(ndjson), null);
+
+        assertEquals(2, result.getJob().getImportedRows());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(2, result.getErrors().get(0).getRowNumber());
+        assertFalse(userRepository.findUserByUsername("ivy").isActive());
+    }
+
+    @Test
+    void aFailedImportResumesAfterTheLastCommittedChunk() throws Exception {
+        String csv = HEADER
+                + "A,A,user1,user1@example.com,\n"
+                + "B,B,user2,user2@example.com,\n"
+                + "C,C,user3,user3@example.com,\n"
+                + "D,D,user4,user4@example.com,\n"
+                + "E,E,user5,user5@example.com,\n";
+        int failAfter = csv.indexOf("user4");
+
+        UserImportResult failed = userImportService.importUsers(TEXT_CSV_VALUE, failingAfter(csv, failAfter), null);
+
+        assertEquals(ImportStatus.FAILED, failed.getJob().getStatus());
+        assertEquals(2, failed.getJob().getProcessedRows());
+        assertNotNull(failed.getJob().getLastError());
+        assertNull(userRepository.findUserByUsername("user3"));
+
+        UserImportResult resumed = userImportService.importUsers(TEXT_CSV_VALUE, stream(csv), failed.getJob().getId());
+
+        assertEquals(ImportStatus.COMPLETED, resumed.getJob().getStatus());
+        assertEquals(5, resumed.getJob().getProcessedRows());
+        assertEquals(5, resumed.getJob().getImportedRows());
+        assertEquals(0, resumed.getJob().getFailedRows());
+        assertEquals(5L, jdbcTemplate.queryForObject("select count(*) from user", Long.class));
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(UTF_8));
+    }
+
+    private static InputStream failingAfter(String content, int bytes) {
+        byte[] data = content.getBytes(UTF_8);
+        return new InputStream() {
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                if (position == bytes) {
+                    throw new IOException("Connection reset");
+                }
+                return position < data.length ? data[position++] & 0xff : -1;
+            }
+        };
+    }
+}
@@ -0,0 +1,143 @@
+package dev.peacechan.usermanagement.service;
+
+import dev.peacechan.usermanagement.domain.User;
+import dev.peacechan.usermanagement.domain.UserSearchResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class UserSearchIndexTest {
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserSearchIndex searchIndex = new UserSearchIndex(jdbcTemplate, meterRegistry, 100, 0.25, 3_600_000);
+
+    @Test
+    void shortQueriesMatchPrefixesOnly() {
+        searchIndex.index(user(1L, "alice", "alice@example.com", "Alice", "Smith", "ROLE_USER"));
+        searchIndex.index(user(2L, "malik", "malik@example.com", "Malik", "Jones", "ROLE_USER"));
+
+        assertEquals(Arrays.asList("alice"), usernames(search("al")));
+        assertEquals(Arrays.asList("malik"), usernames(search("ma")));
+        assertEquals(Arrays.asList("alice", "malik"), usernames(search("ali")));
+    }
+
+    @Test
+    void everyWordOfTheQueryMustMatch() {
+        searchIndex.index(user(1L, "ada", "ada@example.com", "Ada", "Lovelace", "ROLE_USER"));
+        searchIndex.index(user(2L, "adam", "adam@example.com", "Adam", "Smith", "ROLE_USER"));
+        searchIndex.index(user(3L, "grace", "grace@example.com", "Grace", "Lovelace", "ROLE_USER"));
+
+        assertEquals(Arrays.asList("ada"), usernames(search("ada love")));
+        assertEquals(Arrays.asList("ada"), usernames(search("  Lovelace   AD ")));
+        assertEquals(Arrays.asList("ada", "grace"), usernames(search("lovelace example")));
+        assertTrue(search("ada hopper").isEmpty());
+    }
+
+    @Test
+    void exactMatchesRankAbovePrefixAndSubstringMatches() {
+        searchIndex.index(user(1L, "xann", "xann@example.com", "Xan", "Roe", "ROLE_USER"));
+        searchIndex.index(user(2L, "annabel", "annabel@example.com", "Annabel", "Lee", "ROLE_USER"));
+        searchIndex.index(user(3L, "ann", "ann@example.com", "Ann", "Ray", "ROLE_USER"));
+        searchIndex.index(user(4L, "bob", "bob@example.com", "Bob", "Annan", "ROLE_USER"));
+
+        assertEquals(Arrays.asList("ann", "annabel", "bob", "xann"), usernames(search("ann")));
+        assertEquals(Arrays.asList("ann", "annabel"), usernames(searchIndex.search("ann", null, null, null, 2)));
+    }
+
+    @Test
+    void filtersApplyToEveryQuery() {
+        searchIndex.index(user(1L, "alice", "alice@example.com", "Alice", "Smith", "ROLE_ADMIN"));
+        User locked = user(2L, "alina", "alina@example.com", "Alina", "Smith", "ROLE_USER");
+        locked.setNotLocked(false);
+        searchIndex.index(locked);
+
+        assertEquals(Arrays.asList("alice"), usernames(searchIndex.search("al", "role_admin", null, null, 10)));
+        assertEquals(Arrays.asList("alina"), usernames(searchIndex.search("smith", null, true, true, 10)));
+        assertTrue(searchIndex.search("", "ROLE_KING", null, null, 10).isEmpty());
+    }
+
+    @Test
+    void changesMadeDuringARebuildAreAppliedToTheRebuiltIndex() {
+        User alice = user(1L, "alice", "alice@example.com", "Alice", "Smith", "ROLE_USER");
+        User bob = user(2L, "bob", "bob@example.com", "Bob", "Jones", "ROLE_USER");
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(row(alice));
+            // Writes that commit while the table is being read.
+            searchIndex.index(user(1L, "alice", "alice@example.org", "Alicia", "Smith", "ROLE_USER"));
+            searchIndex.remove(2L);
+            searchIndex.index(user(3L, "carol", "carol@example.com", "Carol", "King", "ROLE_USER"));
+            handler.processRow(row(bob));
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        searchIndex.rebuild();
+
+        assertEquals(Arrays.asList("alice", "carol"), usernames(search("")));
+        assertEquals("Alicia", search("alice").get(0).getFirstName());
+        assertTrue(search("bob").isEmpty());
+        assertEquals(2, meterRegistry.get("user.search.index.documents").gauge().value());
+        assertEquals(2, meterRegistry.get("user.search.index.tombstones").gauge().value());
+    }
+
+    @Test
+    void replacedUsersAreCountedAsTombstones() {
+        searchIndex.index(user(1L, "alice", "alice@example.com", "Alice", "Smith", "ROLE_USER"));
+        searchIndex.index(user(1L, "alice", "alice@example.org", "Alice", "Smith", "ROLE_USER"));
+        searchIndex.index(user(2L, "bob", "bob@example.com", "Bob", "Jones", "ROLE_USER"));
+        searchIndex.remove(2L);
+
+        assertEquals(1, meterRegistry.get("user.search.index.documents").gauge().value());
+        assertEquals(2, meterRegistry.get("user.search.index.tombstones").gauge().value());
+        assertTrue(search("example.com").isEmpty());
+    }
+
+    private List<UserSearchResult> search(String query) {
+        return searchIndex.search(query, null, null, null, 10);
+    }
+
+    private static List<String> usernames(List<UserSearchResult> results) {
+        return results.stream().map(UserSearchResult::getUsername).collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private static ResultSet row(User user) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getLong(1)).thenReturn(user.getId());
+        when(resultSet.getString(2)).thenReturn(user.getUserId());
+        when(resultSet.getString(3)).thenReturn(user.getFirstName());
+        when(resultSet.getString(4)).thenReturn(user.getLastName());
+        when(resultSet.getString(5)).thenReturn(user.getUsername());
+        when(resultSet.getString(6)).thenReturn(user.getEmail());
+        when(resultSet.getString(7)).thenReturn(user.getRole());
+        when(resultSet.getBoolean(8)).thenReturn(user.isActive());
+        when(resultSet.getBoolean(9)).thenReturn(user.isNotLocked());
+        return resultSet;
+    }
+
+    private static User user(Long id, String username, String email, String firstName, String lastName, String role) {
+        User user = new User();
+        user.setId(id);
+        user.setUserId(String.valueOf(id));
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setRole(role);
+        user.setActive(true);
+        user.setNotLocked(true);
+        return user;
+    }
+}
@@ -0,0 +1,58 @@
+package dev.peacechan.usermanagement.utility;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+    private final Set<String> encodingThreads = ConcurrentHashMap.newKeySet();
+    private final BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            encodingThreads.add(Thread.currentThread().getName());
+            return "{encoded}" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encodedPassword.equals(encode(rawPassword));
+        }
+    }, 2, 4, 1, new SimpleMeterRegistry());
+
+    @AfterEach
+    void shutdown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    void bulkEncodingRunsOnItsOwnLaneInOrder() {
+        List<String> passwords = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            passwords.add("password" + i);
+        }
+
+        List<String> encoded = encoder.encodeAll(passwords);
+
+        assertEquals(200, encoded.size());
+        for (int i = 0; i < 200; i++) {
+            assertEquals("{encoded}password" + i, encoded.get(i));
+        }
+        assertEquals(1, encodingThreads.size());
+        assertTrue(encodingThreads.iterator().next().startsWith("password-hash-bulk-"));
+    }
+
+    @Test
+    void interactiveCallsUseTheMainPool() {
+        assertTrue(encoder.matches("secret", encoder.encode("secret")));
+
+        assertTrue(encodingThreads.stream().allMatch(name -> name.startsWith("password-hash-") && !name.startsWith("password-hash-bulk-")));
+    }
+}
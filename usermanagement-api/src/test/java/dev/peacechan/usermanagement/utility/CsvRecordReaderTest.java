@@ -0,0 +1,47 @@
+package dev.peacechan.usermanagement.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void quotedFieldsKeepSeparatorsQuotesAndLineBreaks() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(
+                "name,note\r\n\"Smith, Jo\",\"said \"\"hi\"\"\"\n\"two\r\nlines\",\n"));
+
+        assertEquals(Arrays.asList("name", "note"), reader.readRecord());
+        assertEquals(Arrays.asList("Smith, Jo", "said \"hi\""), reader.readRecord());
+        assertEquals(Arrays.asList("two\r\nlines", ""), reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    void blankLinesAreSkippedAndTheLastRecordNeedsNoLineBreak() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("\r\n\na,b\r\r\n\nc"));
+
+        assertEquals(Arrays.asList("a", "b"), reader.readRecord());
+        assertEquals(Collections.singletonList("c"), reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    void quotesInsideAnUnquotedFieldAreKept() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("a\"b,c\n"));
+
+        assertEquals(Arrays.asList("a\"b", "c"), reader.readRecord());
+    }
+
+    @Test
+    void unterminatedQuotedFieldsAreRejected() {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("a,\"open\n"));
+
+        assertThrows(IOException.class, reader::readRecord);
+    }
+}
@@ -0,0 +1,49 @@
+package dev.peacechan.usermanagement.utility;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailBodyCipherTest {
+    private static final String KEY = Base64.getEncoder().encodeToString(new byte[32]);
+
+    @Test
+    void storedBodyDoesNotContainThePassword() throws Exception {
+        EmailBodyCipher cipher = new EmailBodyCipher(KEY, new MockEnvironment());
+
+        String encrypted = cipher.encrypt("Your new password is: <b>hunter2</b>");
+
+        assertFalse(encrypted.contains("hunter2"));
+        assertNotEquals(encrypted, cipher.encrypt("Your new password is: <b>hunter2</b>"));
+        assertEquals("Your new password is: <b>hunter2</b>", cipher.decrypt(encrypted));
+    }
+
+    @Test
+    void bodiesCannotBeReadWithAnotherKey() throws Exception {
+        String encrypted = new EmailBodyCipher(KEY, new MockEnvironment()).encrypt("secret");
+
+        String otherKey = Base64.getEncoder().encodeToString(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        assertThrows(GeneralSecurityException.class, () -> new EmailBodyCipher(otherKey, new MockEnvironment()).decrypt(encrypted));
+    }
+
+    @Test
+    void missingKeyFailsStartupInProduction() {
+        MockEnvironment production = new MockEnvironment();
+        production.setActiveProfiles("prod");
+
+        assertThrows(IllegalStateException.class, () -> new EmailBodyCipher("", production));
+        assertThrows(IllegalStateException.class, () -> new EmailBodyCipher(" ", production));
+    }
+
+    @Test
+    void missingKeyFallsBackToAProcessKeyOutsideProduction() throws Exception {
+        EmailBodyCipher cipher = new EmailBodyCipher("", new MockEnvironment());
+
+        assertEquals("secret", cipher.decrypt(cipher.encrypt("secret")));
+        assertThrows(GeneralSecurityException.class, () -> new EmailBodyCipher("", new MockEnvironment()).decrypt(cipher.encrypt("secret")));
+    }
+}
@@ -0,0 +1,35 @@
+package dev.peacechan.usermanagement.utility;
+
+import dev.peacechan.usermanagement.enumeration.ExecutionMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionThreadsTest {
+
+    @Test
+    void platformModeCreatesNamedPlatformThreads() {
+        ExecutionThreads executionThreads = new ExecutionThreads(ExecutionMode.PLATFORM);
+
+        Thread thread = executionThreads.threadFactory("worker-").newThread(() -> { });
+
+        assertFalse(executionThreads.isVirtual());
+        assertTrue(thread.getName().startsWith("worker-"));
+        assertThrows(IllegalStateException.class, () -> executionThreads.newThreadPerTaskExecutor("worker-"));
+    }
+
+    // Virtual threads are final from Java 21; before that the API is missing or a preview.
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_18)
+    void virtualModeFallsBackToPlatformThreadsWithoutTheApi() {
+        ExecutionThreads executionThreads = new ExecutionThreads(ExecutionMode.VIRTUAL);
+
+        Thread thread = executionThreads.threadFactory("worker-").newThread(() -> { });
+
+        assertFalse(executionThreads.isVirtual());
+        assertTrue(thread.getName().startsWith("worker-"));
+        assertThrows(IllegalStateException.class, () -> executionThreads.newThreadPerTaskExecutor("worker-"));
+    }
+}
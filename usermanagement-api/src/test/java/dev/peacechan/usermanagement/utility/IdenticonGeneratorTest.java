@@ -0,0 +1,37 @@
+package dev.peacechan.usermanagement.utility;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdenticonGeneratorTest {
+
+    @Test
+    void sameUsernameAlwaysRendersTheSameImage() throws Exception {
+        assertArrayEquals(IdenticonGenerator.generate("alice", 120), IdenticonGenerator.generate("alice", 120));
+        assertFalse(Arrays.equals(IdenticonGenerator.generate("alice", 120), IdenticonGenerator.generate("bob", 120)));
+    }
+
+    @Test
+    void identiconsAreSquareAndMirrored() throws Exception {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(IdenticonGenerator.generate("alice", 120)));
+
+        assertEquals(120, image.getWidth());
+        assertEquals(120, image.getHeight());
+        // Sample cell centres; JPEG noise stays well below the gap between the two colours.
+        for (int y = 20; y < 120; y += 20) {
+            for (int x = 20; x < 60; x += 20) {
+                assertEquals(brightness(image.getRGB(x, y)), brightness(image.getRGB(119 - x, y)), 24);
+            }
+        }
+    }
+
+    private static int brightness(int rgb) {
+        return ((rgb >> 16 & 0xFF) + (rgb >> 8 & 0xFF) + (rgb & 0xFF)) / 3;
+    }
+}
@@ -0,0 +1,71 @@
+package dev.peacechan.usermanagement.utility;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import dev.peacechan.usermanagement.domain.User;
+import dev.peacechan.usermanagement.domain.UserPrincipal;
+import dev.peacechan.usermanagement.domain.VerifiedToken;
+import dev.peacechan.usermanagement.enumeration.Role;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.Authentication;
+
+import java.util.Date;
+
+import static com.auth0.jwt.algorithms.Algorithm.HMAC512;
+import static dev.peacechan.usermanagement.constant.SecurityConstant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenProviderTest {
+    private static final String SECRET = "test-secret";
+
+    private final JwtTokenProvider provider = new JwtTokenProvider(new SimpleMeterRegistry(), SECRET, 100, 600_000);
+    private final PermissionChecker permissionChecker = new PermissionChecker();
+
+    @Test
+    void tokensCarryAPermissionMaskInsteadOfAuthorityNames() {
+        String token = provider.generateJwtToken(new UserPrincipal(createUser(Role.ROLE_ADMIN)));
+
+        assertTrue(JWT.decode(token).getClaim(AUTHORITIES).isNull());
+        VerifiedToken verifiedToken = provider.verifyToken(token);
+        assertEquals(Role.ROLE_ADMIN.getPermissions(), verifiedToken.getPermissions());
+        assertSame(verifiedToken.getAuthorities(), new UserPrincipal(createUser(Role.ROLE_ADMIN)).getAuthorities());
+
+        Authentication authentication = provider.getAuthentication(verifiedToken, new MockHttpServletRequest());
+        assertTrue(permissionChecker.has(authentication, "user:create"));
+        assertFalse(permissionChecker.has(authentication, "user:delete"));
+        assertFalse(permissionChecker.has(authentication, "unknown:permission"));
+    }
+
+    @Test
+    void tokensWithoutAPermissionMaskAreRejected() {
+        String token = JWT.create().withIssuer(PEACE_CHAN_DEV).withSubject("legacy")
+                .withArrayClaim(AUTHORITIES, Role.ROLE_SUPER_ADMIN.getAuthorities().toArray(new String[0]))
+                .withIssuedAt(new Date()).withExpiresAt(new Date(System.currentTimeMillis() + 60_000))
+                .sign(HMAC512(SECRET.getBytes()));
+
+        assertThrows(JWTVerificationException.class, () -> provider.verifyToken(token));
+    }
+
+    @Test
+    void tokensThatOutliveTheRevocationWindowAreRejected() {
+        long now = System.currentTimeMillis();
+        String longLived = JWT.create().withIssuer(PEACE_CHAN_DEV).withSubject("legacy")
+                .withIssuedAt(new Date(now)).withExpiresAt(new Date(now + 5L * 24 * 60 * 60 * 1000))
+                .sign(HMAC512(SECRET.getBytes()));
+        String withoutIssuedAt = JWT.create().withIssuer(PEACE_CHAN_DEV).withSubject("legacy")
+                .withExpiresAt(new Date(now + 60_000))
+                .sign(HMAC512(SECRET.getBytes()));
+
+        assertThrows(JWTVerificationException.class, () -> provider.verifyToken(longLived));
+        assertThrows(JWTVerificationException.class, () -> provider.verifyToken(withoutIssuedAt));
+    }
+
+    private User createUser(Role role) {
+        User user = new User();
+        user.setUsername("alice");
+        user.setAuthorities(role.getAuthorities());
+        return user;
+    }
+}
@@ -0,0 +1,152 @@
+package dev.peacechan.usermanagement.utility;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PinningGuardTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void platformThreadsAreNeverHeldBack() throws InterruptedException {
+        PinningGuard guard = new PinningGuard(executionThreads(false), meterRegistry, 1);
+
+        guard.enter();
+        Thread other = new Thread(() -> {
+            try {
+                guard.enter();
+                guard.exit();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        other.start();
+        other.join(5_000);
+
+        assertFalse(other.isAlive());
+        assertNull(meterRegistry.find("execution.pinning.permits.available").gauge());
+    }
+
+    @Test
+    void entriesAreReentrantAndExcludeOtherThreads() throws InterruptedException {
+        PinningGuard guard = new PinningGuard(executionThreads(true), meterRegistry, 1);
+        guard.enter();
+        guard.enter();
+        guard.exit();
+        assertEquals(0, availablePermits());
+
+        CountDownLatch entered = new CountDownLatch(1);
+        Thread other = new Thread(() -> {
+            try {
+                guard.enter();
+                entered.countDown();
+                guard.exit();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        other.start();
+        assertFalse(entered.await(100, TimeUnit.MILLISECONDS));
+        guard.exit();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        other.join(5_000);
+        assertEquals(1, availablePermits());
+    }
+
+    @Test
+    void connectionsHoldAPermitOnlyWhileTheDriverIsCalled() throws Exception {
+        PinningGuard guard = new PinningGuard(executionThreads(true), meterRegistry, 1);
+        AtomicBoolean heldDuringExecute = new AtomicBoolean();
+        ResultSet resultSet = mock(ResultSet.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(statement.executeQuery()).thenAnswer(invocation -> {
+            heldDuringExecute.set(availablePermits() == 0);
+            return resultSet;
+        });
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement("select 1")).thenReturn(statement);
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenReturn(connection);
+        DataSource dataSource = new PinningGuardDataSource(target, guard);
+
+        try (Connection guarded = dataSource.getConnection()) {
+            assertEquals(1, availablePermits());
+            try (ResultSet rows = guarded.prepareStatement("select 1").executeQuery()) {
+                assertTrue(heldDuringExecute.get());
+                assertEquals(1, availablePermits());
+                rows.next();
+                assertEquals(1, availablePermits());
+            }
+        }
+        verify(resultSet).next();
+        verify(connection).close();
+    }
+
+    @Test
+    void threadsWaitingForThePoolDoNotBlockConnectionHolders() throws Exception {
+        PinningGuard guard = new PinningGuard(executionThreads(true), meterRegistry, 1);
+        int waiters = 3;
+        ExecutorService executor = Executors.newFixedThreadPool(waiters);
+        try (HikariDataSource pool = new HikariDataSource()) {
+            pool.setJdbcUrl("jdbc:h2:mem:pinning;DB_CLOSE_DELAY=-1");
+            pool.setMaximumPoolSize(1);
+            pool.setConnectionTimeout(10_000);
+            DataSource dataSource = new PinningGuardDataSource(pool, guard);
+
+            Connection holder = dataSource.getConnection();
+            List<Future<?>> waiting = new ArrayList<>();
+            for (int i = 0; i < waiters; i++) {
+                waiting.add(executor.submit(() -> {
+                    try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                        statement.execute("select 1");
+                    }
+                    return null;
+                }));
+            }
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (pool.getHikariPoolMXBean().getThreadsAwaitingConnection() < waiters && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            long started = System.nanoTime();
+            try (Statement statement = holder.createStatement()) {
+                statement.execute("select 1");
+            }
+            holder.close();
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 2_000);
+            for (Future<?> waiter : waiting) {
+                waiter.get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(1, availablePermits());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private double availablePermits() {
+        return meterRegistry.get("execution.pinning.permits.available").gauge().value();
+    }
+
+    private static ExecutionThreads executionThreads(boolean virtual) {
+        ExecutionThreads executionThreads = mock(ExecutionThreads.class);
+        when(executionThreads.isVirtual()).thenReturn(virtual);
+        return executionThreads;
+    }
+}
@@ -0,0 +1,89 @@
+package dev.peacechan.usermanagement.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidingWindowAttemptTrackerTest {
+    private static final long WINDOW_MILLIS = 1000;
+
+    private final AtomicLong clock = new AtomicLong(10 * WINDOW_MILLIS);
+    private final SlidingWindowAttemptTracker tracker = new SlidingWindowAttemptTracker(WINDOW_MILLIS, 1000, clock::get);
+
+    @Test
+    void countsAreWeightedByTheOverlapWithThePreviousWindow() {
+        for (int i = 0; i < 4; i++) {
+            tracker.increment("alice");
+        }
+        clock.addAndGet(WINDOW_MILLIS + WINDOW_MILLIS / 4);
+        assertEquals(3.0, tracker.count("alice"), 0.001);
+        assertEquals(4.0, tracker.increment("alice"), 0.001);
+        clock.addAndGet(2 * WINDOW_MILLIS);
+        assertEquals(0.0, tracker.count("alice"), 0.001);
+    }
+
+    @Test
+    void concurrentIncrementsAreNotLost() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8000; i++) {
+            executor.execute(() -> tracker.increment("alice"));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(8000.0, tracker.count("alice"), 0.001);
+    }
+
+    @Test
+    void attackedKeysSurviveWhenTheTrackerIsFull() {
+        for (int i = 0; i < 5; i++) {
+            tracker.increment("victim");
+        }
+        for (int i = 0; i < 100_000; i++) {
+            tracker.increment("user" + i);
+        }
+        assertTrue(tracker.size() <= 1000);
+        assertTrue(tracker.evictionCount() > 0);
+        assertEquals(5.0, tracker.count("victim"), 0.001);
+    }
+
+    @Test
+    void expiredKeysAreEvictedBeforeActiveOnes() {
+        for (int i = 0; i < 1000; i++) {
+            tracker.increment("stale" + i);
+        }
+        clock.addAndGet(3 * WINDOW_MILLIS);
+        tracker.increment("fresh");
+        assertEquals(1, tracker.size());
+        assertEquals(0, tracker.evictionCount());
+    }
+
+    @Test
+    void evictionSamplesTheWholeKeySpace() {
+        Random random = new Random(42);
+        List<String> heavy = new ArrayList<>();
+        for (int i = 0; i < 900; i++) {
+            heavy.add("heavy" + random.nextLong());
+            for (int j = 0; j < 3; j++) {
+                tracker.increment(heavy.get(i));
+            }
+        }
+        for (int i = 0; i < 100; i++) {
+            tracker.increment("light" + random.nextLong());
+        }
+        for (int i = 0; i < 100; i++) {
+            tracker.increment("new" + random.nextLong());
+        }
+        long heavyEvicted = heavy.stream().filter(key -> tracker.count(key) == 0).count();
+        assertEquals(100, tracker.evictionCount());
+        assertTrue(heavyEvicted < 20, heavyEvicted + " heavy keys evicted");
+    }
+}
@@ -0,0 +1,4 @@
+export enum ErrorMessage {
+  // Sent with the 403 for requests without a usable token, as opposed to a missing permission.
+  LOGIN_REQUIRED = 'You need to log in to access this page'
+}
@@ -1,4 +1,5 @@
 export enum HeaderType {
   AUTHORIZATION = 'Authorization',
-  JWT_TOKEN = 'Jwt-Token'
+  JWT_TOKEN = 'Jwt-Token',
+  REFRESH_TOKEN = 'Refresh-Token'
 }
@@ -3,15 +3,19 @@ import {
   HttpRequest,
   HttpHandler,
   HttpEvent,
-  HttpInterceptor
+  HttpInterceptor,
+  HttpErrorResponse
 } from '@angular/common/http';
-import { Observable } from 'rxjs';
+import { Router } from '@angular/router';
+import { Observable, throwError } from 'rxjs';
+import { catchError, switchMap } from 'rxjs/operators';
 import { AuthenticationService } from '../service/authentication.service';
+import { ErrorMessage } from '../enum/error-message.enum';
 
 @Injectable()
 export class AuthInterceptor implements HttpInterceptor {
 
-  constructor(private authenticationService: AuthenticationService) {}
+  constructor(private authenticationService: AuthenticationService, private router: Router) {}
 
   intercept(httpRequest: HttpRequest<any>, httpHandler: HttpHandler): Observable<HttpEvent<any>> {
     if (httpRequest.url.includes(`${this.authenticationService.host}/user/login`)) {
@@ -20,9 +24,36 @@ export class AuthInterceptor implements HttpInterceptor {
     if (httpRequest.url.includes(`${this.authenticationService.host}/user/register`)) {
       return httpHandler.handle(httpRequest);
     }
-    this.authenticationService.loadToken();
-    const token = this.authenticationService.getToken();
-    const request = httpRequest.clone({ setHeaders: { Authorization: `Bearer ${token}` }});
-    return httpHandler.handle(request);
+    if (httpRequest.url.includes(`${this.authenticationService.host}/user/token/refresh`)) {
+      return httpHandler.handle(httpRequest);
+    }
+    if (this.authenticationService.isAccessTokenExpired() && this.authenticationService.getRefreshToken()) {
+      return this.refreshAndRetry(httpRequest, httpHandler);
+    }
+    return httpHandler.handle(this.withToken(httpRequest, this.authenticationService.getToken())).pipe(
+      catchError((errorResponse: HttpErrorResponse) => {
+        // A revoked token is refused by the entry point; a 403 for a missing permission is final.
+        if (errorResponse.status === 403 && errorResponse.error?.message === ErrorMessage.LOGIN_REQUIRED
+          && this.authenticationService.getRefreshToken()) {
+          return this.refreshAndRetry(httpRequest, httpHandler);
+        }
+        return throwError(errorResponse);
+      })
+    );
+  }
+
+  private refreshAndRetry(httpRequest: HttpRequest<any>, httpHandler: HttpHandler): Observable<HttpEvent<any>> {
+    return this.authenticationService.refreshAccessToken().pipe(
+      catchError((errorResponse: HttpErrorResponse) => {
+        this.authenticationService.logOut();
+        this.router.navigate(['/login']);
+        return throwError(errorResponse);
+      }),
+      switchMap((token: string) => httpHandler.handle(this.withToken(httpRequest, token)))
+    );
+  }
+
+  private withToken(httpRequest: HttpRequest<any>, token: string): HttpRequest<any> {
+    return httpRequest.clone({ setHeaders: { Authorization: `Bearer ${token}` }});
   }
 }
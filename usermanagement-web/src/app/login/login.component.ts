@@ -35,6 +35,7 @@ export class LoginComponent implements OnInit, OnDestroy {
         (response: HttpResponse<User>) => {
           const token = response.headers.get(HeaderType.JWT_TOKEN);
           this.authenticationService.saveToken(token);
+          this.authenticationService.saveRefreshToken(response.headers.get(HeaderType.REFRESH_TOKEN));
           this.authenticationService.addUserToLocalCache(response.body);
           this.router.navigateByUrl('/user/management');
           this.showLoading = false;
@@ -1,17 +1,24 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpResponse, HttpErrorResponse } from '@angular/common/http';
 import { environment } from '../../environments/environment';
-import { Observable } from 'rxjs';
+import { defer, fromEvent, Observable, throwError, TimeoutError } from 'rxjs';
+import { catchError, filter, finalize, map, shareReplay, take, timeout } from 'rxjs/operators';
 import { User } from '../model/user';
 import { JwtHelperService } from '@auth0/angular-jwt';
+import { HeaderType } from '../enum/header-type.enum';
 
 
+const REFRESH_LOCK = 'refreshLock';
+const REFRESH_LOCK_MS = 10000;
+
 @Injectable({providedIn: 'root'})
 export class AuthenticationService {
   public host = environment.apiUrl;
   private token: string;
+  private refreshToken: string;
   private loggedInUsername: string;
   private jwtHelper = new JwtHelperService();
+  private refreshInProgress: Observable<string>;
 
   constructor(private http: HttpClient) {}
 
@@ -23,11 +30,73 @@ export class AuthenticationService {
     return this.http.post<User>(`${this.host}/user/register`, user);
   }
 
+  /**
+   * Swaps the refresh token for a new access and refresh token pair. Each refresh token can only be
+   * used once, so requests in this tab share one refresh, and a tab that finds another tab holding
+   * the refresh lock waits for that tab's tokens instead of presenting the same refresh token.
+   */
+  public refreshAccessToken(): Observable<string> {
+    if (!this.refreshInProgress) {
+      this.refreshInProgress = defer(() => this.refreshLockExpiry() > Date.now()
+        ? this.awaitRefreshInAnotherTab()
+        : this.requestTokens()).pipe(
+        finalize(() => {
+          this.refreshInProgress = null;
+        }),
+        shareReplay(1)
+      );
+    }
+    return this.refreshInProgress;
+  }
+
+  private requestTokens(): Observable<string> {
+    localStorage.setItem(REFRESH_LOCK, String(Date.now() + REFRESH_LOCK_MS));
+    return this.http.post<User>(`${this.host}/user/token/refresh`, null,
+      { headers: { [HeaderType.REFRESH_TOKEN]: this.getRefreshToken() }, observe: 'response' }).pipe(
+      map((response: HttpResponse<User>) => {
+        this.saveToken(response.headers.get(HeaderType.JWT_TOKEN));
+        this.saveRefreshToken(response.headers.get(HeaderType.REFRESH_TOKEN));
+        this.addUserToLocalCache(response.body);
+        return this.token;
+      }),
+      finalize(() => localStorage.removeItem(REFRESH_LOCK))
+    );
+  }
+
+  /**
+   * The other tab stores its new tokens before releasing the lock, so they are readable once the
+   * storage event for the release arrives. If the lock expires without a release, that tab went
+   * away mid-refresh and this tab refreshes itself.
+   */
+  private awaitRefreshInAnotherTab(): Observable<string> {
+    const staleRefreshToken = this.getRefreshToken();
+    return fromEvent<StorageEvent>(window, 'storage').pipe(
+      filter((event: StorageEvent) => event.key === REFRESH_LOCK && event.newValue === null),
+      take(1),
+      timeout(Math.max(this.refreshLockExpiry() - Date.now(), 0)),
+      map(() => {
+        const refreshToken = this.getRefreshToken();
+        if (refreshToken == null || refreshToken === staleRefreshToken) {
+          throw new Error('The token refresh failed in another tab');
+        }
+        this.loadToken();
+        return this.token;
+      }),
+      catchError((error: any) => error instanceof TimeoutError ? this.requestTokens() : throwError(error))
+    );
+  }
+
+  private refreshLockExpiry(): number {
+    return Number(localStorage.getItem(REFRESH_LOCK));
+  }
+
   public logOut(): void {
     this.token = null;
+    this.refreshToken = null;
     this.loggedInUsername = null;
     localStorage.removeItem('user');
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
     localStorage.removeItem('users');
   }
 
@@ -36,6 +105,11 @@ export class AuthenticationService {
     localStorage.setItem('token', token);
   }
 
+  public saveRefreshToken(refreshToken: string): void {
+    this.refreshToken = refreshToken;
+    localStorage.setItem('refreshToken', refreshToken);
+  }
+
   public addUserToLocalCache(user: User): void {
     localStorage.setItem('user', JSON.stringify(user));
   }
@@ -52,11 +126,22 @@ export class AuthenticationService {
     return this.token;
   }
 
+  public getRefreshToken(): string {
+    this.refreshToken = localStorage.getItem('refreshToken');
+    return this.refreshToken;
+  }
+
+  public isAccessTokenExpired(): boolean {
+    this.loadToken();
+    return this.token == null || this.token === '' || this.jwtHelper.isTokenExpired(this.token);
+  }
+
   public isUserLoggedIn(): boolean {
     this.loadToken();
     if (this.token != null && this.token !== ''){
       if (this.jwtHelper.decodeToken(this.token).sub != null || '') {
-        if (!this.jwtHelper.isTokenExpired(this.token)) {
+        // An expired access token is renewed with the refresh token on the next request.
+        if (!this.jwtHelper.isTokenExpired(this.token) || this.getRefreshToken()) {
           this.loggedInUsername = this.jwtHelper.decodeToken(this.token).sub;
           return true;
         }